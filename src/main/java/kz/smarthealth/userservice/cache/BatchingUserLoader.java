@@ -0,0 +1,180 @@
+package kz.smarthealth.userservice.cache;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import kz.smarthealth.userservice.config.UserLoaderBatchingConfig;
+import kz.smarthealth.userservice.model.dto.UserDTO;
+import kz.smarthealth.userservice.model.projection.UserProfileRow;
+import kz.smarthealth.userservice.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Loads users by id in batches: ids requested by concurrent callers are collected for up to "max-delay-micros" after
+ * the first one, or until "max-batch-size" ids are collected, and are resolved with one query. Every caller gets a
+ * future of its own user, completed once the batch query returns, or completed exceptionally with the exception of
+ * the query.
+ * <p>
+ * Batches are collected by a single thread and queried by a pool of "concurrency" threads, so that the next batch is
+ * collected while the previous one is being queried. Sizes of batches are published as "user-loader.batch.size".
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cache.users.batching.enabled", havingValue = "true")
+public class BatchingUserLoader implements DisposableBean {
+
+    private final BlockingQueue<Load> pendingLoads = new LinkedBlockingQueue<>();
+    private final Function<Set<UUID>, Map<UUID, UserDTO>> batchLoader;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final ExecutorService queryExecutor;
+    private final Thread collector;
+    private final DistributionSummary batchSizes;
+
+    @Autowired
+    public BatchingUserLoader(UserLoaderBatchingConfig userLoaderBatchingConfig, UserRepository userRepository,
+                              MeterRegistry meterRegistry) {
+        this(userLoaderBatchingConfig, ids -> loadUsers(userRepository, ids), meterRegistry);
+    }
+
+    BatchingUserLoader(UserLoaderBatchingConfig userLoaderBatchingConfig,
+                       Function<Set<UUID>, Map<UUID, UserDTO>> batchLoader, MeterRegistry meterRegistry) {
+        if (userLoaderBatchingConfig.getMaxBatchSize() < 1 || userLoaderBatchingConfig.getConcurrency() < 1) {
+            throw new IllegalArgumentException("Invalid user loader batching settings");
+        }
+
+        this.batchLoader = batchLoader;
+        this.maxBatchSize = userLoaderBatchingConfig.getMaxBatchSize();
+        this.maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(userLoaderBatchingConfig.getMaxDelayMicros());
+        this.queryExecutor = Executors.newFixedThreadPool(userLoaderBatchingConfig.getConcurrency(),
+                daemonThreadFactory("user-loader-"));
+        this.batchSizes = DistributionSummary.builder("user-loader.batch.size")
+                .description("Number of distinct users loaded by one query")
+                .register(meterRegistry);
+        this.collector = daemonThreadFactory("user-loader-collector").newThread(this::collect);
+        this.collector.start();
+    }
+
+    /**
+     * Queues load of the user into the next batch
+     *
+     * @param id user id
+     * @return future of the user, completed with null if user does not exist
+     */
+    public CompletableFuture<UserDTO> load(UUID id) {
+        Load load = new Load(id, new CompletableFuture<>());
+        pendingLoads.add(load);
+
+        return load.user();
+    }
+
+    /**
+     * Loads the user in the next batch, waiting for the batch to be queried
+     *
+     * @param id user id
+     * @return user, null if user does not exist
+     */
+    public UserDTO get(UUID id) {
+        try {
+            return load(id).join();
+        } catch (CompletionException e) {
+            // rethrow exception of the query as the query would have thrown it to the caller
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        collector.interrupt();
+        queryExecutor.shutdown();
+    }
+
+    private void collect() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Load> batch = new ArrayList<>(maxBatchSize);
+
+            try {
+                batch.add(pendingLoads.take());
+                long deadline = System.nanoTime() + maxDelayNanos;
+
+                while (batch.size() < maxBatchSize) {
+                    // loads queued meanwhile are taken at once, waiting only when the queue is empty
+                    if (pendingLoads.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                        continue;
+                    }
+
+                    Load load = pendingLoads.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+                    if (load == null) {
+                        break;
+                    }
+
+                    batch.add(load);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (!batch.isEmpty()) {
+                dispatch(batch);
+            }
+        }
+
+        List<Load> remaining = new ArrayList<>();
+        pendingLoads.drainTo(remaining);
+        remaining.forEach(load -> load.user().completeExceptionally(
+                new IllegalStateException("User loader is shut down")));
+    }
+
+    private void dispatch(List<Load> batch) {
+        try {
+            queryExecutor.execute(() -> query(batch));
+        } catch (RejectedExecutionException e) {
+            batch.forEach(load -> load.user().completeExceptionally(e));
+        }
+    }
+
+    private void query(List<Load> batch) {
+        Set<UUID> ids = new HashSet<>(batch.size() * 2);
+        batch.forEach(load -> ids.add(load.id()));
+        batchSizes.record(ids.size());
+
+        try {
+            Map<UUID, UserDTO> users = batchLoader.apply(ids);
+            batch.forEach(load -> load.user().complete(users.get(load.id())));
+        } catch (RuntimeException e) {
+            log.debug("User batch query of {} ids failed: {}", ids.size(), e.getMessage());
+            batch.forEach(load -> load.user().completeExceptionally(e));
+        }
+    }
+
+    private static Map<UUID, UserDTO> loadUsers(UserRepository userRepository, Set<UUID> ids) {
+        List<UserProfileRow> rows = userRepository.findProfilesByIds(ids);
+        Map<UUID, UserDTO> users = new HashMap<>(rows.size() * 2);
+        rows.forEach(row -> users.put(row.id(), row.toUserDTO()));
+
+        return users;
+    }
+
+    private static ThreadFactory daemonThreadFactory(String threadNamePrefix) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(threadNamePrefix);
+        threadFactory.setDaemon(true);
+
+        return threadFactory;
+    }
+
+    private record Load(UUID id, CompletableFuture<UserDTO> user) {
+    }
+}
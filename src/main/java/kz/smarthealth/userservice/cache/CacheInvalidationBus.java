@@ -0,0 +1,157 @@
+package kz.smarthealth.userservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import kz.smarthealth.userservice.config.CacheInvalidationConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Spreads cache invalidations to all replicas over a Kafka topic.
+ * <p>
+ * Invalidated ids are collected per cache and sent every "flush-interval-ms", up to "max-batch-size" ids per message,
+ * so a burst of writes costs a few messages. A message is keyed by the sending replica and holds the cache name and
+ * the ids as 16 raw bytes each, Base64 encoded: "users:AAECAwQFBgcICQoLDA0ODw". Every replica consumes the topic in a
+ * consumer group of its own, so each of them receives every message, and skips its own messages.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "cache.invalidation.enabled", havingValue = "true")
+public class CacheInvalidationBus {
+
+    private static final String METRIC_NAME = "cache.invalidation.ids";
+    private static final char SEPARATOR = ':';
+    private static final int UUID_BYTES = 16;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, Consumer<UUID>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, Set<UUID>> pendingIds = new ConcurrentHashMap<>();
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final CacheInvalidationConfig cacheInvalidationConfig;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spring.application.name}")
+    private String applicationName;
+
+    private Counter publishedCounter;
+    private Counter receivedCounter;
+
+    @PostConstruct
+    void init() {
+        publishedCounter = Counter.builder(METRIC_NAME)
+                .description("Number of cache entries invalidated on other replicas")
+                .tag("direction", "published")
+                .register(meterRegistry);
+        receivedCounter = Counter.builder(METRIC_NAME)
+                .description("Number of cache entries invalidated by other replicas")
+                .tag("direction", "received")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers local cache, ids received for it are passed to the evictor
+     *
+     * @param cacheName name of the cache, same on all replicas
+     * @param evictor   removes entry from local cache
+     */
+    public void subscribe(String cacheName, Consumer<UUID> evictor) {
+        subscribers.put(cacheName, evictor);
+    }
+
+    /**
+     * Queues invalidation of the entry on other replicas
+     *
+     * @param cacheName name of the cache
+     * @param id        id of the invalidated entry
+     */
+    public void publish(String cacheName, UUID id) {
+        pendingIds.computeIfAbsent(cacheName, name -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    /**
+     * Sends queued invalidations
+     */
+    @Scheduled(fixedDelayString = "${cache.invalidation.flush-interval-ms}")
+    public void flush() {
+        pendingIds.forEach((cacheName, ids) -> {
+            List<UUID> batch = new ArrayList<>();
+
+            for (Iterator<UUID> iterator = ids.iterator(); iterator.hasNext(); ) {
+                batch.add(iterator.next());
+                iterator.remove();
+
+                if (batch.size() == cacheInvalidationConfig.getMaxBatchSize()) {
+                    send(cacheName, batch);
+                    batch.clear();
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                send(cacheName, batch);
+            }
+        });
+    }
+
+    @KafkaListener(topics = "${kafka.topic.cache-invalidation}", groupId = "#{__listener.groupId}",
+            properties = "auto.offset.reset=latest")
+    public void receive(ConsumerRecord<String, String> message) {
+        if (instanceId.equals(message.key()) || message.value() == null) {
+            return;
+        }
+
+        int separatorIndex = message.value().indexOf(SEPARATOR);
+        Consumer<UUID> evictor = separatorIndex < 0
+                ? null
+                : subscribers.get(message.value().substring(0, separatorIndex));
+
+        if (evictor == null) {
+            log.warn("Cache invalidation for unknown cache skipped: {}", message.value());
+            return;
+        }
+
+        ByteBuffer ids = ByteBuffer.wrap(Base64.getUrlDecoder().decode(message.value().substring(separatorIndex + 1)));
+
+        while (ids.remaining() >= UUID_BYTES) {
+            evictor.accept(new UUID(ids.getLong(), ids.getLong()));
+            receivedCounter.increment();
+        }
+    }
+
+    /**
+     * Consumer group unique to this replica, dropped by the broker once offsets retention passes after shutdown
+     *
+     * @return consumer group id
+     */
+    public String getGroupId() {
+        return applicationName + "-cache-invalidation-" + instanceId;
+    }
+
+    private void send(String cacheName, List<UUID> ids) {
+        ByteBuffer buffer = ByteBuffer.allocate(ids.size() * UUID_BYTES);
+        ids.forEach(id -> buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()));
+        String message = cacheName + SEPARATOR + Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+
+        kafkaTemplate.send(cacheInvalidationConfig.getTopicName(), instanceId, message)
+                .whenComplete((result, e) -> {
+                    if (e != null) {
+                        // entries expire by TTL on other replicas anyway
+                        log.warn("Cache invalidation of {} ids not sent: {}", ids.size(), e.getMessage());
+                    }
+                });
+        publishedCounter.increment(ids.size());
+    }
+}
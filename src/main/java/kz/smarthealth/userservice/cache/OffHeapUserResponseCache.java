@@ -0,0 +1,361 @@
+package kz.smarthealth.userservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import kz.smarthealth.userservice.config.UserResponseCacheConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Off-heap cache of serialized user responses: UTF-8 JSON of a user and its gzipped variant, kept in direct memory
+ * so that neither the bytes nor the objects serialization would allocate are on the heap.
+ * <p>
+ * Memory is allocated once, "max-size-bytes" divided into slots of "slot-size-bytes", each slot holding plain and
+ * gzipped JSON of one user. Keys are held as two longs per slot and found through an open addressing table of slot
+ * numbers. When all slots are taken, a slot is freed by the clock policy: the hand passes over slots read since its
+ * last pass, clearing their reference bit, and evicts the first one not read.
+ * <p>
+ * Readers copy bytes under an optimistic read stamp and retry under the read lock when a writer got in between, so
+ * reads do not block each other. Entries are invalidated together with {@link UserCache}, and expire after the same
+ * time to live.
+ */
+@Component
+@ConditionalOnProperty(name = "cache.user-responses.enabled", havingValue = "true")
+public class OffHeapUserResponseCache {
+
+    private static final String NAME = "user-responses";
+
+    private final ByteBuffer memory;
+    private final int slotSize;
+    private final int slots;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final ThreadLocal<byte[]> readBuffers;
+
+    // per slot, guarded by lock
+    private final long[] mostSigBits;
+    private final long[] leastSigBits;
+    private final int[] plainLengths;
+    private final int[] gzipLengths;
+    private final long[] expiresAtMillis;
+    private final long[] userVersions;
+    // written by readers without the lock, the clock only needs to see it eventually
+    private final boolean[] referenced;
+    // slot number + 1 by hash of key, 0 for empty
+    private final int[] table;
+    private final int tableMask;
+    private final StampedLock lock = new StampedLock();
+    private final AtomicLong version = new AtomicLong();
+    private int hand;
+    private volatile long usedBytes;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public OffHeapUserResponseCache(UserResponseCacheConfig userResponseCacheConfig, UserCache userCache,
+                                    MeterRegistry meterRegistry) {
+        this(userResponseCacheConfig, meterRegistry, System::currentTimeMillis);
+        userCache.addInvalidationListener(this::invalidate);
+    }
+
+    OffHeapUserResponseCache(UserResponseCacheConfig userResponseCacheConfig, MeterRegistry meterRegistry,
+                             LongSupplier clock) {
+        long maxSizeBytes = userResponseCacheConfig.getMaxSizeBytes();
+        slotSize = userResponseCacheConfig.getSlotSizeBytes();
+
+        if (slotSize < 1 || maxSizeBytes < slotSize || maxSizeBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid user response cache size: " + maxSizeBytes + "/" + slotSize);
+        }
+
+        slots = (int) (maxSizeBytes / slotSize);
+        memory = ByteBuffer.allocateDirect(slots * slotSize);
+        ttlMillis = TimeUnit.SECONDS.toMillis(userResponseCacheConfig.getTtlSeconds());
+        this.clock = clock;
+        readBuffers = ThreadLocal.withInitial(() -> new byte[slotSize]);
+        mostSigBits = new long[slots];
+        leastSigBits = new long[slots];
+        plainLengths = new int[slots];
+        gzipLengths = new int[slots];
+        expiresAtMillis = new long[slots];
+        userVersions = new long[slots];
+        referenced = new boolean[slots];
+        // at most half full, so probe sequences stay short
+        table = new int[Integer.highestOneBit(slots) << 2];
+        tableMask = table.length - 1;
+
+        hitCounter = Counter.builder("cache.gets").tag("cache", NAME).tag("result", "hit").register(meterRegistry);
+        missCounter = Counter.builder("cache.gets").tag("cache", NAME).tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", evictions, AtomicLong::get)
+                .tag("cache", NAME)
+                .register(meterRegistry);
+        Gauge.builder("cache.off-heap.used", this, cache -> cache.usedBytes)
+                .description("Bytes of cached responses")
+                .tag("cache", NAME)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("cache.off-heap.capacity", memory, ByteBuffer::capacity)
+                .description("Direct memory allocated for cached responses")
+                .tag("cache", NAME)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Version to pass to {@link #put(UUID, long, long, byte[])}, taken before the user is loaded
+     *
+     * @return current version of the cache
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Copies cached response into a buffer of the calling thread, which stays valid until the next call on the thread
+     *
+     * @param id   user id
+     * @param gzip whether gzipped response is needed
+     * @return cached response, or null if user is not cached or expired
+     */
+    public Response get(UUID id, boolean gzip) {
+        byte[] buffer = readBuffers.get();
+        long[] userVersion = new long[1];
+        long stamp = lock.tryOptimisticRead();
+        int length = stamp == 0 ? -1 : read(id, gzip, buffer, userVersion);
+
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+
+            try {
+                length = read(id, gzip, buffer, userVersion);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        if (length < 0) {
+            missCounter.increment();
+            return null;
+        }
+
+        hitCounter.increment();
+
+        return new Response(ByteBuffer.wrap(buffer, 0, length), userVersion[0]);
+    }
+
+    /**
+     * Caches response of the user. Response is dropped when the cache was invalidated after the version was taken,
+     * as it may be stale, or when it does not fit into a slot.
+     *
+     * @param id          user id
+     * @param version     version taken by {@link #getVersion()} before the user was loaded
+     * @param userVersion version of the user the response is serialized from
+     * @param json        UTF-8 JSON of the user
+     */
+    public void put(UUID id, long version, long userVersion, byte[] json) {
+        byte[] gzipped = gzip(json);
+
+        if (json.length + gzipped.length > slotSize) {
+            return;
+        }
+
+        long stamp = lock.writeLock();
+
+        try {
+            if (this.version.get() != version) {
+                return;
+            }
+
+            int index = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            int slot = index >= 0 ? table[index] - 1 : evictSlot();
+            int offset = slot * slotSize;
+            memory.put(offset, json, 0, json.length);
+            memory.put(offset + json.length, gzipped, 0, gzipped.length);
+            usedBytes += json.length + gzipped.length - plainLengths[slot] - gzipLengths[slot];
+            plainLengths[slot] = json.length;
+            gzipLengths[slot] = gzipped.length;
+            expiresAtMillis[slot] = clock.getAsLong() + ttlMillis;
+            userVersions[slot] = userVersion;
+            referenced[slot] = false;
+
+            if (index < 0) {
+                mostSigBits[slot] = id.getMostSignificantBits();
+                leastSigBits[slot] = id.getLeastSignificantBits();
+                insert(slot);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes response of the user
+     *
+     * @param id user id
+     */
+    public void invalidate(UUID id) {
+        long stamp = lock.writeLock();
+
+        try {
+            version.incrementAndGet();
+            int index = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+
+            if (index >= 0) {
+                free(table[index] - 1);
+                remove(index);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Copies response to the buffer and marks the slot as referenced. When called optimistically, may see state being
+     * modified, so every index is checked before use.
+     *
+     * @return length of response, -1 if not cached
+     */
+    private int read(UUID id, boolean gzip, byte[] buffer, long[] userVersion) {
+        int index = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        int slot = index < 0 ? -1 : table[index] - 1;
+
+        if (slot < 0 || slot >= slots) {
+            return -1;
+        }
+
+        int plainLength = plainLengths[slot];
+        int length = gzip ? gzipLengths[slot] : plainLength;
+        int offset = gzip ? plainLength : 0;
+
+        if (length <= 0 || offset < 0 || offset + length > slotSize || expiresAtMillis[slot] <= clock.getAsLong()) {
+            return -1;
+        }
+
+        memory.get(slot * slotSize + offset, buffer, 0, length);
+        userVersion[0] = userVersions[slot];
+        referenced[slot] = true;
+
+        return length;
+    }
+
+    /**
+     * Moves clock hand to a free slot or to the first slot not read since the last pass, and evicts it
+     */
+    private int evictSlot() {
+        while (plainLengths[hand] != 0 && referenced[hand]) {
+            referenced[hand] = false;
+            hand = (hand + 1) % slots;
+        }
+
+        int slot = hand;
+        hand = (hand + 1) % slots;
+
+        if (plainLengths[slot] != 0) {
+            remove(find(mostSigBits[slot], leastSigBits[slot]));
+            free(slot);
+            evictions.incrementAndGet();
+        }
+
+        return slot;
+    }
+
+    private void free(int slot) {
+        usedBytes -= plainLengths[slot] + gzipLengths[slot];
+        plainLengths[slot] = 0;
+        gzipLengths[slot] = 0;
+        referenced[slot] = false;
+    }
+
+    private int find(long most, long least) {
+        for (int index = hash(most, least); table[index] != 0; index = (index + 1) & tableMask) {
+            int slot = table[index] - 1;
+
+            if (slot < slots && mostSigBits[slot] == most && leastSigBits[slot] == least) {
+                return index;
+            }
+        }
+
+        return -1;
+    }
+
+    private void insert(int slot) {
+        int index = hash(mostSigBits[slot], leastSigBits[slot]);
+
+        while (table[index] != 0) {
+            index = (index + 1) & tableMask;
+        }
+
+        table[index] = slot + 1;
+    }
+
+    /**
+     * Removes table entry, moving back entries of the probe sequence, so that no tombstones are needed
+     */
+    private void remove(int index) {
+        int next = index;
+
+        while (true) {
+            next = (next + 1) & tableMask;
+
+            if (table[next] == 0) {
+                break;
+            }
+
+            int slot = table[next] - 1;
+            int home = hash(mostSigBits[slot], leastSigBits[slot]);
+
+            // entry can move back to index, unless its home lies cyclically between index and next
+            if (((next - home) & tableMask) >= ((next - index) & tableMask)) {
+                table[index] = table[next];
+                index = next;
+            }
+        }
+
+        table[index] = 0;
+    }
+
+    private int hash(long most, long least) {
+        long hash = most ^ least;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+
+        return (int) hash & tableMask;
+    }
+
+    /**
+     * Cached response
+     *
+     * @param json        plain or gzipped JSON, in a buffer of the calling thread
+     * @param userVersion version of the user the response is serialized from
+     */
+    public record Response(ByteBuffer json, long userVersion) {
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 2);
+
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,116 @@
+package kz.smarthealth.userservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical lookups which are not cached: while a lookup of a key is in flight, other callers of
+ * the same key wait for its result instead of running their own. Nothing is kept once the lookup completes, so a call
+ * made afterwards runs again.
+ * <p>
+ * A result or exception of the lookup is returned to, or thrown at, every waiter. Calls are counted per lookup name as
+ * "single-flight.calls" with tag result=executed or coalesced, and "single-flight.coalescing.ratio" is the share of
+ * calls served by another call's lookup.
+ */
+@Component
+public class SingleFlight {
+
+    private final ConcurrentHashMap<Call, CompletableFuture<Object>> calls = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Meters> meters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlight(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs the lookup, unless a lookup of the same name and key is in flight, in which case its result is awaited
+     *
+     * @param name   lookup name, keys of different lookups never coalesce
+     * @param key    lookup key, with equals and hashCode
+     * @param lookup runs the lookup
+     * @return result of the lookup
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V execute(String name, Object key, Supplier<V> lookup) {
+        Call call = new Call(name, key);
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = calls.putIfAbsent(call, future);
+        Meters callMeters = meters.computeIfAbsent(name, this::registerMeters);
+
+        if (inFlight != null) {
+            callMeters.coalesced.increment();
+
+            return (V) await(inFlight);
+        }
+
+        callMeters.executed.increment();
+
+        try {
+            V result = lookup.get();
+            future.complete(result);
+
+            return result;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+
+            throw e;
+        } finally {
+            calls.remove(call, future);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // rethrow exception of the lookup as it was thrown to the caller which ran it
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+
+            throw e;
+        }
+    }
+
+    private Meters registerMeters(String name) {
+        Counter executed = Counter.builder("single-flight.calls")
+                .tag("name", name)
+                .tag("result", "executed")
+                .register(meterRegistry);
+        Counter coalesced = Counter.builder("single-flight.calls")
+                .tag("name", name)
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+        Meters callMeters = new Meters(executed, coalesced);
+        Gauge.builder("single-flight.coalescing.ratio", callMeters, Meters::coalescingRatio)
+                .description("Share of calls served by a lookup of another call")
+                .tag("name", name)
+                .register(meterRegistry);
+
+        return callMeters;
+    }
+
+    private record Call(String name, Object key) {
+    }
+
+    private record Meters(Counter executed, Counter coalesced) {
+
+        double coalescingRatio() {
+            double total = executed.count() + coalesced.count();
+
+            return total == 0 ? 0 : coalesced.count() / total;
+        }
+    }
+}
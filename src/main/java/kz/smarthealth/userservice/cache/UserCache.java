@@ -0,0 +1,223 @@
+package kz.smarthealth.userservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import kz.smarthealth.userservice.config.UserCacheConfig;
+import kz.smarthealth.userservice.model.dto.ContactDTO;
+import kz.smarthealth.userservice.model.dto.UserDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of users by id, bounded by estimated heap size of cached users and by time to live.
+ * <p>
+ * A user is loaded at most once per key at a time: concurrent requests for the same missing user wait for the first
+ * load. Writers invalidate the user after their transaction completes, and invalidation waits for a load in progress,
+ * so a user loaded before the write can not stay in the cache. Users loaded in bulk are not cached when an
+ * invalidation happened during the load. Hits, misses and evictions are published as
+ * "cache.*" metrics with tag cache=users. When {@link CacheInvalidationBus} is enabled, invalidations are also applied
+ * on the other replicas.
+ * <p>
+ * Cached users are shared between callers and must not be modified.
+ */
+@Component
+public class UserCache {
+
+    public static final String NAME = "users";
+
+    // object headers, references, UUIDs, dates and the roles set of a user, without strings
+    private static final int USER_BASE_SIZE = 400;
+    private static final int CONTACT_BASE_SIZE = 120;
+    private static final int STRING_BASE_SIZE = 40;
+
+    private final Cache<UUID, UserDTO> cache;
+    private final List<Consumer<UUID>> invalidationListeners = new CopyOnWriteArrayList<>();
+    // incremented by every invalidation, so that a user loaded outside of the cache is not put after one
+    private final AtomicLong version = new AtomicLong();
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    public UserCache(UserCacheConfig userCacheConfig, MeterRegistry meterRegistry) {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(userCacheConfig.getMaxSizeBytes())
+                .weigher(UserCache::estimateSize)
+                .expireAfterWrite(Duration.ofSeconds(userCacheConfig.getTtlSeconds()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+    }
+
+    /**
+     * Bus is present only when invalidation between replicas is enabled
+     *
+     * @param cacheInvalidationBus bus of invalidations between replicas
+     */
+    @Autowired(required = false)
+    public void setCacheInvalidationBus(CacheInvalidationBus cacheInvalidationBus) {
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        cacheInvalidationBus.subscribe(NAME, this::evict);
+    }
+
+    /**
+     * Registers cache derived from users, which is invalidated together with this cache
+     *
+     * @param listener removes user from derived cache
+     */
+    public void addInvalidationListener(Consumer<UUID> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    /**
+     * Returns cached user, loading it when it is not cached. Exceptions of the loader are propagated and nothing is
+     * cached.
+     *
+     * @param id     user id
+     * @param loader loads user from DB
+     * @return user
+     */
+    public UserDTO get(UUID id, Function<UUID, UserDTO> loader) {
+        return cache.get(id, loader);
+    }
+
+    /**
+     * @param id user id
+     * @return cached user, null if user is not cached
+     */
+    public UserDTO getIfPresent(UUID id) {
+        return cache.getIfPresent(id);
+    }
+
+    /**
+     * Returns cached users, loading all users which are not cached with one call of the loader. Users the loader does
+     * not return are absent from the result and are not cached. Loaded users are cached only if no user was
+     * invalidated during the load, as the bulk load is not guarded by the per key lock of {@link #get(UUID, Function)}.
+     *
+     * @param ids    user ids
+     * @param loader loads users by ids from DB
+     * @return users by id, in the order of ids
+     */
+    public Map<UUID, UserDTO> getAll(Collection<UUID> ids, Function<Set<? extends UUID>, Map<UUID, UserDTO>> loader) {
+        Map<UUID, UserDTO> cached = cache.getAllPresent(ids);
+        Set<UUID> missingIds = new LinkedHashSet<>(ids);
+        missingIds.removeAll(cached.keySet());
+
+        if (missingIds.isEmpty()) {
+            return cached;
+        }
+
+        long cacheVersion = getVersion();
+        Map<UUID, UserDTO> loaded = loader.apply(missingIds);
+        Map<UUID, UserDTO> users = new LinkedHashMap<>(ids.size() * 2);
+
+        for (UUID id : ids) {
+            UserDTO user = cached.get(id);
+
+            if (user == null) {
+                user = loaded.get(id);
+
+                if (user == null) {
+                    continue;
+                }
+
+                putIfNotInvalidated(id, user, cacheVersion);
+            }
+
+            users.put(id, user);
+        }
+
+        return users;
+    }
+
+    /**
+     * Version to pass to {@link #putIfNotInvalidated(UUID, UserDTO, long)}, taken before the user is loaded
+     *
+     * @return current version of the cache
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Caches user loaded without {@link #get(UUID, Function)}, unless any user was invalidated after the version was
+     * taken, as the loaded user may then be stale
+     *
+     * @param id      user id
+     * @param user    loaded user
+     * @param version version taken by {@link #getVersion()} before the user was loaded
+     */
+    public void putIfNotInvalidated(UUID id, UserDTO user, long version) {
+        // an invalidation increments the version before it removes the user, so it either stops this put or removes
+        // the user put
+        cache.asMap().compute(id, (key, current) -> this.version.get() == version ? user : current);
+    }
+
+    /**
+     * Removes user from cache of this and other replicas. Inside a transaction user is removed once the transaction
+     * completes, so that a concurrent request can not cache the user as it was before the transaction.
+     *
+     * @param id user id
+     */
+    public void invalidate(UUID id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateNow(id);
+                }
+            });
+        } else {
+            invalidateNow(id);
+        }
+    }
+
+    private void invalidateNow(UUID id) {
+        evict(id);
+
+        if (cacheInvalidationBus != null) {
+            cacheInvalidationBus.publish(NAME, id);
+        }
+    }
+
+    private void evict(UUID id) {
+        version.incrementAndGet();
+        cache.invalidate(id);
+        invalidationListeners.forEach(listener -> listener.accept(id));
+    }
+
+    /**
+     * Estimates heap taken by user, strings being counted as UTF-16 to stay on the safe side
+     */
+    private static int estimateSize(UUID id, UserDTO user) {
+        int size = USER_BASE_SIZE + sizeOf(user.getEmail()) + sizeOf(user.getName()) + sizeOf(user.getLastName())
+                + sizeOf(user.getAbout()) + sizeOf(user.getProfilePicturePreSignedUrl());
+        ContactDTO contact = user.getContact();
+
+        if (contact != null) {
+            size += CONTACT_BASE_SIZE + sizeOf(contact.getStreet()) + sizeOf(contact.getBuildingNumber())
+                    + sizeOf(contact.getFlatNumber()) + sizeOf(contact.getPhoneNumber1())
+                    + sizeOf(contact.getPhoneNumber2());
+        }
+
+        return size;
+    }
+
+    private static int sizeOf(String value) {
+        return value == null ? 0 : STRING_BASE_SIZE + 2 * value.length();
+    }
+}
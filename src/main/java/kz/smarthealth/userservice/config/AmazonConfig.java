@@ -22,4 +22,7 @@ public class AmazonConfig {
 
     @Value("${aws.s3.profile-pictures-folder}")
     private String s3ProfilePicturesFolder;
+
+    @Value("${aws.s3.max-blocking-calls}")
+    private int s3MaxBlockingCalls;
 }
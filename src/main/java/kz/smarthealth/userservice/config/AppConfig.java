@@ -9,16 +9,18 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import kz.smarthealth.userservice.model.dto.UserDTO;
+import kz.smarthealth.userservice.model.dto.UserField;
 import kz.smarthealth.userservice.model.entity.UserEntity;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 @EnableAsync
+@EnableScheduling
 @RequiredArgsConstructor
 public class AppConfig {
 
@@ -28,6 +30,8 @@ public class AppConfig {
     public ObjectMapper objectMapper() {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.findAndRegisterModules();
+        objectMapper.addMixIn(UserDTO.class, UserField.FilterMixin.class);
+        objectMapper.setFilterProvider(UserField.defaultFilter());
 
         return objectMapper;
     }
@@ -37,11 +41,6 @@ public class AppConfig {
         return new RestTemplate();
     }
 
-    @Bean
-    public ModelMapper modelMapper() {
-        return new ModelMapper();
-    }
-
     @Bean
     public AmazonS3 s3() {
         AWSCredentials awsCredentials =
@@ -0,0 +1,22 @@
+package kz.smarthealth.userservice.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings of cache invalidation between replicas
+ */
+@Data
+@Configuration
+public class CacheInvalidationConfig {
+
+    @Value("${kafka.topic.cache-invalidation}")
+    private String topicName;
+
+    /**
+     * Max number of ids sent in one message
+     */
+    @Value("${cache.invalidation.max-batch-size}")
+    private int maxBatchSize;
+}
@@ -0,0 +1,70 @@
+package kz.smarthealth.userservice.config;
+
+import kz.smarthealth.userservice.security.JwtAlgorithm;
+import kz.smarthealth.userservice.security.JwtKeyRing;
+import kz.smarthealth.userservice.security.JwtSigner;
+import kz.smarthealth.userservice.security.JwtSigningKey;
+import kz.smarthealth.userservice.security.JwtTokenFactory;
+import kz.smarthealth.userservice.security.KeyRingJwtSigner;
+import lombok.Data;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * JWT signing settings. Tokens are signed with shared HS512 secret by default, or with RS256/EdDSA key ring, whose
+ * public keys are published in JWKS, when jwt.signing.algorithm is set to RS256 or EdDSA. Keys of the ring are read
+ * from the JWK set file of jwt.signing.keys-path, which every replica mounts from the same secret.
+ */
+@Data
+@Configuration
+public class JwtConfig {
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    @Value("${jwt.expiration}")
+    private long expirationMs;
+
+    @Value("${jwt.signing.algorithm}")
+    private String algorithm;
+
+    @Value("${jwt.signing.jwks-max-age-seconds}")
+    private long jwksMaxAgeSeconds;
+
+    @Value("${jwt.signing.keys-path}")
+    private String keysPath;
+
+    @Bean
+    @ConditionalOnExpression("!'${jwt.signing.algorithm}'.equalsIgnoreCase('HS512')")
+    public JwtKeyRing jwtKeyRing() {
+        if (keysPath == null || keysPath.isBlank()) {
+            throw new IllegalStateException("jwt.signing.keys-path must be set to sign tokens with " + algorithm);
+        }
+
+        Path path = Path.of(keysPath);
+
+        return new JwtKeyRing(JwtAlgorithm.fromValue(algorithm), () -> {
+            try {
+                return JwtSigningKey.parseJwkSet(Files.readString(path, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read JWT signing keys from " + path, e);
+            }
+        });
+    }
+
+    @Bean
+    public JwtSigner jwtSigner(ObjectProvider<JwtKeyRing> jwtKeyRing) {
+        JwtKeyRing keyRing = jwtKeyRing.getIfAvailable();
+
+        return keyRing == null ? new JwtTokenFactory(secret) : new KeyRingJwtSigner(keyRing);
+    }
+}
@@ -1,6 +1,7 @@
 package kz.smarthealth.userservice.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,10 +13,25 @@ public class KafkaTopicConfig {
     @Value("${kafka.topic.new-patients}")
     private String topicName;
 
+    @Value("${kafka.topic.cache-invalidation}")
+    private String cacheInvalidationTopicName;
+
     @Bean
     public NewTopic newPatientTopic() {
         return TopicBuilder.name(topicName)
                 .partitions(3)
                 .build();
     }
+
+    /**
+     * Every replica reads the whole topic, a single partition is enough. Invalidations are useless once cache entries
+     * have expired, so they are kept for an hour only.
+     */
+    @Bean
+    public NewTopic cacheInvalidationTopic() {
+        return TopicBuilder.name(cacheInvalidationTopicName)
+                .partitions(1)
+                .config(TopicConfig.RETENTION_MS_CONFIG, "3600000")
+                .build();
+    }
 }
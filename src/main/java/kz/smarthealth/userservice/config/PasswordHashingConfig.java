@@ -0,0 +1,40 @@
+package kz.smarthealth.userservice.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings of the dedicated executor that runs password hashing outside of request threads, and of BCrypt strength
+ */
+@Data
+@Configuration
+public class PasswordHashingConfig {
+
+    @Value("${security.password-hashing.pool-size}")
+    private int poolSize;
+
+    @Value("${security.password-hashing.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${security.password-hashing.retry-after-seconds}")
+    private long retryAfterSeconds;
+
+    /**
+     * BCrypt strength of all replicas, stored hashes of a lower strength are re-hashed on sign in
+     */
+    @Value("${security.password-hashing.bcrypt.strength}")
+    private int bcryptStrength;
+
+    /**
+     * Hashing latency the recommended strength is calibrated for, 0 to skip calibration
+     */
+    @Value("${security.password-hashing.bcrypt.target-millis}")
+    private long bcryptTargetMillis;
+
+    @Value("${security.password-hashing.bcrypt.min-strength}")
+    private int bcryptMinStrength;
+
+    @Value("${security.password-hashing.bcrypt.max-strength}")
+    private int bcryptMaxStrength;
+}
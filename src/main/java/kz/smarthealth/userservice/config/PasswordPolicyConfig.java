@@ -0,0 +1,58 @@
+package kz.smarthealth.userservice.config;
+
+import kz.smarthealth.userservice.validator.BreachedPasswordFilter;
+import kz.smarthealth.userservice.validator.PasswordPolicy;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Rules user passwords are validated against. Breached password check is enabled by pointing
+ * "breached-filter-path" to a filter file built by
+ * {@link kz.smarthealth.userservice.validator.BreachedPasswordFilterBuilder}.
+ */
+@Data
+@Configuration
+public class PasswordPolicyConfig {
+
+    @Value("${validation.password.min-length}")
+    private int minLength;
+
+    @Value("${validation.password.max-length}")
+    private int maxLength;
+
+    @Value("${validation.password.min-uppercase}")
+    private int minUpperCase;
+
+    @Value("${validation.password.min-lowercase}")
+    private int minLowerCase;
+
+    @Value("${validation.password.min-digits}")
+    private int minDigits;
+
+    @Value("${validation.password.min-special}")
+    private int minSpecial;
+
+    @Value("${validation.password.whitespace-allowed}")
+    private boolean whitespaceAllowed;
+
+    @Value("${validation.password.breached-filter-path}")
+    private String breachedFilterPath;
+
+    @Bean
+    public PasswordPolicy passwordPolicy() {
+        return new PasswordPolicy(minLength, maxLength, minUpperCase, minLowerCase, minDigits, minSpecial,
+                whitespaceAllowed);
+    }
+
+    @Bean
+    @ConditionalOnExpression("!'${validation.password.breached-filter-path}'.isEmpty()")
+    public BreachedPasswordFilter breachedPasswordFilter() throws IOException {
+        return BreachedPasswordFilter.open(Path.of(breachedFilterPath));
+    }
+}
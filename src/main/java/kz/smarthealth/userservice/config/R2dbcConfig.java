@@ -0,0 +1,25 @@
+package kz.smarthealth.userservice.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings of the R2DBC connection pool used by non-blocking reads of API v2
+ */
+@Data
+@Configuration
+public class R2dbcConfig {
+
+    @Value("${database.r2dbc.url}")
+    private String url;
+
+    @Value("${database.r2dbc.username}")
+    private String username;
+
+    @Value("${database.r2dbc.password}")
+    private String password;
+
+    @Value("${database.r2dbc.pool.max-size}")
+    private int poolMaxSize;
+}
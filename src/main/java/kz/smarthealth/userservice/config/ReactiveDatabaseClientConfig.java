@@ -0,0 +1,41 @@
+package kz.smarthealth.userservice.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Database client of non-blocking reads. The connection pool is not exposed as a bean on purpose: Spring Boot backs
+ * off its JDBC data source once a bean of R2DBC connection factory exists, and JPA needs that data source.
+ */
+@Configuration
+public class ReactiveDatabaseClientConfig implements DisposableBean {
+
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public DatabaseClient databaseClient(R2dbcConfig r2dbcConfig) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(r2dbcConfig.getUrl()).mutate()
+                .option(ConnectionFactoryOptions.USER, r2dbcConfig.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, r2dbcConfig.getPassword())
+                .build();
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("r2dbc")
+                .maxSize(r2dbcConfig.getPoolMaxSize())
+                .build());
+
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Override
+    public void destroy() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package kz.smarthealth.userservice.config;
+
+import kz.smarthealth.userservice.datasource.ReplicaRoutingDataSource;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Settings of routing of read-only transactions to database replicas
+ */
+@Data
+@Configuration
+public class ReadReplicaConfig {
+
+    /**
+     * JDBC urls of replicas, connected with the credentials of the primary
+     */
+    @Value("${database.replicas.urls}")
+    private List<String> urls;
+
+    @Value("${database.replicas.selection}")
+    private ReplicaRoutingDataSource.Selection selection;
+
+    /**
+     * Query returning replication lag of the replica it runs on, in milliseconds
+     */
+    @Value("${database.replicas.lag-query}")
+    private String lagQuery;
+
+    /**
+     * Replica lagging more than this is not read from until it catches up
+     */
+    @Value("${database.replicas.max-lag-millis}")
+    private long maxLagMillis;
+
+    @Value("${database.replicas.lag-check-interval-ms}")
+    private long lagCheckIntervalMillis;
+
+    /**
+     * Time after a write to a user during which reads of that user, and reads of the user who wrote, go to primary
+     */
+    @Value("${database.replicas.read-your-writes.window-millis}")
+    private long readYourWritesWindowMillis;
+
+    /**
+     * Max number of recently written users remembered
+     */
+    @Value("${database.replicas.read-your-writes.max-users}")
+    private int readYourWritesMaxUsers;
+}
@@ -1,7 +1,13 @@
 package kz.smarthealth.userservice.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import kz.smarthealth.userservice.security.AuthEntryPointJwt;
 import kz.smarthealth.userservice.security.AuthenticationFilter;
+import kz.smarthealth.userservice.security.BCryptCalibration;
+import kz.smarthealth.userservice.security.BoundedPasswordEncoder;
+import kz.smarthealth.userservice.security.JwtTokenVerifier;
+import kz.smarthealth.userservice.security.StrengthAwareBCryptPasswordEncoder;
 import kz.smarthealth.userservice.security.UserDetailsServiceImpl;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
@@ -13,7 +19,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -26,10 +31,37 @@ public class SecurityConfig {
 
     private final UserDetailsServiceImpl userDetailsService;
     private final AuthEntryPointJwt unauthorizedHandler;
+    private final JwtTokenVerifier jwtTokenVerifier;
+    private final PasswordHashingConfig passwordHashingConfig;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Strength recommended for this instance, only reported. Passwords are hashed with the configured strength, the
+     * same on every replica, so that replicas on different hardware do not re-hash each other's hashes.
+     */
+    @Bean
+    public BCryptCalibration bCryptCalibration() {
+        BCryptCalibration calibration = passwordHashingConfig.getBcryptTargetMillis() > 0
+                ? BCryptCalibration.calibrate(passwordHashingConfig.getBcryptTargetMillis(),
+                passwordHashingConfig.getBcryptMinStrength(), passwordHashingConfig.getBcryptMaxStrength())
+                : BCryptCalibration.fixed(passwordHashingConfig.getBcryptStrength());
+        Gauge.builder("password.hashing.bcrypt.strength", passwordHashingConfig,
+                        PasswordHashingConfig::getBcryptStrength)
+                .description("BCrypt strength used to hash passwords")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.bcrypt.recommended-strength", calibration, BCryptCalibration::strength)
+                .description("BCrypt strength which fits into target latency on this instance")
+                .register(meterRegistry);
+
+        return calibration;
+    }
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BoundedPasswordEncoder(new StrengthAwareBCryptPasswordEncoder(
+                passwordHashingConfig.getBcryptStrength()),
+                passwordHashingConfig.getPoolSize(), passwordHashingConfig.getQueueCapacity(),
+                passwordHashingConfig.getRetryAfterSeconds(), meterRegistry);
     }
 
     @Bean
@@ -54,7 +86,7 @@ public class SecurityConfig {
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
                 .authorizeHttpRequests()
                 .anyRequest().permitAll();
-        http.addFilterBefore(new AuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+        http.addFilterBefore(new AuthenticationFilter(jwtTokenVerifier), UsernamePasswordAuthenticationFilter.class);
         http.authenticationProvider(authenticationProvider());
 
         return http.build();
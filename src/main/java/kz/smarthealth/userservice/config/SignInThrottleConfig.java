@@ -0,0 +1,29 @@
+package kz.smarthealth.userservice.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings of sign in throttling. Each email and each client IP may make "capacity" attempts in a burst, after
+ * which attempts are refilled evenly over "refill-period-seconds".
+ */
+@Data
+@Configuration
+public class SignInThrottleConfig {
+
+    @Value("${security.sign-in-throttle.slots}")
+    private int slots;
+
+    @Value("${security.sign-in-throttle.email.capacity}")
+    private int emailCapacity;
+
+    @Value("${security.sign-in-throttle.email.refill-period-seconds}")
+    private long emailRefillPeriodSeconds;
+
+    @Value("${security.sign-in-throttle.ip.capacity}")
+    private int ipCapacity;
+
+    @Value("${security.sign-in-throttle.ip.refill-period-seconds}")
+    private long ipRefillPeriodSeconds;
+}
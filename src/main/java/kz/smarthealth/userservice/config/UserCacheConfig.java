@@ -0,0 +1,22 @@
+package kz.smarthealth.userservice.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings of the cache of users read by id
+ */
+@Data
+@Configuration
+public class UserCacheConfig {
+
+    /**
+     * Estimated heap taken by cached users, after which least valuable users are evicted
+     */
+    @Value("${cache.users.max-size-bytes}")
+    private long maxSizeBytes;
+
+    @Value("${cache.users.ttl-seconds}")
+    private long ttlSeconds;
+}
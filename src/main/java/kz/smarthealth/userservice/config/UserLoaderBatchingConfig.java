@@ -0,0 +1,31 @@
+package kz.smarthealth.userservice.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings of batching of user loads on cache misses
+ */
+@Data
+@Configuration
+public class UserLoaderBatchingConfig {
+
+    /**
+     * Max number of ids resolved by one query, a full batch is sent without waiting
+     */
+    @Value("${cache.users.batching.max-batch-size}")
+    private int maxBatchSize;
+
+    /**
+     * Max time the first id of a batch waits for other ids
+     */
+    @Value("${cache.users.batching.max-delay-micros}")
+    private long maxDelayMicros;
+
+    /**
+     * Max number of batch queries run at once
+     */
+    @Value("${cache.users.batching.concurrency}")
+    private int concurrency;
+}
@@ -0,0 +1,28 @@
+package kz.smarthealth.userservice.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings of the off-heap cache of serialized user responses
+ */
+@Data
+@Configuration
+public class UserResponseCacheConfig {
+
+    /**
+     * Off-heap memory allocated for the cache, divided into slots of "slot-size-bytes"
+     */
+    @Value("${cache.user-responses.max-size-bytes}")
+    private long maxSizeBytes;
+
+    /**
+     * Room for plain and gzipped JSON of one user, larger responses are not cached
+     */
+    @Value("${cache.user-responses.slot-size-bytes}")
+    private int slotSizeBytes;
+
+    @Value("${cache.users.ttl-seconds}")
+    private long ttlSeconds;
+}
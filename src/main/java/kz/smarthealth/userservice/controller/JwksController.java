@@ -0,0 +1,45 @@
+package kz.smarthealth.userservice.controller;
+
+import kz.smarthealth.userservice.config.JwtConfig;
+import kz.smarthealth.userservice.security.JwtKeyRing;
+import kz.smarthealth.userservice.security.JwtSigningKey;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes public keys used to sign tokens, so other services can verify tokens locally
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private static final String JWK_SET_CONTENT_TYPE = "application/jwk-set+json";
+
+    private final ObjectProvider<JwtKeyRing> jwtKeyRing;
+    private final JwtConfig jwtConfig;
+
+    /**
+     * Returns JWK set of published signing keys. The set is empty when tokens are signed with shared secret.
+     *
+     * @return JWK set
+     */
+    @GetMapping(value = "/.well-known/jwks.json", produces = {JWK_SET_CONTENT_TYPE, "application/json"})
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        JwtKeyRing keyRing = jwtKeyRing.getIfAvailable();
+        List<Map<String, Object>> keys = keyRing == null ? List.of() : keyRing.getPublishedKeys().stream()
+                .map(JwtSigningKey::getJwk)
+                .toList();
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(jwtConfig.getJwksMaxAgeSeconds(), TimeUnit.SECONDS).cachePublic())
+                .body(Map.of("keys", keys));
+    }
+}
@@ -0,0 +1,107 @@
+package kz.smarthealth.userservice.controller;
+
+import jakarta.validation.Valid;
+import kz.smarthealth.userservice.model.dto.UserBatchRequestDTO;
+import kz.smarthealth.userservice.model.dto.UserBatchResponseDTO;
+import kz.smarthealth.userservice.model.dto.UserDTO;
+import kz.smarthealth.userservice.security.UserAccessEvaluator;
+import kz.smarthealth.userservice.service.ReactiveUserService;
+import kz.smarthealth.userservice.util.AppConstants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+
+/**
+ * Non-blocking REST API to read user data. Handlers return as soon as the query is sent, the request thread goes back
+ * to the pool and the response is written once the result arrives. Access rules are the same as of API v1, checked
+ * before the handler is called.
+ */
+@Slf4j
+@RestController
+@RequestMapping(value = "/api/v2/users", produces = AppConstants.JSON_UTF_8)
+@RequiredArgsConstructor
+public class ReactiveUserController {
+
+    private final ReactiveUserService reactiveUserService;
+    private final UserAccessEvaluator userAccess;
+
+    /**
+     * Retrieves user by id
+     *
+     * @param id of user
+     * @return user information
+     */
+    @PreAuthorize("@userAccess.canRead(authentication, #id)")
+    @GetMapping("/{id}")
+    public Mono<UserDTO> getUserById(@PathVariable UUID id) {
+        log.info("Incoming request to get user, id={}", id);
+
+        return reactiveUserService.getUserById(id);
+    }
+
+    /**
+     * Retrieves users by ids with one query for users which are not cached. Ids of users which do not exist or may
+     * not be read are reported instead of failing the whole request, users are in the order of requested ids.
+     *
+     * @param userBatchRequestDTO ids of users
+     * @param authentication      current authentication
+     * @return found users, ids not found and ids forbidden
+     */
+    @PreAuthorize("authenticated")
+    @PostMapping("/batch")
+    public Mono<UserBatchResponseDTO> getUsersByIds(@RequestBody @Valid UserBatchRequestDTO userBatchRequestDTO,
+                                                    Authentication authentication) {
+        Set<UUID> ids = new LinkedHashSet<>(userBatchRequestDTO.getIds());
+        log.info("Incoming request to get users, count={}", ids.size());
+        List<UUID> allowed = new ArrayList<>(ids.size());
+        List<UUID> forbidden = new ArrayList<>();
+
+        for (UUID id : ids) {
+            if (userAccess.canRead(authentication, id)) {
+                allowed.add(id);
+            } else {
+                forbidden.add(id);
+            }
+        }
+
+        Mono<Map<UUID, UserDTO>> users = allowed.isEmpty()
+                ? Mono.just(Map.of())
+                : reactiveUserService.getUsersByIds(allowed);
+
+        return users.map(found -> {
+            List<UserDTO> ordered = new ArrayList<>(found.size());
+            List<UUID> notFound = new ArrayList<>();
+
+            for (UUID id : allowed) {
+                UserDTO userDTO = found.get(id);
+
+                if (userDTO == null) {
+                    notFound.add(id);
+                } else {
+                    ordered.add(userDTO);
+                }
+            }
+
+            return new UserBatchResponseDTO(ordered, notFound, forbidden);
+        });
+    }
+
+    /**
+     * Generates AWS S3 pre-signed url for user profile picture
+     *
+     * @param id user id
+     * @return pre-signed url
+     */
+    @PreAuthorize("@userAccess.canRead(authentication, #id)")
+    @GetMapping("/{id}/profile-picture")
+    public Mono<String> getProfilePicturePreSignedUrl(@PathVariable UUID id) {
+        log.info("Incoming request to get profile picture, id={}", id);
+
+        return reactiveUserService.getProfilePicturePreSignedUrl(id);
+    }
+}
@@ -1,20 +1,43 @@
 package kz.smarthealth.userservice.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import kz.smarthealth.userservice.aop.Log;
+import kz.smarthealth.userservice.cache.OffHeapUserResponseCache;
+import kz.smarthealth.userservice.model.dto.RefreshTokenDTO;
 import kz.smarthealth.userservice.model.dto.SignInDTO;
 import kz.smarthealth.userservice.model.dto.SignInResponseDTO;
+import kz.smarthealth.userservice.model.dto.TokenResponseDTO;
+import kz.smarthealth.userservice.model.dto.UserBatchRequestDTO;
+import kz.smarthealth.userservice.model.dto.UserBatchResponseDTO;
 import kz.smarthealth.userservice.model.dto.UserDTO;
+import kz.smarthealth.userservice.model.dto.UserField;
+import kz.smarthealth.userservice.security.UserAccessEvaluator;
+import kz.smarthealth.userservice.service.RefreshTokenService;
 import kz.smarthealth.userservice.service.UserService;
 import kz.smarthealth.userservice.util.AppConstants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.UUID;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * REST API to manipulate user data
@@ -27,7 +50,15 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class UserController {
 
+    private static final String GZIP = "gzip";
+    // pre-signed url expires in an hour, so a url issued within a window is valid for at least the rest of the window
+    private static final long PROFILE_PICTURE_ETAG_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
     private final UserService userService;
+    private final RefreshTokenService refreshTokenService;
+    private final ObjectProvider<OffHeapUserResponseCache> userResponseCache;
+    private final ObjectMapper objectMapper;
+    private final UserAccessEvaluator userAccess;
 
     /**
      * Registers new user
@@ -46,26 +77,224 @@ public class UserController {
      * Authenticates user.
      *
      * @param signInDTO user sign in information
+     * @param request   incoming request, used to identify client IP
      * @return access token and refresh token
      */
     @PostMapping("/sign-in")
-    public SignInResponseDTO singIn(@RequestBody @Valid SignInDTO signInDTO) {
+    public SignInResponseDTO singIn(@RequestBody @Valid SignInDTO signInDTO, HttpServletRequest request) {
         log.info("Incoming request to sign in, email={}", signInDTO.getEmail());
-        return userService.signIn(signInDTO);
+        return userService.signIn(signInDTO, request.getRemoteAddr());
     }
 
     /**
-     * Retrieves user by id
+     * Issues new access token and rotates refresh token
      *
-     * @param id of user
-     * @return user information
+     * @param refreshTokenDTO current refresh token
+     * @return new access token and refresh token
+     */
+    @PostMapping("/token/refresh")
+    public TokenResponseDTO refreshToken(@RequestBody @Valid RefreshTokenDTO refreshTokenDTO) {
+        return refreshTokenService.refresh(refreshTokenDTO.getRefreshToken());
+    }
+
+    /**
+     * Retrieves user by id. When off-heap response cache is enabled, cached JSON, gzipped if client accepts it, is
+     * written to the response as it is. When fields are given, only they are queried and serialized, bypassing the
+     * response cache.
+     * <p>
+     * Responses carry a strong ETag of user id and version, and of fields or content coding when they differ from
+     * the full plain JSON. A request with a matching If-None-Match is answered with 304 after reading only the
+     * version of the user.
+     *
+     * @param id             of user
+     * @param fields         comma separated fields to return, all fields if not given
+     * @param acceptEncoding content codings accepted by client
+     * @param ifNoneMatch    ETags of responses client has
+     * @param response       response user JSON is written to
      */
     @Log
-    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_DOCTOR', 'ROLE_ORGANIZATION') " +
-            "or (authenticated and authentication.principal.username == #id.toString())")
+    @PreAuthorize("@userAccess.canRead(authentication, #id)")
     @GetMapping("/{id}")
-    public UserDTO getUserById(@PathVariable UUID id) {
-        return userService.getUserById(id);
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = UserDTO.class)))
+    @ApiResponse(responseCode = "304", description = "User has not changed since the ETag was issued")
+    public void getUserById(@PathVariable UUID id,
+                            @RequestParam(required = false) String fields,
+                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                            HttpServletResponse response) throws IOException {
+        log.info("Incoming request to get user, id={}, fields={}", id, fields);
+        Set<UserField> userFields = fields == null || fields.isBlank() ? null : UserField.parse(fields);
+        OffHeapUserResponseCache responseCache = userFields == null ? userResponseCache.getIfAvailable() : null;
+        boolean gzip = responseCache != null && acceptsGzip(acceptEncoding);
+        String variant = userFields == null ? null : "f" + Integer.toHexString(UserField.toMask(userFields));
+
+        if (responseCache != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        if (ifNoneMatch != null) {
+            long version = userService.getUserVersion(id);
+            // a cached gzipped response and a plain one loaded on a miss are equally up to date
+            String eTag = findMatchingETag(ifNoneMatch, eTag(id, version, variant),
+                    gzip ? eTag(id, version, GZIP) : null);
+
+            if (eTag != null) {
+                response.setHeader(HttpHeaders.ETAG, eTag);
+                response.setStatus(HttpStatus.NOT_MODIFIED.value());
+                return;
+            }
+        }
+
+        if (userFields != null) {
+            UserDTO userDTO = userService.getUserById(id, userFields);
+            response.setHeader(HttpHeaders.ETAG, eTag(id, userDTO.getVersion(), variant));
+            writeJson(response, ByteBuffer.wrap(objectMapper.writer(UserField.filterOf(userFields))
+                    .writeValueAsBytes(userDTO)));
+            return;
+        }
+
+        OffHeapUserResponseCache.Response cached = responseCache == null ? null : responseCache.get(id, gzip);
+
+        if (cached == null) {
+            long cacheVersion = responseCache == null ? 0 : responseCache.getVersion();
+            UserDTO userDTO = userService.getUserById(id);
+            byte[] json = objectMapper.writeValueAsBytes(userDTO);
+
+            if (responseCache != null) {
+                responseCache.put(id, cacheVersion, userDTO.getVersion(), json);
+            }
+
+            response.setHeader(HttpHeaders.ETAG, eTag(id, userDTO.getVersion(), null));
+            writeJson(response, ByteBuffer.wrap(json));
+            return;
+        }
+
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+
+        response.setHeader(HttpHeaders.ETAG, eTag(id, cached.userVersion(), gzip ? GZIP : null));
+        writeJson(response, cached.json());
+    }
+
+    /**
+     * @param variant distinguishes responses of the same user version, null for the full plain JSON
+     * @return strong ETag
+     */
+    private static String eTag(UUID id, long version, String variant) {
+        return variant == null ? "\"" + id + "-" + version + "\"" : "\"" + id + "-" + version + "-" + variant + "\"";
+    }
+
+    /**
+     * Compares ETags of If-None-Match to the current ones, weak ETags matching by their opaque tag as required for
+     * If-None-Match
+     *
+     * @return matching current ETag, null if none matches
+     */
+    private static String findMatchingETag(String ifNoneMatch, String eTag, String alternativeETag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+
+            if (tag.equals("*")) {
+                return eTag;
+            }
+
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+
+            if (tag.equals(eTag) || tag.equals(alternativeETag)) {
+                return tag;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Retrieves users by ids with one query for users which are not cached. Access is checked per id by the same rule
+     * as of a single user, ids of users which do not exist or may not be read are reported instead of failing the
+     * whole request. Users are streamed to the response in the order of requested ids.
+     *
+     * @param userBatchRequestDTO ids of users
+     * @param authentication      current authentication
+     * @param response            response users JSON is written to
+     */
+    @PreAuthorize("authenticated")
+    @PostMapping("/batch")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = UserBatchResponseDTO.class)))
+    public void getUsersByIds(@RequestBody @Valid UserBatchRequestDTO userBatchRequestDTO,
+                              Authentication authentication, HttpServletResponse response) throws IOException {
+        Set<UUID> ids = new LinkedHashSet<>(userBatchRequestDTO.getIds());
+        log.info("Incoming request to get users, count={}", ids.size());
+        List<UUID> allowed = new ArrayList<>(ids.size());
+        List<UUID> forbidden = new ArrayList<>();
+
+        for (UUID id : ids) {
+            if (userAccess.canRead(authentication, id)) {
+                allowed.add(id);
+            } else {
+                forbidden.add(id);
+            }
+        }
+
+        Map<UUID, UserDTO> users = allowed.isEmpty() ? Map.of() : userService.getUsersByIds(allowed);
+        List<UUID> notFound = new ArrayList<>();
+        response.setContentType(AppConstants.JSON_UTF_8);
+        ObjectWriter userWriter = objectMapper.writerFor(UserDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("users");
+
+            for (UUID id : allowed) {
+                UserDTO userDTO = users.get(id);
+
+                if (userDTO == null) {
+                    notFound.add(id);
+                } else {
+                    userWriter.writeValue(generator, userDTO);
+                }
+            }
+
+            generator.writeEndArray();
+            writeIds(generator, "notFound", notFound);
+            writeIds(generator, "forbidden", forbidden);
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeIds(JsonGenerator generator, String fieldName, List<UUID> ids) throws IOException {
+        generator.writeArrayFieldStart(fieldName);
+
+        for (UUID id : ids) {
+            generator.writeString(id.toString());
+        }
+
+        generator.writeEndArray();
+    }
+
+    private static void writeJson(HttpServletResponse response, ByteBuffer json) throws IOException {
+        response.setContentType(AppConstants.JSON_UTF_8);
+        response.setContentLength(json.remaining());
+        response.getOutputStream().write(json.array(), json.arrayOffset() + json.position(), json.remaining());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+
+            if (parameters[0].trim().equalsIgnoreCase(GZIP)) {
+                return parameters.length == 1 || !parameters[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+
+        return false;
     }
 
     /**
@@ -75,7 +304,7 @@ public class UserController {
      * @param file image file
      */
     @Log
-    @PreAuthorize("authenticated and authentication.principal.username == #id.toString()")
+    @PreAuthorize("@userAccess.isSelf(authentication, #id)")
     @PostMapping("/{id}/profile-picture")
     public String uploadProfilePicture(@PathVariable UUID id, @RequestParam("file") MultipartFile file) {
         userService.uploadProfilePicture(id, file);
@@ -84,16 +313,32 @@ public class UserController {
     }
 
     /**
-     * Generates AWS S3 pre-signed url for user profile picture
+     * Generates AWS S3 pre-signed url for user profile picture. ETag of the url changes with the version of user and
+     * every half an hour, so that a client revalidating its url is never left with an expired one.
      *
-     * @param id user id
-     * @return pre-signed url
+     * @param id          user id
+     * @param ifNoneMatch ETags of urls client has
+     * @param response    response the ETag is set to
+     * @return pre-signed url, null when not modified
      */
     @Log
-    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_DOCTOR', 'ROLE_ORGANIZATION') " +
-            "or (authenticated and authentication.principal.username == #id.toString())")
+    @PreAuthorize("@userAccess.canRead(authentication, #id)")
     @GetMapping("/{id}/profile-picture")
-    public String getProfilePicturePreSignedUrl(@PathVariable UUID id) {
+    public String getProfilePicturePreSignedUrl(@PathVariable UUID id,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                String ifNoneMatch,
+                                                HttpServletResponse response) {
+        log.info("Incoming request to get profile picture, id={}", id);
+        // version is read before the url, so the ETag can only be older than the url, never newer
+        String eTag = eTag(id, userService.getUserVersion(id),
+                "p" + System.currentTimeMillis() / PROFILE_PICTURE_ETAG_WINDOW_MILLIS);
+        response.setHeader(HttpHeaders.ETAG, eTag);
+
+        if (ifNoneMatch != null && findMatchingETag(ifNoneMatch, eTag, null) != null) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return null;
+        }
+
         return userService.getProfilePicturePreSignedUrl(id);
     }
 }
@@ -0,0 +1,103 @@
+package kz.smarthealth.userservice.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import kz.smarthealth.userservice.cache.UserCache;
+import kz.smarthealth.userservice.config.ReadReplicaConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Keeps reads consistent with recent writes while replicas lag behind the primary.
+ * <p>
+ * Every user invalidated in {@link UserCache}, on this or, over the invalidation bus, on another replica of the
+ * service, is remembered for "read-your-writes.window-millis". Within that window the user who was written reads
+ * everything from primary, and reads of that user by anyone else go to primary as well, so that a stale copy from a
+ * replica does not get into the cache. Code which must never read stale data, like verification of credentials, reads
+ * from primary explicitly.
+ */
+@Component
+@ConditionalOnProperty(name = "database.replicas.enabled", havingValue = "true")
+public class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+    // ids as strings, the way they are held by principals
+    private final Cache<String, Boolean> recentWrites;
+
+    @Autowired
+    public ReadYourWrites(ReadReplicaConfig readReplicaConfig, UserCache userCache) {
+        this(readReplicaConfig, Ticker.systemTicker());
+        userCache.addInvalidationListener(this::recordWrite);
+    }
+
+    ReadYourWrites(ReadReplicaConfig readReplicaConfig, Ticker ticker) {
+        recentWrites = Caffeine.newBuilder()
+                .maximumSize(readReplicaConfig.getReadYourWritesMaxUsers())
+                .expireAfterWrite(Duration.ofMillis(readReplicaConfig.getReadYourWritesWindowMillis()))
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Starts read-your-writes window of the user
+     *
+     * @param id id of written user
+     */
+    public void recordWrite(UUID id) {
+        recentWrites.put(id.toString(), Boolean.TRUE);
+    }
+
+    /**
+     * Used by {@link ReplicaRoutingDataSource} for every read-only transaction
+     *
+     * @return whether reads are pinned to primary, or the authenticated user was written recently
+     */
+    public boolean isPrimaryRequired() {
+        if (PRIMARY_READS.get() != null) {
+            return true;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        return authentication != null && authentication.getPrincipal() instanceof UserDetails userDetails
+                && recentWrites.getIfPresent(userDetails.getUsername()) != null;
+    }
+
+    /**
+     * @param id id of user to read
+     * @return whether reads of the user have to go to primary
+     */
+    public boolean isPrimaryRequired(UUID id) {
+        return isPrimaryRequired() || recentWrites.getIfPresent(id.toString()) != null;
+    }
+
+    /**
+     * Runs reads on the calling thread against primary
+     *
+     * @param read reads data
+     * @return result of read
+     */
+    public <T> T readFromPrimary(Supplier<T> read) {
+        if (PRIMARY_READS.get() != null) {
+            return read.get();
+        }
+
+        PRIMARY_READS.set(Boolean.TRUE);
+
+        try {
+            return read.get();
+        } finally {
+            PRIMARY_READS.remove();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package kz.smarthealth.userservice.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import kz.smarthealth.userservice.config.ReadReplicaConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Routes connections of read-only transactions to replicas, and all other connections to the primary.
+ * <p>
+ * Whether a transaction is read-only is known only once it has begun, so this data source must be wrapped into a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which obtains the connection at the first
+ * statement. A replica is chosen round-robin or by the least number of active connections in its pool.
+ * <p>
+ * Replicas are read from only while their lag, as returned by "lag-query", is within "max-lag-millis". Lag is checked
+ * on start and then every "lag-check-interval-ms" on a thread of its own, as a replica which is down may hold the
+ * check for the whole connection timeout. While no replica is available every transaction goes to the primary. The
+ * primary is used as well when the primary-required check says so, see {@link ReadYourWrites}. Read-only connections
+ * are counted as "database.read-only.connections" with tag target=replica or primary.
+ * <p>
+ * Pools of replicas are owned by this data source and closed with it.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    public enum Selection {
+        ROUND_ROBIN, LEAST_CONNECTIONS
+    }
+
+    private static final String METRIC_NAME = "database.read-only.connections";
+
+    private final List<HikariDataSource> replicas;
+    private final Selection selection;
+    private final String lagQuery;
+    private final long maxLagMillis;
+    private final long lagCheckIntervalMillis;
+    private final BooleanSupplier primaryRequired;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService lagChecker;
+    // indexes of replicas within max lag
+    private volatile int[] availableReplicas = new int[0];
+
+    private final Counter replicaCounter;
+    private final Counter primaryCounter;
+
+    /**
+     * @param primary         data source of the primary, used for everything but read-only transactions
+     * @param replicas        pools of replicas
+     * @param config          replica settings
+     * @param primaryRequired tells whether the current read-only transaction has to read from primary
+     * @param meterRegistry   registry of routing metrics
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas, ReadReplicaConfig config,
+                                    BooleanSupplier primaryRequired, MeterRegistry meterRegistry) {
+        this.replicas = List.copyOf(replicas);
+        this.selection = config.getSelection();
+        this.lagQuery = config.getLagQuery();
+        this.maxLagMillis = config.getMaxLagMillis();
+        this.lagCheckIntervalMillis = config.getLagCheckIntervalMillis();
+        this.primaryRequired = primaryRequired;
+
+        Map<Object, Object> targetDataSources = new HashMap<>();
+
+        for (int i = 0; i < this.replicas.size(); i++) {
+            targetDataSources.put(i, this.replicas.get(i));
+        }
+
+        setTargetDataSources(targetDataSources);
+        // lookup key null stands for the primary
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+
+        replicaCounter = Counter.builder(METRIC_NAME).tag("target", "replica").register(meterRegistry);
+        primaryCounter = Counter.builder(METRIC_NAME).tag("target", "primary").register(meterRegistry);
+        Gauge.builder("database.replicas.available", this, dataSource -> dataSource.availableReplicas.length)
+                .description("Number of replicas within max lag")
+                .register(meterRegistry);
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("replica-lag-check-");
+        threadFactory.setDaemon(true);
+        lagChecker = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        checkReplicaLag();
+        lagChecker.scheduleWithFixedDelay(this::checkReplicaLag, lagCheckIntervalMillis, lagCheckIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        lagChecker.shutdownNow();
+        replicas.forEach(HikariDataSource::close);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+
+        int[] available = availableReplicas;
+
+        if (available.length == 0 || primaryRequired.getAsBoolean()) {
+            primaryCounter.increment();
+            return null;
+        }
+
+        replicaCounter.increment();
+        int start = Math.floorMod(next.getAndIncrement(), available.length);
+
+        return selection == Selection.ROUND_ROBIN ? available[start] : leastConnected(available, start);
+    }
+
+    /**
+     * Finds replica with the least active connections, starting from a rotating index so that ties are spread
+     */
+    private int leastConnected(int[] available, int start) {
+        int replica = available[start];
+        int leastConnections = Integer.MAX_VALUE;
+
+        for (int i = 0; i < available.length; i++) {
+            int candidate = available[(start + i) % available.length];
+            HikariPoolMXBean pool = replicas.get(candidate).getHikariPoolMXBean();
+            int connections = pool == null ? 0 : pool.getActiveConnections();
+
+            if (connections < leastConnections) {
+                leastConnections = connections;
+                replica = candidate;
+            }
+        }
+
+        return replica;
+    }
+
+    /**
+     * Measures lag of every replica, and reads only from replicas within max lag until the next check
+     */
+    public void checkReplicaLag() {
+        int[] previous = availableReplicas;
+        int[] available = new int[replicas.size()];
+        int count = 0;
+
+        for (int i = 0; i < replicas.size(); i++) {
+            long lagMillis = measureLagMillis(replicas.get(i));
+
+            if (lagMillis >= 0 && lagMillis <= maxLagMillis) {
+                available[count++] = i;
+            } else if (Arrays.binarySearch(previous, i) >= 0) {
+                log.warn("Replica {} is not read from, lagMillis={}", replicas.get(i).getPoolName(), lagMillis);
+            }
+        }
+
+        availableReplicas = Arrays.copyOf(available, count);
+    }
+
+    /**
+     * @return lag in milliseconds, -1 if replica is not reachable
+     */
+    private long measureLagMillis(HikariDataSource replica) {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            resultSet.next();
+
+            return resultSet.getLong(1);
+        } catch (SQLException | RuntimeException e) {
+            log.debug("Replica lag check failed, pool={}", replica.getPoolName(), e);
+
+            return -1;
+        }
+    }
+}
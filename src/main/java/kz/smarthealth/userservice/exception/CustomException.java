@@ -15,4 +15,6 @@ public class CustomException extends RuntimeException {
     private final String error;
 
     private final String errorMessage;
+
+    private final Long retryAfterSeconds;
 }
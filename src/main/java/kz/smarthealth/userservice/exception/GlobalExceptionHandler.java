@@ -2,7 +2,9 @@ package kz.smarthealth.userservice.exception;
 
 import kz.smarthealth.userservice.model.dto.ErrorResponseDTO;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -16,6 +18,7 @@ import java.time.OffsetDateTime;
 import java.util.Map;
 
 import static java.util.stream.Collectors.toMap;
+import static kz.smarthealth.userservice.util.MessageSource.USER_MODIFIED_CONCURRENTLY;
 
 @ControllerAdvice
 public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
@@ -44,7 +47,23 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
                 .code(ex.getHttpStatus().value())
                 .message(ex.getErrorMessage())
                 .build();
+        HttpHeaders headers = new HttpHeaders();
 
-        return new ResponseEntity<>(errorResponseDTO, ex.getHttpStatus());
+        if (ex.getRetryAfterSeconds() != null) {
+            headers.set(HttpHeaders.RETRY_AFTER, ex.getRetryAfterSeconds().toString());
+        }
+
+        return new ResponseEntity<>(errorResponseDTO, headers, ex.getHttpStatus());
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponseDTO> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        ErrorResponseDTO errorResponseDTO = ErrorResponseDTO.builder()
+                .dateTime(OffsetDateTime.now())
+                .code(HttpStatus.CONFLICT.value())
+                .message(USER_MODIFIED_CONCURRENTLY.getText())
+                .build();
+
+        return new ResponseEntity<>(errorResponseDTO, HttpStatus.CONFLICT);
     }
 }
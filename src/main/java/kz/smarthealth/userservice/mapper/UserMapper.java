@@ -0,0 +1,54 @@
+package kz.smarthealth.userservice.mapper;
+
+import kz.smarthealth.userservice.model.dto.ContactDTO;
+import kz.smarthealth.userservice.model.dto.UserDTO;
+import kz.smarthealth.userservice.model.dto.UserRole;
+import kz.smarthealth.userservice.model.entity.ContactEntity;
+import kz.smarthealth.userservice.model.entity.UserEntity;
+import org.mapstruct.Builder;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Maps users and contacts between DTOs and entities. Implementation is generated at compile time as plain getter and
+ * setter calls, and a property left unmapped fails the build.
+ */
+// setters rather than Lombok builders, which do not cover createdAt of BaseDTO
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.ERROR,
+        builder = @Builder(disableBuilder = true))
+public interface UserMapper {
+
+    /**
+     * Maps user to a new entity. Password is to be encoded by the caller.
+     *
+     * @param userDTO user data
+     * @return user entity with contact, not linked to the user yet
+     */
+    @Mapping(target = "password", ignore = true)
+    @Mapping(target = "profilePictureFileName", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    UserEntity toUserEntity(UserDTO userDTO);
+
+    @Mapping(target = "user", ignore = true)
+    ContactEntity toContactEntity(ContactDTO contactDTO);
+
+    /**
+     * Maps user entity to user returned to clients, without password
+     *
+     * @param userEntity user entity
+     * @return user with contact and roles
+     */
+    @Mapping(target = "password", ignore = true)
+    @Mapping(target = "profilePicturePreSignedUrl", ignore = true)
+    UserDTO toUserDTO(UserEntity userEntity);
+
+    ContactDTO toContactDTO(ContactEntity contactEntity);
+
+    default EnumSet<UserRole> toRoles(Set<UserRole> roles) {
+        return roles == null || roles.isEmpty() ? EnumSet.noneOf(UserRole.class) : EnumSet.copyOf(roles);
+    }
+}
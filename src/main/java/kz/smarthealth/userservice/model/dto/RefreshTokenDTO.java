@@ -0,0 +1,20 @@
+package kz.smarthealth.userservice.model.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO class used to refresh access token
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshTokenDTO {
+
+    @NotEmpty(message = "Refresh token must be provided")
+    private String refreshToken;
+}
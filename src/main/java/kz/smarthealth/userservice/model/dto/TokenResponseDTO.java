@@ -0,0 +1,19 @@
+package kz.smarthealth.userservice.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * New pair of tokens issued on refresh
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenResponseDTO {
+
+    private String accessToken;
+    private String refreshToken;
+}
@@ -0,0 +1,26 @@
+package kz.smarthealth.userservice.model.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO class used to request several users at once
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBatchRequestDTO {
+
+    @NotEmpty(message = "User ids must be provided")
+    @Size(max = 100, message = "At most 100 users can be requested at once")
+    private List<@NotNull(message = "User id must not be null") UUID> ids;
+}
@@ -0,0 +1,24 @@
+package kz.smarthealth.userservice.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Users found by ids of {@link UserBatchRequestDTO}, in the order of requested ids. Ids of users which do not exist
+ * and ids of users the caller may not read are reported separately.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBatchResponseDTO {
+
+    private List<UserDTO> users;
+    private List<UUID> notFound;
+    private List<UUID> forbidden;
+}
@@ -1,6 +1,7 @@
 package kz.smarthealth.userservice.model.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
@@ -43,7 +44,7 @@ public class UserDTO extends BaseDTO {
     @Size(max = 155, message = "Email max length = 255 characters")
     private String email;
 
-    @Password
+    @Password(checkBreached = true)
     @JsonProperty(access = WRITE_ONLY)
     private String password;
 
@@ -71,4 +72,8 @@ public class UserDTO extends BaseDTO {
     private Set<UserRole> roles = new HashSet<>();
 
     private String profilePicturePreSignedUrl;
+
+    // identifies the representation in ETag instead of being serialized
+    @JsonIgnore
+    private Long version;
 }
@@ -0,0 +1,140 @@
+package kz.smarthealth.userservice.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import kz.smarthealth.userservice.exception.CustomException;
+import org.springframework.http.HttpStatus;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static kz.smarthealth.userservice.util.MessageSource.INVALID_FIELDS;
+
+/**
+ * Fields of {@link UserDTO} a client may request with "fields" query parameter. Only requested fields are queried
+ * from DB and serialized.
+ */
+public enum UserField {
+
+    ID("id"),
+    EMAIL("email"),
+    NAME("name"),
+    LAST_NAME("lastName"),
+    BIRTH_DATE("birthDate"),
+    DOCTOR_TYPE_ID("doctorTypeId"),
+    ABOUT("about"),
+    CREATED_AT("createdAt"),
+    CONTACT("contact"),
+    ROLES("roles"),
+    PROFILE_PICTURE_PRE_SIGNED_URL("profilePicturePreSignedUrl");
+
+    /**
+     * Id of the filter {@link UserDTO} is serialized with, see {@link FilterMixin}
+     */
+    public static final String FILTER_ID = "userFields";
+
+    private static final UserField[] VALUES = values();
+
+    private final String jsonName;
+
+    UserField(String jsonName) {
+        this.jsonName = jsonName;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    /**
+     * Parses comma separated JSON names of fields
+     *
+     * @param fields value of "fields" query parameter
+     * @return requested fields
+     */
+    public static EnumSet<UserField> parse(String fields) {
+        EnumSet<UserField> result = EnumSet.noneOf(UserField.class);
+        Set<String> unknown = new LinkedHashSet<>();
+
+        for (String name : fields.split(",")) {
+            String jsonName = name.trim();
+
+            if (!jsonName.isEmpty()) {
+                UserField field = ofJsonName(jsonName);
+
+                if (field == null) {
+                    unknown.add(jsonName);
+                } else {
+                    result.add(field);
+                }
+            }
+        }
+
+        if (!unknown.isEmpty() || result.isEmpty()) {
+            throw CustomException.builder()
+                    .httpStatus(HttpStatus.BAD_REQUEST)
+                    .error(INVALID_FIELDS.name())
+                    .errorMessage(INVALID_FIELDS.getText(unknown.isEmpty() ? fields : String.join(",", unknown)))
+                    .build();
+        }
+
+        return result;
+    }
+
+    /**
+     * Filters serialized {@link UserDTO} down to requested fields
+     *
+     * @param fields requested fields
+     * @return filters to serialize the user with
+     */
+    public static FilterProvider filterOf(Set<UserField> fields) {
+        Set<String> jsonNames = new HashSet<>(fields.size() * 2);
+        fields.forEach(field -> jsonNames.add(field.jsonName));
+
+        return new SimpleFilterProvider().addFilter(FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(jsonNames));
+    }
+
+    /**
+     * Serializes all fields of {@link UserDTO}, unless another filter is given to the writer
+     *
+     * @return filters applied by default
+     */
+    public static FilterProvider defaultFilter() {
+        return new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll());
+    }
+
+    /**
+     * @param fields requested fields
+     * @return bit mask of fields, 1 << ordinal per field
+     */
+    public static int toMask(Set<UserField> fields) {
+        int mask = 0;
+
+        for (UserField field : fields) {
+            mask |= 1 << field.ordinal();
+        }
+
+        return mask;
+    }
+
+    private static UserField ofJsonName(String jsonName) {
+        for (UserField field : VALUES) {
+            if (field.jsonName.equals(jsonName)) {
+                return field;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Mix-in putting {@link UserDTO} under the filter of requested fields. It is registered on the application
+     * ObjectMapper only, so that other mappers serialize the DTO without filters configured.
+     */
+    @JsonFilter(FILTER_ID)
+    public interface FilterMixin {
+    }
+}
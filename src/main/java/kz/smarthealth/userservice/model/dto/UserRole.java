@@ -1,6 +1,17 @@
 package kz.smarthealth.userservice.model.dto;
 
+/**
+ * Order of roles matches ids of the roles table, and the bit of a role in users.roles_mask is 1 << ordinal, so roles
+ * must not be reordered
+ */
 public enum UserRole {
 
-    ROLE_ADMIN, ROLE_ORGANIZATION, ROLE_DOCTOR, ROLE_PATIENT
+    ROLE_ADMIN, ROLE_ORGANIZATION, ROLE_DOCTOR, ROLE_PATIENT;
+
+    /**
+     * @return bit of the role in roles mask
+     */
+    public short getMask() {
+        return (short) (1 << ordinal());
+    }
 }
@@ -2,7 +2,6 @@ package kz.smarthealth.userservice.model.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
-import org.hibernate.annotations.GenericGenerator;
 
 import java.time.OffsetDateTime;
 import java.util.UUID;
@@ -20,9 +19,10 @@ import java.util.UUID;
 @AllArgsConstructor
 public class ContactEntity {
 
+    /**
+     * Id of the user, see {@link #user}
+     */
     @Id
-    @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
     private UUID id;
 
     private Short cityId;
@@ -37,8 +37,10 @@ public class ContactEntity {
 
     private String phoneNumber2;
 
-    @OneToOne
-    @JoinColumn(name = "user_id", nullable = false)
+    // contact shares primary key with its user, so it is found by user id through the primary key index
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id")
     @ToString.Exclude
     private UserEntity user;
 
@@ -0,0 +1,54 @@
+package kz.smarthealth.userservice.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Entity represents refresh token family, i.e. the chain of refresh tokens rotated from one sign in. Only the hash of
+ * the latest token of the family is stored.
+ */
+@Entity
+@Data
+@Table(name = "refresh_tokens")
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshTokenEntity implements Persistable<UUID> {
+
+    @Id
+    @Column(name = "family_id")
+    private UUID familyId;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "token_hash", nullable = false)
+    private byte[] tokenHash;
+
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+
+    @Override
+    public UUID getId() {
+        return familyId;
+    }
+
+    /**
+     * Family is saved only once, when it is created, and is rotated by update queries afterwards. Always being new
+     * lets save() insert it straight away instead of selecting it first.
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -8,8 +8,11 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
 
+// static seed data, instances are shared by RoleRegistry
 @Entity
+@Immutable
 @Table(name = "roles")
 @Data
 @Builder
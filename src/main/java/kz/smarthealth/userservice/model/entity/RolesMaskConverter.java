@@ -0,0 +1,49 @@
+package kz.smarthealth.userservice.model.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import kz.smarthealth.userservice.model.dto.UserRole;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Stores user roles as a bitmask in a smallint column, see {@link UserRole#getMask()}
+ */
+@Converter
+public class RolesMaskConverter implements AttributeConverter<EnumSet<UserRole>, Short> {
+
+    private static final UserRole[] ROLES = UserRole.values();
+
+    @Override
+    public Short convertToDatabaseColumn(EnumSet<UserRole> roles) {
+        return roles == null ? 0 : toMask(roles);
+    }
+
+    @Override
+    public EnumSet<UserRole> convertToEntityAttribute(Short mask) {
+        return mask == null ? EnumSet.noneOf(UserRole.class) : toRoles(mask);
+    }
+
+    public static short toMask(Set<UserRole> roles) {
+        int mask = 0;
+
+        for (UserRole role : roles) {
+            mask |= role.getMask();
+        }
+
+        return (short) mask;
+    }
+
+    public static EnumSet<UserRole> toRoles(short mask) {
+        EnumSet<UserRole> roles = EnumSet.noneOf(UserRole.class);
+
+        for (UserRole role : ROLES) {
+            if ((mask & role.getMask()) != 0) {
+                roles.add(role);
+            }
+        }
+
+        return roles;
+    }
+}
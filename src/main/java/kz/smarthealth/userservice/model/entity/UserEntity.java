@@ -1,6 +1,7 @@
 package kz.smarthealth.userservice.model.entity;
 
 import jakarta.persistence.*;
+import kz.smarthealth.userservice.model.dto.UserRole;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -9,8 +10,7 @@ import org.hibernate.annotations.GenericGenerator;
 
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.EnumSet;
 import java.util.UUID;
 
 /**
@@ -46,7 +46,8 @@ public class UserEntity {
     @Column(name = "birth_date")
     private LocalDate birthDate;
 
-    @OneToOne(mappedBy = "user", fetch = FetchType.EAGER)
+    // every user is signed up with a contact, so contact can be a lazy proxy keyed by the user id
+    @OneToOne(mappedBy = "user", fetch = FetchType.LAZY, optional = false)
     private ContactEntity contact;
 
     @Column(name = "doctor_type_id")
@@ -55,20 +56,20 @@ public class UserEntity {
     @Column(name = "about")
     private String about;
 
-    @Column(name = "refresh_token")
-    private String refreshToken;
-
     @Column(name = "profile_picture_file_name")
     private String profilePictureFileName;
 
-    @ManyToMany(fetch = FetchType.EAGER)
-    @JoinTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"),
-            inverseJoinColumns = @JoinColumn(name = "role_id"))
-    private Set<RoleEntity> roles = new HashSet<>();
+    @Convert(converter = RolesMaskConverter.class)
+    @Column(name = "roles_mask", nullable = false)
+    private EnumSet<UserRole> roles = EnumSet.noneOf(UserRole.class);
 
     @Column(name = "created_at", nullable = false)
     protected OffsetDateTime createdAt;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     private void prePersist() {
         if (this.createdAt == null) {
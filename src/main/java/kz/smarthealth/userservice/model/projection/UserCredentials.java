@@ -0,0 +1,12 @@
+package kz.smarthealth.userservice.model.projection;
+
+import kz.smarthealth.userservice.model.dto.UserRole;
+
+import java.util.EnumSet;
+import java.util.UUID;
+
+/**
+ * Minimal user data required to authenticate user
+ */
+public record UserCredentials(UUID id, String password, EnumSet<UserRole> roles) {
+}
@@ -0,0 +1,12 @@
+package kz.smarthealth.userservice.model.projection;
+
+import kz.smarthealth.userservice.model.dto.UserDTO;
+
+/**
+ * Requested fields of user, selected without columns and joins of fields not requested
+ *
+ * @param user                   user with requested fields set, others are null
+ * @param profilePictureFileName file name of profile picture, set only when pre-signed url of it is requested
+ */
+public record UserFieldsRow(UserDTO user, String profilePictureFileName) {
+}
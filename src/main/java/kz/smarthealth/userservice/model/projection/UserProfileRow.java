@@ -0,0 +1,55 @@
+package kz.smarthealth.userservice.model.projection;
+
+import kz.smarthealth.userservice.model.dto.ContactDTO;
+import kz.smarthealth.userservice.model.dto.UserDTO;
+import kz.smarthealth.userservice.model.dto.UserRole;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.EnumSet;
+import java.util.UUID;
+
+/**
+ * Columns of user and contact returned to clients
+ */
+public record UserProfileRow(UUID id, String email, String name, String lastName, LocalDate birthDate,
+                             Short doctorTypeId, String about, OffsetDateTime createdAt,
+                             UUID contactId, Short cityId, String street, String buildingNumber, String flatNumber,
+                             String phoneNumber1, String phoneNumber2, OffsetDateTime contactCreatedAt,
+                             EnumSet<UserRole> roles, Long version) {
+
+    /**
+     * Assembles user from the row
+     *
+     * @return user with contact, if user has one, and roles
+     */
+    public UserDTO toUserDTO() {
+        UserDTO userDTO = UserDTO.builder()
+                .id(id)
+                .email(email)
+                .name(name)
+                .lastName(lastName)
+                .birthDate(birthDate)
+                .doctorTypeId(doctorTypeId)
+                .about(about)
+                .contact(contactId == null ? null : ContactDTO.builder()
+                        .id(contactId)
+                        .cityId(cityId)
+                        .street(street)
+                        .buildingNumber(buildingNumber)
+                        .flatNumber(flatNumber)
+                        .phoneNumber1(phoneNumber1)
+                        .phoneNumber2(phoneNumber2)
+                        .build())
+                .roles(roles)
+                .version(version)
+                .build();
+        userDTO.setCreatedAt(createdAt);
+
+        if (userDTO.getContact() != null) {
+            userDTO.getContact().setCreatedAt(contactCreatedAt);
+        }
+
+        return userDTO;
+    }
+}
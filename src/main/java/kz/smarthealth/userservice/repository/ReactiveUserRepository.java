@@ -0,0 +1,84 @@
+package kz.smarthealth.userservice.repository;
+
+import io.r2dbc.spi.Readable;
+import kz.smarthealth.userservice.model.entity.RolesMaskConverter;
+import kz.smarthealth.userservice.model.projection.UserProfileRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Non-blocking queries of users over R2DBC, selecting the same columns as {@link UserRepository} does
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveUserRepository {
+
+    private static final String SELECT_PROFILE = "select u.id, u.email, u.name, u.last_name, u.birth_date, " +
+            "u.doctor_type_id, u.about, u.created_at, c.id as contact_id, c.city_id, c.street, c.building_number, " +
+            "c.flat_number, c.phone_number1, c.phone_number2, c.created_at as contact_created_at, u.roles_mask, " +
+            "u.version " +
+            "from users u left join contacts c on c.id = u.id ";
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * @return user row, empty if user does not exist
+     */
+    public Mono<UserProfileRow> findProfileById(UUID id) {
+        return databaseClient.sql(SELECT_PROFILE + "where u.id = :id")
+                .bind("id", id)
+                .map(ReactiveUserRepository::toUserProfileRow)
+                .one();
+    }
+
+    /**
+     * @return rows of existing users, in no particular order
+     */
+    public Flux<UserProfileRow> findProfilesByIds(Collection<UUID> ids) {
+        return databaseClient.sql(SELECT_PROFILE + "where u.id in (:ids)")
+                .bind("ids", ids)
+                .map(ReactiveUserRepository::toUserProfileRow)
+                .all();
+    }
+
+    /**
+     * @return file name of profile picture, empty string if user has none, empty if user does not exist
+     */
+    public Mono<String> findProfilePictureFileNameById(UUID id) {
+        return databaseClient.sql("select coalesce(profile_picture_file_name, '') from users where id = :id")
+                .bind("id", id)
+                .map(row -> row.get(0, String.class))
+                .one();
+    }
+
+    private static UserProfileRow toUserProfileRow(Readable row) {
+        Short rolesMask = row.get("roles_mask", Short.class);
+
+        return new UserProfileRow(row.get("id", UUID.class),
+                row.get("email", String.class),
+                row.get("name", String.class),
+                row.get("last_name", String.class),
+                row.get("birth_date", LocalDate.class),
+                row.get("doctor_type_id", Short.class),
+                row.get("about", String.class),
+                row.get("created_at", OffsetDateTime.class),
+                row.get("contact_id", UUID.class),
+                row.get("city_id", Short.class),
+                row.get("street", String.class),
+                row.get("building_number", String.class),
+                row.get("flat_number", String.class),
+                row.get("phone_number1", String.class),
+                row.get("phone_number2", String.class),
+                row.get("contact_created_at", OffsetDateTime.class),
+                RolesMaskConverter.toRoles(rolesMask == null ? 0 : rolesMask),
+                row.get("version", Long.class));
+    }
+}
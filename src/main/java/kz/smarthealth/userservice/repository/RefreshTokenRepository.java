@@ -0,0 +1,43 @@
+package kz.smarthealth.userservice.repository;
+
+import kz.smarthealth.userservice.model.entity.RefreshTokenEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshTokenEntity, UUID> {
+
+    /**
+     * Replaces the latest token of the family, only if the presented token is still the latest one and the family has
+     * not expired
+     *
+     * @return 1 if token was rotated, 0 otherwise
+     */
+    @Transactional
+    @Modifying
+    @Query("update RefreshTokenEntity t set t.tokenHash = :newTokenHash, t.expiresAt = :expiresAt " +
+            "where t.familyId = :familyId and t.tokenHash = :tokenHash and t.expiresAt > :now")
+    int rotate(@Param("familyId") UUID familyId,
+               @Param("tokenHash") byte[] tokenHash,
+               @Param("newTokenHash") byte[] newTokenHash,
+               @Param("expiresAt") OffsetDateTime expiresAt,
+               @Param("now") OffsetDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshTokenEntity t where t.familyId = :familyId")
+    int revoke(@Param("familyId") UUID familyId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "delete from refresh_tokens where family_id in " +
+            "(select family_id from refresh_tokens where expires_at < :now limit :batchSize)", nativeQuery = true)
+    int deleteExpired(@Param("now") OffsetDateTime now, @Param("batchSize") int batchSize);
+}
@@ -1,14 +1,73 @@
 package kz.smarthealth.userservice.repository;
 
 import kz.smarthealth.userservice.model.entity.UserEntity;
+import kz.smarthealth.userservice.model.projection.UserCredentials;
+import kz.smarthealth.userservice.model.projection.UserProfileRow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface UserRepository extends JpaRepository<UserEntity, UUID> {
+public interface UserRepository extends JpaRepository<UserEntity, UUID>, UserRepositoryCustom {
 
     Optional<UserEntity> findByEmail(String email);
+
+    @Transactional(readOnly = true)
+    @Query("select new kz.smarthealth.userservice.model.projection.UserCredentials(u.id, u.password, u.roles) " +
+            "from UserEntity u where u.email = :email")
+    Optional<UserCredentials> findCredentialsByEmail(@Param("email") String email);
+
+    String SELECT_PROFILE = "select new kz.smarthealth.userservice.model.projection.UserProfileRow(u.id, " +
+            "u.email, u.name, u.lastName, u.birthDate, u.doctorTypeId, u.about, u.createdAt, c.id, c.cityId, " +
+            "c.street, c.buildingNumber, c.flatNumber, c.phoneNumber1, c.phoneNumber2, c.createdAt, u.roles, " +
+            "u.version) " +
+            "from UserEntity u left join u.contact c ";
+
+    /**
+     * Selects columns returned to clients in one query, without loading entities
+     *
+     * @return user row, empty if user does not exist
+     */
+    @Transactional(readOnly = true)
+    @Query(SELECT_PROFILE + "where u.id = :id")
+    Optional<UserProfileRow> findProfileById(@Param("id") UUID id);
+
+    /**
+     * Selects users returned to clients in one query, without loading entities
+     *
+     * @return rows of existing users, in no particular order
+     */
+    @Transactional(readOnly = true)
+    @Query(SELECT_PROFILE + "where u.id in :ids")
+    List<UserProfileRow> findProfilesByIds(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Reads version of user from the index on (id, version), without touching the users table
+     *
+     * @return version of user, empty if user does not exist
+     */
+    @Transactional(readOnly = true)
+    @Query("select u.version from UserEntity u where u.id = :id")
+    Optional<Long> findVersionById(@Param("id") UUID id);
+
+    /**
+     * Replaces password hash, only if it has not been changed since it was read
+     *
+     * @return 1 if password was updated, 0 otherwise
+     */
+    @Transactional
+    @Modifying
+    @Query("update UserEntity u set u.password = :newPassword, u.version = u.version + 1 " +
+            "where u.id = :id and u.password = :oldPassword")
+    int updatePassword(@Param("id") UUID id,
+                       @Param("oldPassword") String oldPassword,
+                       @Param("newPassword") String newPassword);
 }
@@ -0,0 +1,23 @@
+package kz.smarthealth.userservice.repository;
+
+import kz.smarthealth.userservice.model.dto.UserField;
+import kz.smarthealth.userservice.model.projection.UserFieldsRow;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Queries of {@link UserRepository} built at runtime
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Selects only columns of requested fields, contacts are joined only when contact is requested
+     *
+     * @param id     user id
+     * @param fields requested fields, not empty
+     * @return user row, empty if user does not exist
+     */
+    Optional<UserFieldsRow> findFieldsById(UUID id, Set<UserField> fields);
+}
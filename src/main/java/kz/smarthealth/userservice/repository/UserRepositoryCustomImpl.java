@@ -0,0 +1,131 @@
+package kz.smarthealth.userservice.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import kz.smarthealth.userservice.model.dto.ContactDTO;
+import kz.smarthealth.userservice.model.dto.UserDTO;
+import kz.smarthealth.userservice.model.dto.UserField;
+import kz.smarthealth.userservice.model.dto.UserRole;
+import kz.smarthealth.userservice.model.projection.UserFieldsRow;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementation of {@link UserRepositoryCustom} with JPQL tuple queries
+ */
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private static final String ID_PARAMETER = "id";
+    private static final String VERSION = "version";
+    private static final String CONTACT_PREFIX = "contact_";
+    private static final String PROFILE_PICTURE_FILE_NAME = "profilePictureFileName";
+    private static final List<String> CONTACT_ATTRIBUTES = List.of("id", "cityId", "street", "buildingNumber",
+            "flatNumber", "phoneNumber1", "phoneNumber2", "createdAt");
+
+    // at most one query string per subset of fields, in practice a handful of subsets are requested; strings are
+    // immutable, so unlike criteria queries they are safe to share, and Hibernate caches the plan of each one
+    private final Map<Set<UserField>, String> queries = new ConcurrentHashMap<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<UserFieldsRow> findFieldsById(UUID id, Set<UserField> fields) {
+        return entityManager.createQuery(queries.computeIfAbsent(EnumSet.copyOf(fields),
+                        UserRepositoryCustomImpl::buildQuery), Tuple.class)
+                .setParameter(ID_PARAMETER, id)
+                .getResultList()
+                .stream()
+                .findFirst()
+                .map(tuple -> toRow(tuple, fields));
+    }
+
+    /**
+     * Builds query once per field set, only the id is bound on execution
+     */
+    private static String buildQuery(Set<UserField> fields) {
+        // version identifies the response, whichever fields are requested
+        StringJoiner selections = new StringJoiner(", ", "select ", " ");
+        selections.add("u." + VERSION + " as " + VERSION);
+        boolean contactJoined = false;
+
+        for (UserField field : fields) {
+            switch (field) {
+                case CONTACT -> {
+                    contactJoined = true;
+                    CONTACT_ATTRIBUTES.forEach(attribute ->
+                            selections.add("c." + attribute + " as " + CONTACT_PREFIX + attribute));
+                }
+                case PROFILE_PICTURE_PRE_SIGNED_URL ->
+                        selections.add("u." + PROFILE_PICTURE_FILE_NAME + " as " + PROFILE_PICTURE_FILE_NAME);
+                // other fields are named as attributes of the entity
+                default -> selections.add("u." + field.getJsonName() + " as " + field.getJsonName());
+            }
+        }
+
+        return selections + "from UserEntity u " + (contactJoined ? "left join u.contact c " : "")
+                + "where u.id = :" + ID_PARAMETER;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static UserFieldsRow toRow(Tuple tuple, Set<UserField> fields) {
+        UserDTO userDTO = UserDTO.builder()
+                .version(tuple.get(VERSION, Long.class))
+                .build();
+        String profilePictureFileName = null;
+
+        for (UserField field : fields) {
+            String alias = field.getJsonName();
+
+            switch (field) {
+                case ID -> userDTO.setId(tuple.get(alias, UUID.class));
+                case EMAIL -> userDTO.setEmail(tuple.get(alias, String.class));
+                case NAME -> userDTO.setName(tuple.get(alias, String.class));
+                case LAST_NAME -> userDTO.setLastName(tuple.get(alias, String.class));
+                case BIRTH_DATE -> userDTO.setBirthDate(tuple.get(alias, LocalDate.class));
+                case DOCTOR_TYPE_ID -> userDTO.setDoctorTypeId(tuple.get(alias, Short.class));
+                case ABOUT -> userDTO.setAbout(tuple.get(alias, String.class));
+                case CREATED_AT -> userDTO.setCreatedAt(tuple.get(alias, OffsetDateTime.class));
+                case ROLES -> userDTO.setRoles((EnumSet<UserRole>) tuple.get(alias));
+                case CONTACT -> userDTO.setContact(toContactDTO(tuple));
+                case PROFILE_PICTURE_PRE_SIGNED_URL ->
+                        profilePictureFileName = tuple.get(PROFILE_PICTURE_FILE_NAME, String.class);
+            }
+        }
+
+        return new UserFieldsRow(userDTO, profilePictureFileName);
+    }
+
+    private static ContactDTO toContactDTO(Tuple tuple) {
+        UUID id = tuple.get(CONTACT_PREFIX + "id", UUID.class);
+
+        if (id == null) {
+            return null;
+        }
+
+        ContactDTO contactDTO = ContactDTO.builder()
+                .id(id)
+                .cityId(tuple.get(CONTACT_PREFIX + "cityId", Short.class))
+                .street(tuple.get(CONTACT_PREFIX + "street", String.class))
+                .buildingNumber(tuple.get(CONTACT_PREFIX + "buildingNumber", String.class))
+                .flatNumber(tuple.get(CONTACT_PREFIX + "flatNumber", String.class))
+                .phoneNumber1(tuple.get(CONTACT_PREFIX + "phoneNumber1", String.class))
+                .phoneNumber2(tuple.get(CONTACT_PREFIX + "phoneNumber2", String.class))
+                .build();
+        contactDTO.setCreatedAt(tuple.get(CONTACT_PREFIX + "createdAt", OffsetDateTime.class));
+
+        return contactDTO;
+    }
+}
@@ -4,33 +4,55 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 
+/**
+ * Authenticates request either by bearer access token, which is verified locally, or by userId and role headers
+ * set by the gateway
+ */
+@RequiredArgsConstructor
 public class AuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtTokenVerifier jwtTokenVerifier;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
-        String userId = request.getHeader("userId");
-        String role = request.getHeader("role");
-
-        if (!StringUtils.isBlank(userId) && !StringUtils.isBlank(role)) {
-            List<SimpleGrantedAuthority> grantedAuthorities = List.of(new SimpleGrantedAuthority(role));
-            User userDetails = new User(userId, "", grantedAuthorities);
-            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                    userDetails, null, grantedAuthorities);
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+        if (authorization != null && authorization.startsWith(BEARER_PREFIX)) {
+            jwtTokenVerifier.verify(authorization.substring(BEARER_PREFIX.length()))
+                    .ifPresent(token -> authenticate(token.subject(), token.authorities()));
+        } else {
+            String userId = request.getHeader("userId");
+            String role = request.getHeader("role");
+
+            if (!StringUtils.isBlank(userId) && !StringUtils.isBlank(role)) {
+                authenticate(userId, List.of(RoleRegistry.getAuthority(role)));
+            }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private void authenticate(String userId, Collection<? extends GrantedAuthority> grantedAuthorities) {
+        User userDetails = new User(userId, "", grantedAuthorities);
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                userDetails, null, grantedAuthorities);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
 }
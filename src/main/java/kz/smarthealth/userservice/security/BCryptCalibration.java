@@ -0,0 +1,80 @@
+package kz.smarthealth.userservice.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt strength recommended for the hardware of this instance.
+ * <p>
+ * Each strength step doubles the hashing time, so calibration measures one hash at every strength starting from the
+ * floor and stops at the highest strength whose hash still fits into the target latency. Calibration is done once at
+ * startup, on the hardware the instance actually runs on. It is only reported: passwords are hashed with the strength
+ * configured for all replicas, which is raised by hand once every replica can afford it.
+ *
+ * @param strength       recommended BCrypt log rounds
+ * @param targetMillis   target hashing latency, 0 when calibration is skipped
+ * @param measuredMillis measured hashing latency at the chosen strength, 0 when calibration is skipped
+ * @param calibrated     whether strength was calibrated or is the configured one
+ */
+@Slf4j
+public record BCryptCalibration(int strength, long targetMillis, long measuredMillis, boolean calibrated) {
+
+    private static final int MAX_BCRYPT_STRENGTH = 31;
+    private static final String CALIBRATION_PASSWORD = "calibrationPassword";
+
+    /**
+     * Recommends configured strength as is, when calibration is skipped
+     *
+     * @param strength BCrypt log rounds
+     * @return fixed calibration
+     */
+    public static BCryptCalibration fixed(int strength) {
+        return new BCryptCalibration(strength, 0, 0, false);
+    }
+
+    /**
+     * Finds the highest strength within [minStrength, maxStrength] that hashes a password within target latency.
+     * Strength never goes below the floor, even if hashing at the floor is slower than the target.
+     *
+     * @param targetMillis target hashing latency
+     * @param minStrength  the lowest acceptable strength
+     * @param maxStrength  the highest strength to try
+     * @return calibration result
+     */
+    public static BCryptCalibration calibrate(long targetMillis, int minStrength, int maxStrength) {
+        int strength = minStrength;
+        // first hash warms up the code, so it is not measured
+        measure(strength);
+        long measuredMillis = measure(strength);
+
+        while (strength < Math.min(maxStrength, MAX_BCRYPT_STRENGTH)) {
+            // the next strength takes twice as long, skip measuring what is certainly too slow
+            if (measuredMillis * 2 > targetMillis) {
+                break;
+            }
+
+            long nextMillis = measure(strength + 1);
+
+            if (nextMillis > targetMillis) {
+                break;
+            }
+
+            strength++;
+            measuredMillis = nextMillis;
+        }
+
+        log.info("BCrypt strength calibrated to {}, hash takes {} ms, target {} ms", strength, measuredMillis,
+                targetMillis);
+
+        return new BCryptCalibration(strength, targetMillis, measuredMillis, true);
+    }
+
+    private static long measure(int strength) {
+        long startedAt = System.nanoTime();
+        BCrypt.hashpw(CALIBRATION_PASSWORD, BCrypt.gensalt(strength));
+
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+    }
+}
@@ -0,0 +1,55 @@
+package kz.smarthealth.userservice.security;
+
+import java.util.Arrays;
+
+/**
+ * Supported JWT signing algorithms
+ */
+public enum JwtAlgorithm {
+
+    HS512("HS512", "HmacSHA512", null),
+    RS256("RS256", "SHA256withRSA", "RSA"),
+    ED_DSA("EdDSA", "Ed25519", "Ed25519");
+
+    private final String value;
+    private final String jcaName;
+    private final String keyAlgorithm;
+
+    JwtAlgorithm(String value, String jcaName, String keyAlgorithm) {
+        this.value = value;
+        this.jcaName = jcaName;
+        this.keyAlgorithm = keyAlgorithm;
+    }
+
+    /**
+     * @return value of "alg" header
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @return JCA name of signature or MAC algorithm
+     */
+    public String getJcaName() {
+        return jcaName;
+    }
+
+    /**
+     * @return JCA name of key pair algorithm, or null for symmetric algorithms
+     */
+    public String getKeyAlgorithm() {
+        return keyAlgorithm;
+    }
+
+    public boolean isAsymmetric() {
+        return keyAlgorithm != null;
+    }
+
+    public static JwtAlgorithm fromValue(String value) {
+        return Arrays.stream(values())
+                .filter(algorithm -> algorithm.value.equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported JWT signing algorithm: " + value));
+    }
+}
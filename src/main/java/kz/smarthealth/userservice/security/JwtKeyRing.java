@@ -0,0 +1,123 @@
+package kz.smarthealth.userservice.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Ring of asymmetric signing keys loaded from a key set shared by all replicas, so that a token signed by one replica
+ * is verified by every other one and survives restarts.
+ * <p>
+ * The first key of the set signs new tokens, all keys of the set are published in JWKS and verify tokens. Keys are
+ * rotated in the key set: a new key is added second, so that it is published before it signs, and after at least
+ * the JWKS max age it is moved to the first place. The key it replaces stays in the set until every token it has
+ * signed is expired. The set is reloaded periodically, so replicas pick up rotation without a restart. When a key is
+ * dropped from the set, listeners are notified, so that tokens it signed are no longer accepted from caches.
+ */
+@Slf4j
+public class JwtKeyRing {
+
+    private final JwtAlgorithm algorithm;
+    private final Supplier<List<JwtSigningKey>> keySet;
+
+    private final List<Runnable> keysDroppedListeners = new CopyOnWriteArrayList<>();
+
+    private volatile List<JwtSigningKey> keys;
+
+    /**
+     * @param algorithm asymmetric signing algorithm, every key of the set must be of it
+     * @param keySet    loads the key set, the key which signs new tokens first
+     */
+    public JwtKeyRing(JwtAlgorithm algorithm, Supplier<List<JwtSigningKey>> keySet) {
+        this.algorithm = algorithm;
+        this.keySet = keySet;
+        this.keys = load();
+    }
+
+    /**
+     * @return key which signs new tokens
+     */
+    public JwtSigningKey getCurrentKey() {
+        return keys.get(0);
+    }
+
+    /**
+     * Finds published key by id
+     *
+     * @param kid key id
+     * @return key, or empty if the key is unknown or has been dropped
+     */
+    public Optional<JwtSigningKey> findKey(String kid) {
+        return keys.stream()
+                .filter(key -> key.getKid().equals(kid))
+                .findFirst();
+    }
+
+    /**
+     * @return all keys of the set, the current key first
+     */
+    public List<JwtSigningKey> getPublishedKeys() {
+        return keys;
+    }
+
+    /**
+     * Registers listener called after keys are dropped from the set, tokens signed by them must no longer be accepted
+     *
+     * @param listener forgets tokens verified before
+     */
+    public void addKeysDroppedListener(Runnable listener) {
+        keysDroppedListeners.add(listener);
+    }
+
+    /**
+     * Reloads the key set. When it can not be loaded, keys loaded before are kept.
+     */
+    @Scheduled(fixedDelayString = "${jwt.signing.keys-reload-interval-ms}",
+            initialDelayString = "${jwt.signing.keys-reload-interval-ms}")
+    public void reload() {
+        try {
+            List<JwtSigningKey> loaded = load();
+            List<String> previousKids = kids(keys);
+
+            if (!kids(loaded).equals(previousKids)) {
+                log.info("JWT signing keys reloaded, current kid={}, published kids={}", loaded.get(0).getKid(),
+                        kids(loaded));
+            }
+
+            keys = loaded;
+
+            if (!kids(loaded).containsAll(previousKids)) {
+                keysDroppedListeners.forEach(Runnable::run);
+            }
+        } catch (RuntimeException e) {
+            log.error("Unable to reload JWT signing keys, keeping current kid={}", getCurrentKey().getKid(), e);
+        }
+    }
+
+    private List<JwtSigningKey> load() {
+        List<JwtSigningKey> loaded = List.copyOf(keySet.get());
+
+        if (loaded.isEmpty()) {
+            throw new IllegalArgumentException("JWT signing key set is empty");
+        }
+
+        for (JwtSigningKey key : loaded) {
+            if (key.getAlgorithm() != algorithm) {
+                throw new IllegalArgumentException("JWT signing key " + key.getKid() + " is not a key of "
+                        + algorithm.getValue());
+            }
+        }
+
+        return loaded;
+    }
+
+    private static List<String> kids(List<JwtSigningKey> keys) {
+        return keys.stream()
+                .map(JwtSigningKey::getKid)
+                .toList();
+    }
+}
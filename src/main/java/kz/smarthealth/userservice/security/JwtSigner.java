@@ -0,0 +1,26 @@
+package kz.smarthealth.userservice.security;
+
+import java.util.Map;
+
+/**
+ * Creates and verifies signed compact JWTs
+ */
+public interface JwtSigner {
+
+    /**
+     * Creates signed token
+     *
+     * @param claims token claims, serialized in iteration order of the map
+     * @return compact JWT
+     */
+    String createToken(Map<String, Object> claims);
+
+    /**
+     * Verifies token signature and returns its claims. Expiration is not checked here.
+     *
+     * @param token compact JWT
+     * @return token claims
+     * @throws io.jsonwebtoken.JwtException when token is malformed, or signed with unknown key or algorithm
+     */
+    Map<String, Object> parseClaims(String token);
+}
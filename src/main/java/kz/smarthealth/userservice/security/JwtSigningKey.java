@@ -0,0 +1,291 @@
+package kz.smarthealth.userservice.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.EdECPoint;
+import java.security.spec.EdECPrivateKeySpec;
+import java.security.spec.EdECPublicKeySpec;
+import java.security.spec.NamedParameterSpec;
+import java.security.spec.RSAPrivateCrtKeySpec;
+import java.security.spec.RSAPrivateKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Asymmetric JWT signing key. Key id is the RFC 7638 thumbprint of the public key, so every replica loading the same
+ * key derives the same id.
+ */
+public final class JwtSigningKey {
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_URL_DECODER = Base64.getUrlDecoder();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int RSA_KEY_SIZE = 2048;
+    private static final int ED25519_KEY_SIZE = 32;
+
+    private final JwtAlgorithm algorithm;
+    private final KeyPair keyPair;
+    private final String kid;
+    private final Map<String, Object> jwk;
+    private final String encodedHeader;
+
+    private JwtSigningKey(JwtAlgorithm algorithm, KeyPair keyPair) {
+        this.algorithm = algorithm;
+        this.keyPair = keyPair;
+        // thumbprint is calculated over required public key members only, in lexicographic order
+        Map<String, Object> publicKeyMembers = new TreeMap<>(getPublicKeyMembers());
+        this.kid = BASE64_URL.encodeToString(sha256(toJson(publicKeyMembers)));
+        this.jwk = new LinkedHashMap<>(publicKeyMembers);
+        this.jwk.put("kid", kid);
+        this.jwk.put("use", "sig");
+        this.jwk.put("alg", algorithm.getValue());
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("alg", algorithm.getValue());
+        header.put("kid", kid);
+        this.encodedHeader = BASE64_URL.encodeToString(toJson(header));
+    }
+
+    /**
+     * Generates new key pair. Keys signing tokens of a running service are loaded by {@link #parseJwkSet(String)}
+     * instead, so that every replica signs and verifies with the same keys.
+     *
+     * @param algorithm asymmetric signing algorithm
+     * @return new signing key
+     */
+    public static JwtSigningKey generate(JwtAlgorithm algorithm) {
+        if (!algorithm.isAsymmetric()) {
+            throw new IllegalArgumentException(algorithm.getValue() + " is not an asymmetric algorithm");
+        }
+
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm.getKeyAlgorithm());
+
+            if (algorithm == JwtAlgorithm.RS256) {
+                generator.initialize(RSA_KEY_SIZE);
+            }
+
+            return new JwtSigningKey(algorithm, generator.generateKeyPair());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to generate " + algorithm.getValue() + " key", e);
+        }
+    }
+
+    /**
+     * Parses JWK set of private keys, RSA keys for RS256 and Ed25519 keys for EdDSA
+     *
+     * @param json JWK set, as defined by RFC 7517
+     * @return keys in the order of the set
+     */
+    public static List<JwtSigningKey> parseJwkSet(String json) {
+        Map<String, List<Map<String, Object>>> jwkSet;
+
+        try {
+            jwkSet = OBJECT_MAPPER.readValue(json, new TypeReference<>() {
+            });
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JWK set", e);
+        }
+
+        List<Map<String, Object>> keys = jwkSet.get("keys");
+
+        if (keys == null) {
+            throw new IllegalArgumentException("JWK set has no keys");
+        }
+
+        return keys.stream()
+                .map(JwtSigningKey::fromJwk)
+                .toList();
+    }
+
+    /**
+     * Parses private key in JWK format
+     *
+     * @param jwk RSA key with "n", "e" and "d", optionally with CRT members, or Ed25519 key with "x" and "d"
+     * @return signing key
+     */
+    public static JwtSigningKey fromJwk(Map<String, Object> jwk) {
+        JwtSigningKey key;
+
+        try {
+            if ("RSA".equals(jwk.get("kty"))) {
+                key = new JwtSigningKey(JwtAlgorithm.RS256, toRsaKeyPair(jwk));
+            } else if ("OKP".equals(jwk.get("kty")) && "Ed25519".equals(jwk.get("crv"))) {
+                key = new JwtSigningKey(JwtAlgorithm.ED_DSA, toEd25519KeyPair(jwk));
+            } else {
+                throw new IllegalArgumentException("Unsupported JWK key type: " + jwk.get("kty"));
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Invalid private JWK", e);
+        }
+
+        byte[] probe = key.kid.getBytes(StandardCharsets.US_ASCII);
+
+        if (!key.verify(probe, key.sign(probe))) {
+            throw new IllegalArgumentException("Private and public parts of JWK do not match, kid=" + key.kid);
+        }
+
+        return key;
+    }
+
+    public String getKid() {
+        return kid;
+    }
+
+    public JwtAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return Base64URL encoded JOSE header of tokens signed by this key
+     */
+    public String getEncodedHeader() {
+        return encodedHeader;
+    }
+
+    /**
+     * @return public key in JWK format
+     */
+    public Map<String, Object> getJwk() {
+        return jwk;
+    }
+
+    public byte[] sign(byte[] content) {
+        try {
+            Signature signature = Signature.getInstance(algorithm.getJcaName());
+            signature.initSign(keyPair.getPrivate());
+            signature.update(content);
+
+            return signature.sign();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign JWT with " + algorithm.getValue(), e);
+        }
+    }
+
+    public boolean verify(byte[] content, byte[] signatureBytes) {
+        try {
+            Signature signature = Signature.getInstance(algorithm.getJcaName());
+            signature.initVerify(keyPair.getPublic());
+            signature.update(content);
+
+            return signature.verify(signatureBytes);
+        } catch (java.security.SignatureException e) {
+            // signature of wrong length or format
+            return false;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to verify JWT with " + algorithm.getValue(), e);
+        }
+    }
+
+    private Map<String, Object> getPublicKeyMembers() {
+        Map<String, Object> members = new LinkedHashMap<>();
+
+        if (keyPair.getPublic() instanceof RSAPublicKey publicKey) {
+            members.put("kty", "RSA");
+            members.put("n", encodeUnsigned(publicKey.getModulus()));
+            members.put("e", encodeUnsigned(publicKey.getPublicExponent()));
+        } else {
+            // X.509 encoding of Ed25519 key ends with the raw 32 byte public key
+            byte[] encoded = keyPair.getPublic().getEncoded();
+            members.put("kty", "OKP");
+            members.put("crv", "Ed25519");
+            members.put("x", BASE64_URL.encodeToString(
+                    Arrays.copyOfRange(encoded, encoded.length - ED25519_KEY_SIZE, encoded.length)));
+        }
+
+        return members;
+    }
+
+    private static KeyPair toRsaKeyPair(Map<String, Object> jwk) throws GeneralSecurityException {
+        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+        BigInteger modulus = decodeUnsigned(jwk, "n");
+        BigInteger publicExponent = decodeUnsigned(jwk, "e");
+        BigInteger privateExponent = decodeUnsigned(jwk, "d");
+        // CRT members make signing about three times faster, but are optional
+        RSAPrivateKeySpec privateKeySpec = jwk.containsKey("p")
+                ? new RSAPrivateCrtKeySpec(modulus, publicExponent, privateExponent, decodeUnsigned(jwk, "p"),
+                decodeUnsigned(jwk, "q"), decodeUnsigned(jwk, "dp"), decodeUnsigned(jwk, "dq"),
+                decodeUnsigned(jwk, "qi"))
+                : new RSAPrivateKeySpec(modulus, privateExponent);
+
+        return new KeyPair(keyFactory.generatePublic(new RSAPublicKeySpec(modulus, publicExponent)),
+                keyFactory.generatePrivate(privateKeySpec));
+    }
+
+    private static KeyPair toEd25519KeyPair(Map<String, Object> jwk) throws GeneralSecurityException {
+        KeyFactory keyFactory = KeyFactory.getInstance("Ed25519");
+        // public key is y coordinate in little endian, with the parity of x in the most significant bit
+        byte[] x = decode(jwk, "x");
+
+        if (x.length != ED25519_KEY_SIZE) {
+            throw new IllegalArgumentException("Invalid Ed25519 public key length: " + x.length);
+        }
+
+        boolean xOdd = (x[ED25519_KEY_SIZE - 1] & 0x80) != 0;
+        byte[] y = new byte[ED25519_KEY_SIZE];
+
+        for (int i = 0; i < ED25519_KEY_SIZE; i++) {
+            y[i] = x[ED25519_KEY_SIZE - 1 - i];
+        }
+
+        y[0] &= 0x7f;
+        EdECPoint point = new EdECPoint(xOdd, new BigInteger(1, y));
+
+        return new KeyPair(keyFactory.generatePublic(new EdECPublicKeySpec(NamedParameterSpec.ED25519, point)),
+                keyFactory.generatePrivate(new EdECPrivateKeySpec(NamedParameterSpec.ED25519,
+                        decode(jwk, "d"))));
+    }
+
+    private static BigInteger decodeUnsigned(Map<String, Object> jwk, String member) {
+        return new BigInteger(1, decode(jwk, member));
+    }
+
+    private static byte[] decode(Map<String, Object> jwk, String member) {
+        if (!(jwk.get(member) instanceof String value)) {
+            throw new IllegalArgumentException("JWK has no \"" + member + "\" member");
+        }
+
+        return BASE64_URL_DECODER.decode(value);
+    }
+
+    private static String encodeUnsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+
+        return BASE64_URL.encodeToString(bytes);
+    }
+
+    private static byte[] toJson(Map<String, Object> value) {
+        try {
+            return OBJECT_MAPPER.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize JWK", e);
+        }
+    }
+
+    private static byte[] sha256(byte[] value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+}
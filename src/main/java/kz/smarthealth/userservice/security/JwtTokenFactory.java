@@ -0,0 +1,107 @@
+package kz.smarthealth.userservice.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.impl.TextCodec;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Builds and verifies HS512 signed compact JWTs. The signing key is derived once and every thread reuses its own
+ * initialized {@link Mac}, instead of decoding the secret and creating a new {@link Mac} per token as
+ * {@code Jwts.builder().signWith(HS512, secret)} does. Produced tokens are byte-identical to jjwt's ones for the
+ * same claims.
+ */
+public class JwtTokenFactory implements JwtSigner {
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_URL_DECODER = Base64.getUrlDecoder();
+    private static final TypeReference<Map<String, Object>> CLAIMS_TYPE = new TypeReference<>() {
+    };
+    private static final SignatureAlgorithm ALGORITHM = SignatureAlgorithm.HS512;
+    private static final String ENCODED_HEADER = BASE64_URL.encodeToString(
+            ("{\"alg\":\"" + ALGORITHM.getValue() + "\"}").getBytes(StandardCharsets.UTF_8));
+
+    // the same serializer settings as jjwt uses, so the payload is serialized identically
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * @param base64EncodedSecret secret in the same format as passed to jjwt
+     */
+    public JwtTokenFactory(String base64EncodedSecret) {
+        SecretKeySpec key = new SecretKeySpec(TextCodec.BASE64.decode(base64EncodedSecret), ALGORITHM.getJcaName());
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM.getJcaName());
+                mac.init(key);
+
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to initialize " + ALGORITHM.getJcaName(), e);
+            }
+        });
+    }
+
+    @Override
+    public String createToken(Map<String, Object> claims) {
+        String encodedPayload;
+
+        try {
+            encodedPayload = BASE64_URL.encodeToString(objectMapper.writeValueAsBytes(claims));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize JWT claims", e);
+        }
+
+        StringBuilder token = new StringBuilder(ENCODED_HEADER.length() + encodedPayload.length() + 90)
+                .append(ENCODED_HEADER)
+                .append('.')
+                .append(encodedPayload);
+        // doFinal resets the mac, so it is ready for the next token of this thread
+        byte[] signature = macs.get().doFinal(token.toString().getBytes(StandardCharsets.US_ASCII));
+
+        return token.append('.')
+                .append(BASE64_URL.encodeToString(signature))
+                .toString();
+    }
+
+    @Override
+    public Map<String, Object> parseClaims(String token) {
+        int headerEnd = token.indexOf('.');
+        int payloadEnd = token.indexOf('.', headerEnd + 1);
+
+        if (headerEnd < 0 || payloadEnd < 0 || token.indexOf('.', payloadEnd + 1) >= 0) {
+            throw new MalformedJwtException("JWT must consist of header, payload and signature");
+        }
+
+        if (headerEnd != ENCODED_HEADER.length() || !token.startsWith(ENCODED_HEADER)) {
+            throw new UnsupportedJwtException("Only " + ALGORITHM.getValue() + " signed JWTs are supported");
+        }
+
+        try {
+            byte[] expectedSignature = macs.get().doFinal(
+                    token.substring(0, payloadEnd).getBytes(StandardCharsets.US_ASCII));
+
+            if (!MessageDigest.isEqual(expectedSignature, BASE64_URL_DECODER.decode(token.substring(payloadEnd + 1)))) {
+                throw new SignatureException("JWT signature does not match");
+            }
+
+            return objectMapper.readValue(BASE64_URL_DECODER.decode(token.substring(headerEnd + 1, payloadEnd)),
+                    CLAIMS_TYPE);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new MalformedJwtException("Unable to decode JWT", e);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package kz.smarthealth.userservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifies bearer access tokens. Verified tokens are cached by their SHA-256 digest until they expire, so repeated
+ * requests with the same token pay a digest and a map lookup instead of HMAC verification and JSON parsing. When a
+ * signing key is dropped from {@link JwtKeyRing}, the cache is cleared, so tokens signed by the key are rejected.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JwtTokenVerifier {
+
+    private static final String METRIC_NAME = "security.jwt.verification";
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    });
+
+    private final JwtUtils jwtUtils;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${jwt.verification-cache.max-size}")
+    private long cacheMaxSize;
+
+    // incremented whenever signing keys are dropped, so that a token verified with a dropped key is not cached after
+    private final AtomicLong keysVersion = new AtomicLong();
+
+    private Cache<TokenDigest, VerifiedToken> cache;
+    private Timer hitTimer;
+    private Timer missTimer;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt-verification");
+        hitTimer = Timer.builder(METRIC_NAME)
+                .description("Time spent verifying bearer token")
+                .tag("cache", "hit")
+                .register(meterRegistry);
+        missTimer = Timer.builder(METRIC_NAME)
+                .description("Time spent verifying bearer token")
+                .tag("cache", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Key ring is present only when tokens are signed with asymmetric keys
+     *
+     * @param jwtKeyRing signing keys shared by all replicas
+     */
+    @Autowired(required = false)
+    public void setJwtKeyRing(JwtKeyRing jwtKeyRing) {
+        jwtKeyRing.addKeysDroppedListener(this::forgetVerifiedTokens);
+    }
+
+    /**
+     * Verifies access token
+     *
+     * @param token compact JWT without "Bearer " prefix
+     * @return subject and authorities of the token, or empty if the token is invalid or expired
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        long startedAt = System.nanoTime();
+        TokenDigest digest = TokenDigest.of(token);
+        VerifiedToken verifiedToken = cache.getIfPresent(digest);
+
+        if (verifiedToken != null) {
+            hitTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+
+            return Optional.of(verifiedToken);
+        }
+
+        long version = keysVersion.get();
+        VerifiedToken parsed = parse(token);
+
+        if (parsed != null) {
+            // keys dropped while the token was verified increment the version before the cache is cleared, so they
+            // either stop this put or remove the token put
+            cache.asMap().compute(digest, (key, current) -> keysVersion.get() == version ? parsed : current);
+        }
+
+        missTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+
+        return Optional.ofNullable(parsed);
+    }
+
+    private void forgetVerifiedTokens() {
+        keysVersion.incrementAndGet();
+        cache.invalidateAll();
+        log.info("JWT signing keys dropped, verified tokens forgotten");
+    }
+
+    /**
+     * Verifies token signature and expiration, and extracts authentication details from its claims
+     *
+     * @param token compact JWT
+     * @return verified token or null if the token is not a valid access token
+     */
+    private VerifiedToken parse(String token) {
+        Map<String, Object> claims;
+
+        try {
+            claims = jwtUtils.parseClaims(token);
+        } catch (JwtException e) {
+            log.debug("Invalid bearer token: {}", e.getMessage());
+
+            return null;
+        }
+
+        String role = JwtUtils.getRole(claims);
+
+        if (!(claims.get(Claims.SUBJECT) instanceof String subject) || role == null
+                || !(claims.get(Claims.EXPIRATION) instanceof Number expiration)
+                || claims.containsKey(JwtUtils.FAMILY_ID_CLAIM)) {
+            log.debug("Bearer token is not an access token");
+
+            return null;
+        }
+
+        long expiresAtMillis = TimeUnit.SECONDS.toMillis(expiration.longValue());
+
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            return null;
+        }
+
+        return new VerifiedToken(subject, List.of(RoleRegistry.getAuthority(role)), expiresAtMillis);
+    }
+
+    /**
+     * Authentication details of verified access token
+     *
+     * @param subject         user id
+     * @param authorities     user authorities
+     * @param expiresAtMillis expiration time of the token
+     */
+    public record VerifiedToken(String subject, List<GrantedAuthority> authorities, long expiresAtMillis) {
+    }
+
+    /**
+     * SHA-256 digest of a token, kept as four longs
+     */
+    private record TokenDigest(long first, long second, long third, long fourth) {
+
+        static TokenDigest of(String token) {
+            ByteBuffer digest = ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+
+            return new TokenDigest(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+        }
+    }
+
+    /**
+     * Expires cached token exactly when the token itself expires
+     */
+    private static class TokenExpiry implements Expiry<TokenDigest, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(TokenDigest key, VerifiedToken value, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.expiresAtMillis() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, VerifiedToken value, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
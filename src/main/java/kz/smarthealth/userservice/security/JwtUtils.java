@@ -1,45 +1,106 @@
 package kz.smarthealth.userservice.security;
 
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
-import java.util.Date;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
 
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class JwtUtils {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    public static final String EMAIL_CLAIM = "email";
+    public static final String ROLE_CLAIM = "role";
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String FAMILY_ID_CLAIM = "fid";
+
+    /**
+     * Refresh token lives this many times longer than access token
+     */
+    public static final int REFRESH_TOKEN_TTL_FACTOR = 3;
+
+    private final JwtSigner jwtSigner;
 
     @Value("${jwt.expiration}")
     private int jwtExpirationMs;
 
     public String generateJwtToken(Authentication authentication) {
         UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+        long now = System.currentTimeMillis();
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put(Claims.SUBJECT, userPrincipal.getId().toString());
+        claims.put(EMAIL_CLAIM, userPrincipal.getUsername());
+        claims.put(ROLE_CLAIM, userPrincipal.getAuthorities().iterator().next());
+        claims.put(Claims.ISSUED_AT, now / 1000);
+        claims.put(Claims.EXPIRATION, (now + jwtExpirationMs) / 1000);
 
-        return Jwts.builder()
-                .setSubject(userPrincipal.getId().toString())
-                .claim("email", userPrincipal.getUsername())
-                .claim("role", userPrincipal.getAuthorities().iterator().next())
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(SignatureAlgorithm.HS512, jwtSecret)
-                .compact();
+        return jwtSigner.createToken(claims);
     }
 
-    public String generateRefreshToken(Authentication authentication) {
+    /**
+     * Generates refresh token of the given token family. Token carries everything needed to issue next access token,
+     * so refreshing does not require reading user data.
+     *
+     * @param authentication authenticated user
+     * @param familyId       id of the token family, which is shared by all tokens rotated from one sign in
+     * @param expiresAt      expiration time of the token
+     * @return refresh token
+     */
+    public String generateRefreshToken(Authentication authentication, UUID familyId, Instant expiresAt) {
         UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put(Claims.SUBJECT, userPrincipal.getUsername());
+        claims.put(USER_ID_CLAIM, userPrincipal.getId().toString());
+        claims.put(ROLE_CLAIM, userPrincipal.getAuthorities().iterator().next());
+        claims.put(FAMILY_ID_CLAIM, familyId.toString());
+        // makes every rotated token unique, even if two of them are issued within the same second
+        claims.put(Claims.ID, UUID.randomUUID().toString());
+        claims.put(Claims.ISSUED_AT, System.currentTimeMillis() / 1000);
+        claims.put(Claims.EXPIRATION, expiresAt.getEpochSecond());
+
+        return jwtSigner.createToken(claims);
+    }
+
+    /**
+     * @return time to live of refresh token
+     */
+    public Duration getRefreshTokenTtl() {
+        return Duration.ofMillis((long) jwtExpirationMs * REFRESH_TOKEN_TTL_FACTOR);
+    }
+
+    /**
+     * Verifies token signature and returns its claims
+     *
+     * @param token compact JWT
+     * @return token claims
+     */
+    public Map<String, Object> parseClaims(String token) {
+        return jwtSigner.parseClaims(token);
+    }
+
+    /**
+     * Extracts role name from role claim, which is either serialized {@link GrantedAuthority} or plain string
+     *
+     * @param claims token claims
+     * @return role name or null if claim is missing or has unexpected format
+     */
+    public static String getRole(Map<String, Object> claims) {
+        Object roleClaim = claims.get(ROLE_CLAIM);
+
+        if (roleClaim instanceof Map<?, ?> authority && authority.get("authority") instanceof String role) {
+            return role;
+        }
 
-        return Jwts.builder()
-                .setSubject((userPrincipal.getUsername()))
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs * 3L))
-                .signWith(SignatureAlgorithm.HS512, jwtSecret)
-                .compact();
+        return roleClaim instanceof String role ? role : null;
     }
 }
@@ -0,0 +1,86 @@
+package kz.smarthealth.userservice.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.UnsupportedJwtException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Builds and verifies compact JWTs signed by the current key of {@link JwtKeyRing}. Tokens carry the key id in "kid"
+ * header, so other services can verify them with the public keys published in JWKS.
+ */
+public class KeyRingJwtSigner implements JwtSigner {
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_URL_DECODER = Base64.getUrlDecoder();
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JwtKeyRing keyRing;
+
+    public KeyRingJwtSigner(JwtKeyRing keyRing) {
+        this.keyRing = keyRing;
+    }
+
+    @Override
+    public String createToken(Map<String, Object> claims) {
+        JwtSigningKey key = keyRing.getCurrentKey();
+        String encodedPayload;
+
+        try {
+            encodedPayload = BASE64_URL.encodeToString(objectMapper.writeValueAsBytes(claims));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize JWT claims", e);
+        }
+
+        String content = key.getEncodedHeader() + '.' + encodedPayload;
+        byte[] signature = key.sign(content.getBytes(StandardCharsets.US_ASCII));
+
+        return content + '.' + BASE64_URL.encodeToString(signature);
+    }
+
+    @Override
+    public Map<String, Object> parseClaims(String token) {
+        int headerEnd = token.indexOf('.');
+        int payloadEnd = token.indexOf('.', headerEnd + 1);
+
+        if (headerEnd < 0 || payloadEnd < 0 || token.indexOf('.', payloadEnd + 1) >= 0) {
+            throw new MalformedJwtException("JWT must consist of header, payload and signature");
+        }
+
+        try {
+            Map<String, Object> header = objectMapper.readValue(
+                    BASE64_URL_DECODER.decode(token.substring(0, headerEnd)), MAP_TYPE);
+
+            if (!(header.get("kid") instanceof String kid)) {
+                throw new UnsupportedJwtException("JWT without key id is not supported");
+            }
+
+            JwtSigningKey key = keyRing.findKey(kid)
+                    .orElseThrow(() -> new SignatureException("JWT is signed with unknown key " + kid));
+
+            // algorithm is bound to the key, a token cannot choose another one
+            if (!key.getAlgorithm().getValue().equals(header.get("alg"))) {
+                throw new UnsupportedJwtException("JWT algorithm does not match the key");
+            }
+
+            if (!key.verify(token.substring(0, payloadEnd).getBytes(StandardCharsets.US_ASCII),
+                    BASE64_URL_DECODER.decode(token.substring(payloadEnd + 1)))) {
+                throw new SignatureException("JWT signature does not match");
+            }
+
+            return objectMapper.readValue(BASE64_URL_DECODER.decode(token.substring(headerEnd + 1, payloadEnd)),
+                    MAP_TYPE);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new MalformedJwtException("Unable to decode JWT", e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package kz.smarthealth.userservice.security;
+
+import kz.smarthealth.userservice.config.PasswordHashingConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Reports BCrypt strength and calibration result in actuator info endpoint
+ */
+@Component
+@RequiredArgsConstructor
+public class PasswordHashingInfoContributor implements InfoContributor {
+
+    private final BCryptCalibration bCryptCalibration;
+    private final PasswordHashingConfig passwordHashingConfig;
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        builder.withDetail("passwordHashing", Map.of("bcrypt", Map.of(
+                "strength", passwordHashingConfig.getBcryptStrength(),
+                "recommendedStrength", bCryptCalibration.strength(),
+                "calibrated", bCryptCalibration.calibrated(),
+                "targetMillis", bCryptCalibration.targetMillis(),
+                "measuredMillis", bCryptCalibration.measuredMillis())));
+    }
+}
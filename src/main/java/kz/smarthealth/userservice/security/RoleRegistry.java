@@ -0,0 +1,93 @@
+package kz.smarthealth.userservice.security;
+
+import kz.smarthealth.userservice.model.dto.UserRole;
+import kz.smarthealth.userservice.model.entity.RoleEntity;
+import kz.smarthealth.userservice.model.entity.RolesMaskConverter;
+import kz.smarthealth.userservice.repository.RoleRepository;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Roles of the static "roles" table and authorities shared by every user.
+ * <p>
+ * User roles are stored as a bitmask, see {@link UserRole#getMask()}, so the table is only reference data. It is
+ * loaded once at startup, which fails unless the table holds exactly the roles of {@link UserRole}, each with the id
+ * its bit is derived from. Authorities are created once per role, and lists of them once per combination of roles.
+ */
+@Component
+public class RoleRegistry {
+
+    private static final Map<String, GrantedAuthority> AUTHORITIES = Arrays.stream(UserRole.values())
+            .collect(Collectors.toUnmodifiableMap(UserRole::name, role -> new SimpleGrantedAuthority(role.name())));
+    private static final List<List<GrantedAuthority>> AUTHORITIES_BY_MASK = buildAuthoritiesByMask();
+
+    public RoleRegistry(RoleRepository roleRepository) {
+        Map<UserRole, RoleEntity> roleEntities = new EnumMap<>(UserRole.class);
+
+        for (RoleEntity roleEntity : roleRepository.findAll()) {
+            UserRole role = toUserRole(roleEntity.getName());
+
+            if (roleEntity.getId() != role.ordinal() + 1) {
+                throw new IllegalStateException("Role " + role + " has id " + roleEntity.getId() + " in roles table, "
+                        + (role.ordinal() + 1) + " expected");
+            }
+
+            roleEntities.put(role, roleEntity);
+        }
+
+        Set<UserRole> missingRoles = EnumSet.allOf(UserRole.class);
+        missingRoles.removeAll(roleEntities.keySet());
+
+        if (!missingRoles.isEmpty()) {
+            throw new IllegalStateException("Roles missing in roles table: " + missingRoles);
+        }
+    }
+
+    /**
+     * @param role role name
+     * @return shared authority of a known role, new authority otherwise
+     */
+    public static GrantedAuthority getAuthority(String role) {
+        GrantedAuthority authority = AUTHORITIES.get(role);
+
+        return authority != null ? authority : new SimpleGrantedAuthority(role);
+    }
+
+    /**
+     * @param roles user roles
+     * @return shared, unmodifiable list of authorities of the roles
+     */
+    public static List<GrantedAuthority> getAuthorities(Set<UserRole> roles) {
+        return AUTHORITIES_BY_MASK.get(RolesMaskConverter.toMask(roles));
+    }
+
+    private static List<List<GrantedAuthority>> buildAuthoritiesByMask() {
+        List<List<GrantedAuthority>> authoritiesByMask = new ArrayList<>();
+
+        for (int mask = 0; mask < 1 << UserRole.values().length; mask++) {
+            authoritiesByMask.add(RolesMaskConverter.toRoles((short) mask).stream()
+                    .map(role -> AUTHORITIES.get(role.name()))
+                    .toList());
+        }
+
+        return List.copyOf(authoritiesByMask);
+    }
+
+    private static UserRole toUserRole(String name) {
+        try {
+            return UserRole.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Unknown role in roles table: " + name, e);
+        }
+    }
+}
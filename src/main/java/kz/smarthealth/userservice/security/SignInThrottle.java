@@ -0,0 +1,85 @@
+package kz.smarthealth.userservice.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import kz.smarthealth.userservice.config.SignInThrottleConfig;
+import kz.smarthealth.userservice.exception.CustomException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static kz.smarthealth.userservice.util.MessageSource.SIGN_IN_THROTTLED;
+
+/**
+ * Limits sign in attempts per email and per client IP, so that password guessing is rejected before it costs a
+ * database query and a password hash
+ */
+@Component
+public class SignInThrottle {
+
+    private static final String METRIC_NAME = "security.sign-in.throttled";
+
+    private final StripedTokenBuckets emailBuckets;
+    private final StripedTokenBuckets ipBuckets;
+    private final Counter emailThrottledCounter;
+    private final Counter ipThrottledCounter;
+
+    public SignInThrottle(SignInThrottleConfig config, MeterRegistry meterRegistry) {
+        this.emailBuckets = new StripedTokenBuckets(config.getSlots(), config.getEmailCapacity(),
+                Duration.ofSeconds(config.getEmailRefillPeriodSeconds()));
+        this.ipBuckets = new StripedTokenBuckets(config.getSlots(), config.getIpCapacity(),
+                Duration.ofSeconds(config.getIpRefillPeriodSeconds()));
+        this.emailThrottledCounter = Counter.builder(METRIC_NAME)
+                .description("Sign in attempts rejected by throttling")
+                .tag("key", "email")
+                .register(meterRegistry);
+        this.ipThrottledCounter = Counter.builder(METRIC_NAME)
+                .description("Sign in attempts rejected by throttling")
+                .tag("key", "ip")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes one attempt from both the email and the client IP buckets. Both buckets are checked before either is
+     * charged, so an attempt rejected by one bucket takes nothing from the other.
+     *
+     * @param email    email user signs in with
+     * @param clientIp IP address of the client, may be null
+     * @throws CustomException with 429 status when either bucket is empty
+     */
+    public void checkAttempt(String email, String clientIp) {
+        String emailKey = email.trim().toLowerCase(Locale.ROOT);
+
+        if (clientIp != null) {
+            rejectIfWaiting(ipBuckets.getWaitMillis(clientIp), ipThrottledCounter);
+        }
+
+        rejectIfWaiting(emailBuckets.getWaitMillis(emailKey), emailThrottledCounter);
+
+        // a concurrent attempt may still take the last permit in between
+        if (clientIp != null) {
+            rejectIfWaiting(ipBuckets.tryAcquire(clientIp), ipThrottledCounter);
+        }
+
+        rejectIfWaiting(emailBuckets.tryAcquire(emailKey), emailThrottledCounter);
+    }
+
+    private void rejectIfWaiting(long waitMillis, Counter throttledCounter) {
+        if (waitMillis > 0) {
+            throttledCounter.increment();
+            throw throttled(waitMillis);
+        }
+    }
+
+    private CustomException throttled(long waitMillis) {
+        return CustomException.builder()
+                .httpStatus(HttpStatus.TOO_MANY_REQUESTS)
+                .error(SIGN_IN_THROTTLED.name())
+                .errorMessage(SIGN_IN_THROTTLED.getText())
+                .retryAfterSeconds(TimeUnit.MILLISECONDS.toSeconds(waitMillis + 999))
+                .build();
+    }
+}
@@ -0,0 +1,35 @@
+package kz.smarthealth.userservice.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt password encoder which asks to re-hash passwords hashed with a lower strength. Unlike
+ * {@link BCryptPasswordEncoder}, it does not fail on stored hashes which are not BCrypt hashes, they are left as is.
+ * Hashes are never downgraded, so replicas configured with different strengths during a rollout do not re-hash the
+ * same password back and forth.
+ */
+public class StrengthAwareBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private final int strength;
+
+    public StrengthAwareBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+
+        return matcher.matches() && Integer.parseInt(matcher.group(1)) < strength;
+    }
+}
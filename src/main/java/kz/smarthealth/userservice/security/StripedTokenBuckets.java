@@ -0,0 +1,157 @@
+package kz.smarthealth.userservice.security;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free, fixed-size table of token buckets keyed by string.
+ * <p>
+ * Every bucket is a single long updated by CAS: 24 bits of key fingerprint and 40 bits of the time in milliseconds at
+ * which the bucket is full again. Keeping that time instead of a token count and last refill time is the GCRA form of
+ * the token bucket and behaves exactly the same: each permit moves the time forward by one refill interval, and a
+ * permit is granted while the time is no further than capacity intervals ahead.
+ * <p>
+ * A key may land in one of {@value #WAYS} neighbouring slots. A slot whose bucket is full again carries no state, so
+ * it is taken over by the next key that needs a slot. When all slots of a set are busy, the one closest to being full
+ * is taken over together with its state, so the new key is charged against the bucket it evicts. Cycling through keys
+ * of one set therefore never resets the bucket of a throttled key: the set fails closed, and an evicted key coming
+ * back takes over a bucket no fuller than its own was. Memory is fixed, 8 bytes per slot, no matter how many distinct
+ * keys are seen.
+ */
+public class StripedTokenBuckets {
+
+    static final int WAYS = 4;
+
+    private static final int FINGERPRINT_BITS = 24;
+    private static final int TIME_BITS = Long.SIZE - FINGERPRINT_BITS;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final long capacity;
+    private final long refillIntervalMillis;
+    private final long seed = ThreadLocalRandom.current().nextLong();
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+
+    /**
+     * @param slots        number of buckets, rounded up to the power of two
+     * @param capacity     number of permits a full bucket holds
+     * @param refillPeriod time in which an empty bucket becomes full
+     */
+    public StripedTokenBuckets(int slots, int capacity, Duration refillPeriod) {
+        this(slots, capacity, refillPeriod, System::nanoTime);
+    }
+
+    StripedTokenBuckets(int slots, int capacity, Duration refillPeriod, LongSupplier nanoClock) {
+        if (slots < WAYS || capacity < 1 || refillPeriod.toMillis() < capacity) {
+            throw new IllegalArgumentException("Invalid token bucket settings");
+        }
+
+        int size = Integer.highestOneBit(slots - 1) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.capacity = capacity;
+        this.refillIntervalMillis = refillPeriod.toMillis() / capacity;
+        this.nanoClock = nanoClock;
+        // time starts at 1, so that an empty slot (0) never looks like a bucket
+        this.startNanos = nanoClock.getAsLong() - TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Takes one permit from the bucket of the key
+     *
+     * @param key bucket key
+     * @return 0 if permit is granted, otherwise milliseconds until the next permit is available
+     */
+    public long tryAcquire(String key) {
+        return acquire(key, true);
+    }
+
+    /**
+     * Checks the bucket of the key without taking a permit
+     *
+     * @param key bucket key
+     * @return 0 if a permit would be granted, otherwise milliseconds until the next permit is available
+     */
+    public long getWaitMillis(String key) {
+        return acquire(key, false);
+    }
+
+    private long acquire(String key, boolean consume) {
+        long hash = hash(key);
+        long fingerprint = (hash >>> TIME_BITS) == 0 ? 1 : hash >>> TIME_BITS;
+        int set = (int) hash & mask;
+
+        while (true) {
+            long now = now();
+            int index = -1;
+            long current = 0;
+            long fullestTime = Long.MAX_VALUE;
+
+            for (int way = 0; way < WAYS; way++) {
+                int slot = (set + way) & mask;
+                long state = slots.get(slot);
+
+                if (state != 0 && state >>> TIME_BITS == fingerprint) {
+                    index = slot;
+                    current = state;
+                    break;
+                }
+
+                // empty slot is reused first, then the bucket which is (closest to) full
+                long fullAt = state == 0 ? 0 : state & TIME_MASK;
+
+                if (fullAt < fullestTime) {
+                    fullestTime = fullAt;
+                    index = slot;
+                    current = state;
+                }
+            }
+
+            // a taken over slot keeps the state of the evicted bucket, full if the slot was empty or idle
+            long fullAt = Math.max(current & TIME_MASK, now);
+            long nextFullAt = fullAt + refillIntervalMillis;
+            long waitMillis = nextFullAt - now - capacity * refillIntervalMillis;
+
+            if (waitMillis > 0) {
+                return waitMillis;
+            }
+
+            if (!consume) {
+                return 0;
+            }
+
+            if (slots.compareAndSet(index, current, fingerprint << TIME_BITS | nextFullAt)) {
+                return 0;
+            }
+        }
+    }
+
+    private long now() {
+        return TimeUnit.NANOSECONDS.toMillis(nanoClock.getAsLong() - startNanos);
+    }
+
+    /**
+     * Seeded 64-bit FNV-1a with a final avalanche, so that keys chosen by a client can not be made to collide
+     */
+    private long hash(String key) {
+        long hash = 0xcbf29ce484222325L ^ seed;
+
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+}
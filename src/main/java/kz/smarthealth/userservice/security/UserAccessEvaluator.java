@@ -0,0 +1,60 @@
+package kz.smarthealth.userservice.security;
+
+import kz.smarthealth.userservice.model.dto.UserRole;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Access rules to user data, referenced from @PreAuthorize as "@userAccess" and applied per id to batch requests
+ */
+@Component("userAccess")
+public class UserAccessEvaluator {
+
+    private static final Set<String> STAFF_ROLES = Set.of(UserRole.ROLE_ADMIN.name(), UserRole.ROLE_DOCTOR.name(),
+            UserRole.ROLE_ORGANIZATION.name());
+
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+    /**
+     * Staff may read any user, other users only themselves
+     *
+     * @param authentication current authentication
+     * @param id             id of user to read
+     * @return whether user can be read
+     */
+    public boolean canRead(Authentication authentication, UUID id) {
+        return isStaff(authentication) || isSelf(authentication, id);
+    }
+
+    /**
+     * @param authentication current authentication
+     * @param id             user id
+     * @return whether authenticated user is the user of the id
+     */
+    public boolean isSelf(Authentication authentication, UUID id) {
+        return authentication != null && !trustResolver.isAnonymous(authentication)
+                && authentication.getPrincipal() instanceof UserDetails userDetails
+                && userDetails.getUsername().equals(id.toString());
+    }
+
+    private boolean isStaff(Authentication authentication) {
+        if (authentication == null) {
+            return false;
+        }
+
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (STAFF_ROLES.contains(authority.getAuthority())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,131 @@
+package kz.smarthealth.userservice.service;
+
+import kz.smarthealth.userservice.cache.UserCache;
+import kz.smarthealth.userservice.config.AmazonConfig;
+import kz.smarthealth.userservice.exception.CustomException;
+import kz.smarthealth.userservice.model.dto.UserDTO;
+import kz.smarthealth.userservice.model.projection.UserProfileRow;
+import kz.smarthealth.userservice.repository.ReactiveUserRepository;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static kz.smarthealth.userservice.util.MessageSource.USER_BY_ID_NOT_FOUND;
+
+/**
+ * Non-blocking reads of users, the counterpart of reads of {@link UserService} for API v2.
+ * <p>
+ * Users are served from {@link UserCache} shared with {@link UserService}. Users which are not cached are queried
+ * over R2DBC and put into the cache, unless an invalidation happened in the meantime. AWS S3 client is blocking, so
+ * its calls run on threads of their own, at most "aws.s3.max-blocking-calls" at once, never on the thread the query
+ * completes on. Queries go to the database of "database.r2dbc.url", which is the primary, so reads never lag behind
+ * writes.
+ */
+@Service
+public class ReactiveUserService implements DisposableBean {
+
+    private final ReactiveUserRepository reactiveUserRepository;
+    private final UserCache userCache;
+    private final AmazonS3Service amazonS3Service;
+    private final Scheduler s3Scheduler;
+
+    public ReactiveUserService(ReactiveUserRepository reactiveUserRepository, UserCache userCache,
+                               AmazonS3Service amazonS3Service, AmazonConfig amazonConfig) {
+        this.reactiveUserRepository = reactiveUserRepository;
+        this.userCache = userCache;
+        this.amazonS3Service = amazonS3Service;
+        this.s3Scheduler = Schedulers.newBoundedElastic(amazonConfig.getS3MaxBlockingCalls(),
+                Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "s3");
+    }
+
+    /**
+     * Retrieves user by id. The returned user must not be modified.
+     *
+     * @param id of user
+     * @return user information, error with 404 if user does not exist
+     */
+    public Mono<UserDTO> getUserById(UUID id) {
+        UserDTO cached = userCache.getIfPresent(id);
+
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        long cacheVersion = userCache.getVersion();
+
+        return reactiveUserRepository.findProfileById(id)
+                .map(UserProfileRow::toUserDTO)
+                .doOnNext(userDTO -> userCache.putIfNotInvalidated(id, userDTO, cacheVersion))
+                .switchIfEmpty(Mono.error(() -> userNotFound(id)));
+    }
+
+    /**
+     * Retrieves users by ids, querying users which are not cached with a single query
+     *
+     * @param ids of users
+     * @return users by id, users which do not exist are absent
+     */
+    public Mono<Map<UUID, UserDTO>> getUsersByIds(Collection<UUID> ids) {
+        Map<UUID, UserDTO> users = new HashMap<>(ids.size() * 2);
+        List<UUID> missingIds = new ArrayList<>();
+
+        for (UUID id : ids) {
+            UserDTO cached = userCache.getIfPresent(id);
+
+            if (cached == null) {
+                missingIds.add(id);
+            } else {
+                users.put(id, cached);
+            }
+        }
+
+        if (missingIds.isEmpty()) {
+            return Mono.just(users);
+        }
+
+        long cacheVersion = userCache.getVersion();
+
+        return reactiveUserRepository.findProfilesByIds(missingIds)
+                .map(UserProfileRow::toUserDTO)
+                .doOnNext(userDTO -> userCache.putIfNotInvalidated(userDTO.getId(), userDTO, cacheVersion))
+                .collect(() -> users, (found, userDTO) -> found.put(userDTO.getId(), userDTO));
+    }
+
+    /**
+     * Generates AWS S3 pre-signed url for user profile picture
+     *
+     * @param id user id
+     * @return pre-signed url, empty string if user has no profile picture, error with 404 if user does not exist
+     */
+    public Mono<String> getProfilePicturePreSignedUrl(UUID id) {
+        return reactiveUserRepository.findProfilePictureFileNameById(id)
+                .switchIfEmpty(Mono.error(() -> userNotFound(id)))
+                .flatMap(fileName -> fileName.isEmpty()
+                        ? Mono.just(StringUtils.EMPTY)
+                        : Mono.fromCallable(() -> amazonS3Service.generateProfilePicturePreSignedUrl(fileName))
+                        .subscribeOn(s3Scheduler));
+    }
+
+    @Override
+    public void destroy() {
+        s3Scheduler.dispose();
+    }
+
+    private static CustomException userNotFound(UUID id) {
+        return CustomException.builder()
+                .httpStatus(HttpStatus.NOT_FOUND)
+                .errorMessage(USER_BY_ID_NOT_FOUND.getText(id.toString()))
+                .build();
+    }
+}
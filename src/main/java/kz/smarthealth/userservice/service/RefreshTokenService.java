@@ -0,0 +1,181 @@
+package kz.smarthealth.userservice.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import kz.smarthealth.userservice.exception.CustomException;
+import kz.smarthealth.userservice.model.dto.TokenResponseDTO;
+import kz.smarthealth.userservice.model.entity.RefreshTokenEntity;
+import kz.smarthealth.userservice.repository.RefreshTokenRepository;
+import kz.smarthealth.userservice.security.JwtUtils;
+import kz.smarthealth.userservice.security.RoleRegistry;
+import kz.smarthealth.userservice.security.UserDetailsImpl;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static kz.smarthealth.userservice.util.MessageSource.INVALID_REFRESH_TOKEN;
+
+/**
+ * Service class used to issue and rotate refresh tokens.
+ * <p>
+ * Every sign in starts a new token family. Each refresh replaces the family's token with a new one, so a token can be
+ * used only once. Presenting an already rotated token means it was leaked, and the whole family is revoked.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtUtils jwtUtils;
+
+    @Value("${jwt.refresh-token.purge-batch-size}")
+    private int purgeBatchSize;
+
+    /**
+     * Starts new token family for authenticated user
+     *
+     * @param authentication authenticated user
+     * @return refresh token
+     */
+    public String createRefreshToken(Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        UUID familyId = UUID.randomUUID();
+        Instant expiresAt = Instant.now().plus(jwtUtils.getRefreshTokenTtl());
+        String refreshToken = jwtUtils.generateRefreshToken(authentication, familyId, expiresAt);
+        refreshTokenRepository.save(RefreshTokenEntity.builder()
+                .familyId(familyId)
+                .userId(userDetails.getId())
+                .tokenHash(hash(refreshToken))
+                .expiresAt(OffsetDateTime.ofInstant(expiresAt, ZoneOffset.UTC))
+                .build());
+
+        return refreshToken;
+    }
+
+    /**
+     * Issues new access token and rotates refresh token. User data is taken from the refresh token itself, so only
+     * the token family row is touched.
+     *
+     * @param refreshToken current refresh token
+     * @return new access token and refresh token
+     */
+    public TokenResponseDTO refresh(String refreshToken) {
+        Map<String, Object> claims = parseClaims(refreshToken);
+        UUID familyId = UUID.fromString((String) claims.get(JwtUtils.FAMILY_ID_CLAIM));
+        UserDetailsImpl userDetails = new UserDetailsImpl(
+                UUID.fromString((String) claims.get(JwtUtils.USER_ID_CLAIM)),
+                (String) claims.get(Claims.SUBJECT),
+                null,
+                List.of(RoleRegistry.getAuthority(JwtUtils.getRole(claims))));
+        Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null,
+                userDetails.getAuthorities());
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(jwtUtils.getRefreshTokenTtl());
+        String newRefreshToken = jwtUtils.generateRefreshToken(authentication, familyId, expiresAt);
+        int rotated = refreshTokenRepository.rotate(familyId, hash(refreshToken), hash(newRefreshToken),
+                OffsetDateTime.ofInstant(expiresAt, ZoneOffset.UTC), OffsetDateTime.ofInstant(now, ZoneOffset.UTC));
+
+        if (rotated == 0) {
+            // the token was already rotated or the family was revoked, so treat the family as compromised
+            if (refreshTokenRepository.revoke(familyId) > 0) {
+                log.warn("Refresh token reuse detected, token family revoked, familyId={}", familyId);
+            }
+
+            throw invalidRefreshToken();
+        }
+
+        return TokenResponseDTO.builder()
+                .accessToken(jwtUtils.generateJwtToken(authentication))
+                .refreshToken(newRefreshToken)
+                .build();
+    }
+
+    /**
+     * Deletes expired token families. Families are deleted in batches, so that a large backlog does not result in one
+     * long running transaction.
+     */
+    @Scheduled(fixedDelayString = "${jwt.refresh-token.purge-interval-ms}",
+            initialDelayString = "${jwt.refresh-token.purge-interval-ms}")
+    public void purgeExpiredTokens() {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        long startedAt = System.nanoTime();
+        int total = 0;
+        int deleted;
+
+        do {
+            deleted = refreshTokenRepository.deleteExpired(now, purgeBatchSize);
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+
+        log.info("Purged {} expired refresh token families in {} ms", total,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    /**
+     * Verifies refresh token and returns its claims
+     *
+     * @param refreshToken refresh token
+     * @return token claims
+     */
+    private Map<String, Object> parseClaims(String refreshToken) {
+        Map<String, Object> claims;
+
+        try {
+            claims = jwtUtils.parseClaims(refreshToken);
+        } catch (JwtException e) {
+            log.debug("Invalid refresh token: {}", e.getMessage());
+
+            throw invalidRefreshToken();
+        }
+
+        if (!(claims.get(JwtUtils.FAMILY_ID_CLAIM) instanceof String)
+                || !(claims.get(JwtUtils.USER_ID_CLAIM) instanceof String)
+                || !(claims.get(Claims.SUBJECT) instanceof String)
+                || JwtUtils.getRole(claims) == null
+                || !(claims.get(Claims.EXPIRATION) instanceof Number expiration)
+                || TimeUnit.SECONDS.toMillis(expiration.longValue()) <= System.currentTimeMillis()) {
+            throw invalidRefreshToken();
+        }
+
+        return claims;
+    }
+
+    private CustomException invalidRefreshToken() {
+        return CustomException.builder()
+                .httpStatus(HttpStatus.UNAUTHORIZED)
+                .error(INVALID_REFRESH_TOKEN.name())
+                .errorMessage(INVALID_REFRESH_TOKEN.getText())
+                .build();
+    }
+
+    /**
+     * Calculates SHA-256 hash of token, which is stored instead of the token itself
+     *
+     * @param token refresh token
+     * @return hash of the token
+     */
+    private static byte[] hash(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+}
@@ -1,30 +1,43 @@
 package kz.smarthealth.userservice.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import kz.smarthealth.userservice.cache.BatchingUserLoader;
+import kz.smarthealth.userservice.cache.SingleFlight;
+import kz.smarthealth.userservice.cache.UserCache;
+import kz.smarthealth.userservice.datasource.ReadYourWrites;
 import kz.smarthealth.userservice.exception.CustomException;
+import kz.smarthealth.userservice.mapper.UserMapper;
 import kz.smarthealth.userservice.model.dto.*;
-import kz.smarthealth.userservice.model.entity.RoleEntity;
 import kz.smarthealth.userservice.model.entity.UserEntity;
+import kz.smarthealth.userservice.model.projection.UserCredentials;
+import kz.smarthealth.userservice.model.projection.UserFieldsRow;
+import kz.smarthealth.userservice.model.projection.UserProfileRow;
 import kz.smarthealth.userservice.repository.ContactRepository;
-import kz.smarthealth.userservice.repository.RoleRepository;
 import kz.smarthealth.userservice.repository.UserRepository;
 import kz.smarthealth.userservice.security.JwtUtils;
+import kz.smarthealth.userservice.security.RoleRegistry;
+import kz.smarthealth.userservice.security.SignInThrottle;
+import kz.smarthealth.userservice.security.UserDetailsImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 import static kz.smarthealth.userservice.util.MessageSource.*;
 
@@ -39,16 +52,44 @@ import static kz.smarthealth.userservice.util.MessageSource.*;
 public class UserService {
 
     private static final Set<String> PROFILE_PICTURE_FILE_CONTENT_TYPES = Set.of("image/jpeg", "image/jpg", "image/png");
+    private static final String USER_NOT_FOUND_PASSWORD = "userNotFoundPassword";
+    private static final String USER_FIELDS_LOOKUP = "user-fields";
+    private static final String PROFILE_PICTURE_LOOKUP = "profile-picture";
 
     private final UserRepository userRepository;
     private final ContactRepository contactRepository;
-    private final RoleRepository roleRepository;
-    private final ModelMapper modelMapper;
-    private final AuthenticationManager authenticationManager;
+    private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtils jwtUtils;
+    private final RefreshTokenService refreshTokenService;
+    private final SignInThrottle signInThrottle;
     private final AmazonS3Service amazonS3Service;
     private final PatientKafkaProducerService patientKafkaProducerService;
+    private final UserCache userCache;
+    private final SingleFlight singleFlight;
+    private BatchingUserLoader batchingUserLoader;
+    private ReadYourWrites readYourWrites;
+    private volatile String userNotFoundEncodedPassword;
+
+    /**
+     * Loader is present only when batching of user loads is enabled
+     *
+     * @param batchingUserLoader loads users missing from the cache in batches
+     */
+    @Autowired(required = false)
+    public void setBatchingUserLoader(BatchingUserLoader batchingUserLoader) {
+        this.batchingUserLoader = batchingUserLoader;
+    }
+
+    /**
+     * Present only when read-only transactions are routed to replicas
+     *
+     * @param readYourWrites keeps reads of recently written users on primary
+     */
+    @Autowired(required = false)
+    public void setReadYourWrites(ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
 
     /**
      * Creates new user
@@ -59,12 +100,12 @@ public class UserService {
     @Transactional
     public void signUp(UserDTO userDTO) {
         validateUserData(userDTO);
-        UserEntity userEntity = modelMapper.map(userDTO, UserEntity.class);
+        UserEntity userEntity = userMapper.toUserEntity(userDTO);
         userEntity.setPassword(passwordEncoder.encode(userDTO.getPassword()));
-        userEntity.setRoles(getUserRoles(userDTO.getRoles()));
         userEntity = userRepository.save(userEntity);
         userEntity.getContact().setUser(userEntity);
         contactRepository.save(userEntity.getContact());
+        userCache.invalidate(userEntity.getId());
         sendPatient(userEntity);
     }
 
@@ -110,77 +151,199 @@ public class UserService {
         }
     }
 
-    /**
-     * Fetches user roles by role names
-     *
-     * @param roles set of role names
-     * @return set of role entity
-     */
-    private Set<RoleEntity> getUserRoles(Set<UserRole> roles) {
-        Set<RoleEntity> roleEntitySet = new HashSet<>(roles.size());
-
-        roles.forEach(role -> roleEntitySet.add(
-                roleRepository.findByName(role.name())
-                        .orElseThrow(() -> CustomException.builder()
-                                .httpStatus(HttpStatus.BAD_REQUEST)
-                                .errorMessage(ROLE_BY_NAME_NOT_FOUND.getText(role.name()))
-                                .build())));
-
-        return roleEntitySet;
-    }
-
     /**
      * Authenticates user.
+     * <p>
+     * Attempts are throttled per email and client IP before anything else. Credentials are fetched with a single
+     * narrow query, and the password is verified afterwards with no transaction open, so a pooled connection is not
+     * held while the password is being hashed. Credentials and the user are read from primary, so that a new account or
+     * a changed password take effect at once.
      *
      * @param signInDTO user sign in information
+     * @param clientIp  IP address of the client
      * @return access token and refresh token
      */
-    @Transactional
-    public SignInResponseDTO signIn(SignInDTO signInDTO) {
-        Authentication authenticate = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(
-                signInDTO.getEmail(), signInDTO.getPassword()));
-        UserEntity userEntity = userRepository.findByEmail(signInDTO.getEmail()).orElseThrow(
-                () -> CustomException.builder()
-                        .httpStatus(HttpStatus.NOT_FOUND)
-                        .errorMessage(USER_BY_EMAIL_NOT_FOUND.getText(signInDTO.getEmail()))
-                        .build());
-        String token = jwtUtils.generateJwtToken(authenticate);
-        String refreshToken = jwtUtils.generateRefreshToken(authenticate);
-        userEntity.setRefreshToken(refreshToken);
-        userRepository.save(userEntity);
-        UserDTO userDTO = modelMapper.map(userEntity, UserDTO.class);
-        userDTO.setRoles(userEntity.getRoles().stream()
-                .map(entity -> UserRole.valueOf(entity.getName()))
-                .collect(Collectors.toSet()));
+    public SignInResponseDTO signIn(SignInDTO signInDTO, String clientIp) {
+        signInThrottle.checkAttempt(signInDTO.getEmail(), clientIp);
+        UserCredentials userCredentials = readFromPrimary(() ->
+                userRepository.findCredentialsByEmail(signInDTO.getEmail()).orElse(null));
+
+        if (userCredentials == null) {
+            // hash anyway, so that response time does not reveal whether the email is registered
+            passwordEncoder.matches(signInDTO.getPassword(), getUserNotFoundEncodedPassword());
+
+            throw new BadCredentialsException(BAD_CREDENTIALS.getText());
+        }
+
+        if (!passwordEncoder.matches(signInDTO.getPassword(), userCredentials.password())) {
+            throw new BadCredentialsException(BAD_CREDENTIALS.getText());
+        }
+
+        rehashPasswordIfNeeded(userCredentials, signInDTO.getPassword());
+
+        List<GrantedAuthority> authorities = RoleRegistry.getAuthorities(userCredentials.roles());
+        UserDetailsImpl userDetails = new UserDetailsImpl(userCredentials.id(), signInDTO.getEmail(), null,
+                authorities);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
+        String token = jwtUtils.generateJwtToken(authentication);
+        String refreshToken = refreshTokenService.createRefreshToken(authentication);
 
         return SignInResponseDTO.builder()
                 .accessToken(token)
                 .refreshToken(refreshToken)
-                .user(userDTO)
+                .user(readFromPrimary(() -> getUserById(userCredentials.id())))
                 .build();
     }
 
     /**
-     * Retrieves user by id
+     * Re-hashes password when it is stored with a lower BCrypt strength than the configured one. Raw password is
+     * known only at sign in, so this is the only moment to do it.
+     *
+     * @param userCredentials credentials of authenticated user
+     * @param rawPassword     password user has signed in with
+     */
+    private void rehashPasswordIfNeeded(UserCredentials userCredentials, String rawPassword) {
+        if (!passwordEncoder.upgradeEncoding(userCredentials.password())) {
+            return;
+        }
+
+        try {
+            userRepository.updatePassword(userCredentials.id(), userCredentials.password(),
+                    passwordEncoder.encode(rawPassword));
+            userCache.invalidate(userCredentials.id());
+        } catch (CustomException e) {
+            // hashing pool is overloaded, sign in should not fail because of that, password is re-hashed next time
+            log.debug("Password re-hashing skipped, userId={}", userCredentials.id());
+        }
+    }
+
+    /**
+     * Lazily encodes password which is verified when user is not found by email
+     *
+     * @return encoded password
+     */
+    private String getUserNotFoundEncodedPassword() {
+        if (userNotFoundEncodedPassword == null) {
+            userNotFoundEncodedPassword = passwordEncoder.encode(USER_NOT_FOUND_PASSWORD);
+        }
+
+        return userNotFoundEncodedPassword;
+    }
+
+    /**
+     * Retrieves user by id. Users are served from {@link UserCache}, so the returned user must not be modified.
      *
      * @param id of user
      * @return user information
      */
-    @Transactional(readOnly = true)
     public UserDTO getUserById(UUID id) {
-        UserEntity userEntity = findUserById(id);
-        UserDTO userDTO = modelMapper.map(userEntity, UserDTO.class);
-        userDTO.setRoles(userEntity.getRoles().stream()
-                .map(entity -> UserRole.valueOf(entity.getName()))
-                .collect(Collectors.toSet()));
-
-        if (userEntity.getContact() != null) {
-            userDTO.setContact(modelMapper.map(userEntity.getContact(), ContactDTO.class));
+        return userCache.get(id, this::loadUserById);
+    }
+
+    /**
+     * Loads user from DB with a single projection query, no entity is loaded. When batching is enabled, the query is
+     * shared with loads of other users requested at the same time, unless the user has to be read from primary.
+     *
+     * @param id of user
+     * @return user information
+     */
+    private UserDTO loadUserById(UUID id) {
+        // batch queries run on threads of the loader, which would not read from primary
+        if (batchingUserLoader != null && !isPrimaryRequired(id)) {
+            UserDTO userDTO = batchingUserLoader.get(id);
+
+            if (userDTO == null) {
+                throw userNotFound(id);
+            }
+
+            return userDTO;
+        }
+
+        return readAfterWritesOf(id, () -> userRepository.findProfileById(id))
+                .map(UserProfileRow::toUserDTO)
+                .orElseThrow(() -> userNotFound(id));
+    }
+
+    /**
+     * Reads version of user with an index-only query, so that a conditional request for an unchanged user is answered
+     * without loading the user
+     *
+     * @param id of user
+     * @return version of user
+     */
+    public long getUserVersion(UUID id) {
+        return readAfterWritesOf(id, () -> userRepository.findVersionById(id)).orElseThrow(() -> userNotFound(id));
+    }
+
+    /**
+     * Retrieves requested fields of user. A cached user is returned as it is, otherwise only columns of requested
+     * fields are queried and the result is not cached. Concurrent queries of the same fields of a user are coalesced,
+     * unless the user has to be read from primary. Pre-signed url of profile picture is generated only when it is
+     * requested, cached users do not have it.
+     *
+     * @param id     of user
+     * @param fields requested fields
+     * @return user with requested fields set
+     */
+    public UserDTO getUserById(UUID id, Set<UserField> fields) {
+        if (!fields.contains(UserField.PROFILE_PICTURE_PRE_SIGNED_URL)) {
+            UserDTO cached = userCache.getIfPresent(id);
+
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        // a lookup in flight may read a replica, or have started before the write which has to be seen
+        if (isPrimaryRequired(id)) {
+            return loadUserFieldsById(id, fields);
+        }
+
+        return singleFlight.execute(USER_FIELDS_LOOKUP, new UserFieldsKey(id, fields),
+                () -> loadUserFieldsById(id, fields));
+    }
+
+    private UserDTO loadUserFieldsById(UUID id, Set<UserField> fields) {
+        UserFieldsRow row = readAfterWritesOf(id, () -> userRepository.findFieldsById(id, fields))
+                .orElseThrow(() -> userNotFound(id));
+        UserDTO userDTO = row.user();
+
+        if (row.profilePictureFileName() != null) {
+            userDTO.setProfilePicturePreSignedUrl(
+                    amazonS3Service.generateProfilePicturePreSignedUrl(row.profilePictureFileName()));
         }
 
         return userDTO;
     }
 
+    private record UserFieldsKey(UUID id, Set<UserField> fields) {
+    }
+
+    /**
+     * Retrieves users by ids, loading users which are not cached with a single projection query
+     *
+     * @param ids of users
+     * @return users by id, users which do not exist are absent
+     */
+    public Map<UUID, UserDTO> getUsersByIds(Collection<UUID> ids) {
+        return userCache.getAll(ids, this::loadUsersByIds);
+    }
+
+    private Map<UUID, UserDTO> loadUsersByIds(Set<? extends UUID> ids) {
+        List<UUID> idList = List.copyOf(ids);
+        List<UserProfileRow> rows = idList.stream().anyMatch(this::isPrimaryRequired)
+                ? readFromPrimary(() -> userRepository.findProfilesByIds(idList))
+                : userRepository.findProfilesByIds(idList);
+        Map<UUID, UserDTO> users = new HashMap<>(rows.size() * 2);
+
+        for (UserProfileRow row : rows) {
+            UserDTO userDTO = row.toUserDTO();
+            users.put(userDTO.getId(), userDTO);
+        }
+
+        return users;
+    }
+
     /**
      * Retrieves user from DB
      *
@@ -189,10 +352,32 @@ public class UserService {
      */
     private UserEntity findUserById(UUID id) {
         return userRepository.findById(id)
-                .orElseThrow(() -> CustomException.builder()
-                        .httpStatus(HttpStatus.NOT_FOUND)
-                        .errorMessage(USER_BY_ID_NOT_FOUND.getText(id.toString()))
-                        .build());
+                .orElseThrow(() -> userNotFound(id));
+    }
+
+    private boolean isPrimaryRequired(UUID id) {
+        return readYourWrites != null && readYourWrites.isPrimaryRequired(id);
+    }
+
+    /**
+     * Reads from primary when read-only transactions are routed to replicas
+     */
+    private <T> T readFromPrimary(Supplier<T> read) {
+        return readYourWrites == null ? read.get() : readYourWrites.readFromPrimary(read);
+    }
+
+    /**
+     * Reads from primary when the user was written recently, so that the write is seen even if replicas lag behind
+     */
+    private <T> T readAfterWritesOf(UUID id, Supplier<T> read) {
+        return isPrimaryRequired(id) ? readYourWrites.readFromPrimary(read) : read.get();
+    }
+
+    private static CustomException userNotFound(UUID id) {
+        return CustomException.builder()
+                .httpStatus(HttpStatus.NOT_FOUND)
+                .errorMessage(USER_BY_ID_NOT_FOUND.getText(id.toString()))
+                .build();
     }
 
     /**
@@ -202,11 +387,13 @@ public class UserService {
      * @param file image file
      */
     public void uploadProfilePicture(UUID id, MultipartFile file) {
-        UserEntity userEntity = findUserById(id);
+        // entity to be saved is read from primary, a stale version from a replica would fail optimistic locking
+        UserEntity userEntity = readFromPrimary(() -> findUserById(id));
         String fileContentType = getFileContentType(file);
         amazonS3Service.uploadUserProfilePicture(id.toString() + fileContentType, file);
         userEntity.setProfilePictureFileName(id + fileContentType);
         userRepository.save(userEntity);
+        userCache.invalidate(id);
     }
 
     /**
@@ -230,13 +417,23 @@ public class UserService {
     }
 
     /**
-     * Generates AWS S3 pre-signed url for user profile picture
+     * Generates AWS S3 pre-signed url for user profile picture. Concurrent requests of the same user share one lookup
+     * of the user and of the picture in S3, unless the user has to be read from primary.
      *
      * @param id user id
      * @return pre-signed url
      */
     public String getProfilePicturePreSignedUrl(UUID id) {
-        UserEntity userEntity = findUserById(id);
+        // a lookup in flight may read a replica, or have started before the write which has to be seen
+        if (isPrimaryRequired(id)) {
+            return loadProfilePicturePreSignedUrl(id);
+        }
+
+        return singleFlight.execute(PROFILE_PICTURE_LOOKUP, id, () -> loadProfilePicturePreSignedUrl(id));
+    }
+
+    private String loadProfilePicturePreSignedUrl(UUID id) {
+        UserEntity userEntity = readAfterWritesOf(id, () -> findUserById(id));
 
         return amazonS3Service.generateProfilePicturePreSignedUrl(userEntity.getProfilePictureFileName());
     }
@@ -6,8 +6,13 @@ public enum MessageSource {
     EMAIL_IN_USE("%s is already in use, please provide another email address."),
     USER_BY_ID_NOT_FOUND("User with id=%s not found."),
     USER_BY_EMAIL_NOT_FOUND("User with email=%s not found."),
-    ROLE_BY_NAME_NOT_FOUND("Invalid role provided: %s"),
-    INVALID_PROFILE_PICTURE_FILE_EXTENSION("Invalid file extension");
+    BAD_CREDENTIALS("Bad credentials"),
+    INVALID_REFRESH_TOKEN("Refresh token is invalid or expired."),
+    INVALID_PROFILE_PICTURE_FILE_EXTENSION("Invalid file extension"),
+    PASSWORD_HASHING_OVERLOADED("Server is busy, please try again later."),
+    SIGN_IN_THROTTLED("Too many sign in attempts, please try again later."),
+    INVALID_FIELDS("Unknown fields requested: %s"),
+    USER_MODIFIED_CONCURRENTLY("User was modified by another request, please try again.");
 
     private String text;
 
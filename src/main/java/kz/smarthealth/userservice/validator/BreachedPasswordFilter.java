@@ -0,0 +1,225 @@
+package kz.smarthealth.userservice.validator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Bloom filter of SHA-1 hashes of known breached passwords, memory-mapped from a file.
+ * <p>
+ * The bit array lives in the page cache outside of the heap, so a filter of hundreds of millions of hashes costs the
+ * heap nothing. Bit positions are derived from the first 16 bytes of the SHA-1 hash by double hashing, a lookup is
+ * therefore one SHA-1 of the password and at most {@link #getHashFunctions()} reads from the mapped file. A password
+ * which is not in the filter is never reported as breached, a password which is not breached is reported as breached
+ * with the false positive probability the filter was built for.
+ * <p>
+ * File layout: magic, number of hash functions (int), number of bits (long, power of two), bit array.
+ */
+public class BreachedPasswordFilter {
+
+    static final int MAGIC = 0x42504246;
+    static final int HEADER_SIZE = 16;
+    // bit array is mapped in segments, since a single mapping is limited to 2 GB
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final int MAX_HASH_FUNCTIONS = 32;
+    private static final ThreadLocal<MessageDigest> SHA_1 = ThreadLocal.withInitial(BreachedPasswordFilter::sha1);
+
+    private final MappedByteBuffer[] segments;
+    private final int hashFunctions;
+    private final long bitMask;
+
+    private BreachedPasswordFilter(MappedByteBuffer[] segments, int hashFunctions, long bits) {
+        this.segments = segments;
+        this.hashFunctions = hashFunctions;
+        this.bitMask = bits - 1;
+    }
+
+    /**
+     * Maps filter file built by {@link #build(Path, Path, double)} read only
+     *
+     * @param file filter file
+     * @return filter
+     * @throws IOException if file can not be read or is not a filter
+     */
+    public static BreachedPasswordFilter open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                throw new IOException("Not a breached password filter: " + file);
+            }
+
+            int hashFunctions = header.getInt();
+            long bits = header.getLong();
+
+            if (hashFunctions < 1 || hashFunctions > MAX_HASH_FUNCTIONS || Long.bitCount(bits) != 1
+                    || channel.size() < HEADER_SIZE + bits / Byte.SIZE) {
+                throw new IOException("Corrupted breached password filter: " + file);
+            }
+
+            // mapping stays valid after the channel is closed
+            return new BreachedPasswordFilter(map(channel, FileChannel.MapMode.READ_ONLY, bits / Byte.SIZE),
+                    hashFunctions, bits);
+        }
+    }
+
+    /**
+     * Builds filter file from a list of SHA-1 hashes, one hash in hex per line. Anything after the first 40
+     * characters of a line is ignored, so the lists of Have I Been Pwned with ":count" suffixes are read as they are.
+     *
+     * @param hashes                   file with SHA-1 hashes
+     * @param filter                   filter file to create or overwrite
+     * @param falsePositiveProbability target probability of reporting not breached password as breached
+     * @return number of hashes added
+     * @throws IOException if hashes can not be read or filter can not be written
+     */
+    public static long build(Path hashes, Path filter, double falsePositiveProbability) throws IOException {
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("False positive probability must be between 0 and 1");
+        }
+
+        long entries;
+
+        try (var lines = Files.lines(hashes, StandardCharsets.US_ASCII)) {
+            entries = Math.max(1, lines.filter(line -> !line.isBlank()).count());
+        }
+
+        double optimalBits = -entries * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2));
+        // power of two, so that bit index is taken by mask
+        long bits = Math.max(Long.highestOneBit((long) Math.ceil(optimalBits) - 1) << 1, Byte.SIZE);
+        int hashFunctions = (int) Math.max(1, Math.min(MAX_HASH_FUNCTIONS,
+                Math.round((double) bits / entries * Math.log(2))));
+        long added = 0;
+
+        try (FileChannel channel = FileChannel.open(filter, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             BufferedReader reader = Files.newBufferedReader(hashes, StandardCharsets.US_ASCII)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(hashFunctions).putLong(bits);
+            channel.write(header.flip(), 0);
+
+            BreachedPasswordFilter builder = new BreachedPasswordFilter(
+                    map(channel, FileChannel.MapMode.READ_WRITE, bits / Byte.SIZE), hashFunctions, bits);
+            byte[] digest = new byte[20];
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                parseHex(line, digest);
+                builder.add(digest);
+                added++;
+            }
+
+            for (MappedByteBuffer segment : builder.segments) {
+                segment.force();
+            }
+        }
+
+        return added;
+    }
+
+    /**
+     * Checks whether password is among breached passwords
+     *
+     * @param password password to check
+     * @return false if password is certainly not breached, true if it is breached or, rarely, a false positive
+     */
+    public boolean mightContain(String password) {
+        byte[] digest = SHA_1.get().digest(password.getBytes(StandardCharsets.UTF_8));
+        long hash1 = readLong(digest, 0);
+        long hash2 = readLong(digest, 8) | 1;
+
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = (hash1 + i * hash2) & bitMask;
+            long offset = bit >>> 3;
+
+            if ((segments[(int) (offset >>> SEGMENT_SHIFT)].get((int) (offset & (SEGMENT_SIZE - 1)))
+                    & 1 << (bit & 7)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    public long getBits() {
+        return bitMask + 1;
+    }
+
+    private void add(byte[] digest) {
+        long hash1 = readLong(digest, 0);
+        long hash2 = readLong(digest, 8) | 1;
+
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = (hash1 + i * hash2) & bitMask;
+            long offset = bit >>> 3;
+            MappedByteBuffer segment = segments[(int) (offset >>> SEGMENT_SHIFT)];
+            int index = (int) (offset & (SEGMENT_SIZE - 1));
+            segment.put(index, (byte) (segment.get(index) | 1 << (bit & 7)));
+        }
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long size)
+            throws IOException {
+        MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+
+        for (int i = 0; i < segments.length; i++) {
+            long position = (long) i << SEGMENT_SHIFT;
+            segments[i] = channel.map(mode, HEADER_SIZE + position, Math.min(SEGMENT_SIZE, size - position));
+        }
+
+        return segments;
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+
+        for (int i = offset; i < offset + Long.BYTES; i++) {
+            value = value << 8 | bytes[i] & 0xff;
+        }
+
+        return value;
+    }
+
+    private static void parseHex(String line, byte[] digest) {
+        if (line.length() < digest.length * 2) {
+            throw new IllegalArgumentException("Not a SHA-1 hash: " + line);
+        }
+
+        for (int i = 0; i < digest.length; i++) {
+            int high = Character.digit(line.charAt(2 * i), 16);
+            int low = Character.digit(line.charAt(2 * i + 1), 16);
+
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("Not a SHA-1 hash: " + line);
+            }
+
+            digest[i] = (byte) (high << 4 | low);
+        }
+    }
+
+    private static MessageDigest sha1() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
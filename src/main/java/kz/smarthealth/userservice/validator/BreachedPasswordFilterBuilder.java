@@ -0,0 +1,40 @@
+package kz.smarthealth.userservice.validator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Command line tool building {@link BreachedPasswordFilter} file from a list of SHA-1 hashes of breached passwords,
+ * for example the Pwned Passwords list of Have I Been Pwned. With the application jar:
+ * <pre>
+ * java -cp app.jar -Dloader.main=kz.smarthealth.userservice.validator.BreachedPasswordFilterBuilder \
+ *     org.springframework.boot.loader.PropertiesLauncher pwned-passwords-sha1.txt breached-passwords.bf [0.001]
+ * </pre>
+ * At the default false positive probability of 0.001 the filter takes 1.8 to 3.6 bytes per hash, as its size is
+ * rounded up to a power of two.
+ */
+public final class BreachedPasswordFilterBuilder {
+
+    private static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.001;
+
+    private BreachedPasswordFilterBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: BreachedPasswordFilterBuilder <sha1-hash-file> <filter-file> "
+                    + "[false-positive-probability]");
+            System.exit(1);
+        }
+
+        double falsePositiveProbability = args.length == 3
+                ? Double.parseDouble(args[2])
+                : DEFAULT_FALSE_POSITIVE_PROBABILITY;
+        long startMillis = System.currentTimeMillis();
+        long added = BreachedPasswordFilter.build(Path.of(args[0]), Path.of(args[1]), falsePositiveProbability);
+        BreachedPasswordFilter filter = BreachedPasswordFilter.open(Path.of(args[1]));
+
+        System.out.printf("Added %d hashes to %s: %d bits, %d hash functions, %d ms%n", added, args[1],
+                filter.getBits(), filter.getHashFunctions(), System.currentTimeMillis() - startMillis);
+    }
+}
@@ -22,4 +22,10 @@ public @interface Password {
     Class<?>[] groups() default {};
 
     Class<? extends Payload>[] payload() default {};
+
+    /**
+     * Whether password must also not be among known breached passwords, checked when {@link BreachedPasswordFilter}
+     * is configured
+     */
+    boolean checkBreached() default false;
 }
@@ -0,0 +1,173 @@
+package kz.smarthealth.userservice.validator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Password policy compiled once and reused for every password.
+ * <p>
+ * Length, character classes and whitespace are checked in a single pass over the password using a lookup table, and
+ * all error messages are formatted up front, so a valid password is checked without allocating anything. Character
+ * classes, message texts and message order are the same as of the Passay rules used before: LengthRule, CharacterRule
+ * of English upper case, lower case, digit and special characters, and WhitespaceRule.
+ */
+public final class PasswordPolicy {
+
+    /**
+     * Policy applied when no policy is configured: 8 to 16 characters, at least one upper case, lower case, digit and
+     * special character, no whitespace
+     */
+    public static final PasswordPolicy DEFAULT = new PasswordPolicy(8, 16, 1, 1, 1, 1, false);
+
+    private static final String UPPER_CASE = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final String LOWER_CASE = "abcdefghijklmnopqrstuvwxyz";
+    private static final String DIGITS = "0123456789";
+    private static final String SPECIAL = "!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~"
+            + "\u00A1\u00A2\u00A3\u00A4\u00A5\u00A6\u00A7\u00A8\u00A9\u00AA\u00AB\u00AC"
+            + "\u00AD\u00AE\u00AF\u00B0\u00B1\u00B2\u00B3\u00B4\u00B5\u00B6\u00B7\u00B8"
+            + "\u00B9\u00BA\u00BB\u00BC\u00BD\u00BE\u00BF\u00D7\u00F7\u2013\u2014\u2015"
+            + "\u2017\u2018\u2019\u201A\u201B\u201C\u201D\u201E\u2020\u2021\u2022\u2026"
+            + "\u2030\u2032\u2033\u2039\u203A\u203C\u203E\u2044\u204A\u20A0\u20A1\u20A2"
+            + "\u20A3\u20A4\u20A5\u20A6\u20A7\u20A8\u20A9\u20AA\u20AB\u20AC\u20AD\u20AE"
+            + "\u20AF\u20B0\u20B1\u20B2\u20B3\u20B4\u20B5\u20B6\u20B7\u20B8\u20B9\u20BA"
+            + "\u20BB\u20BC\u20BD\u20BE";
+    // in the order Passay reports them, one message per distinct whitespace character
+    private static final char[] WHITESPACE = {'\t', '\n', '\u000B', '\f', '\r', ' '};
+
+    private static final byte OTHER = 0;
+    private static final byte UPPER = 1;
+    private static final byte LOWER = 2;
+    private static final byte DIGIT = 3;
+    private static final byte SPECIAL_CHARACTER = 4;
+    private static final byte FIRST_WHITESPACE = 5;
+    private static final byte[] CHARACTER_CLASSES = buildCharacterClasses();
+
+    private final int minLength;
+    private final int maxLength;
+    private final int minUpperCase;
+    private final int minLowerCase;
+    private final int minDigits;
+    private final int minSpecial;
+    private final boolean whitespaceAllowed;
+
+    private final String tooShortMessage;
+    private final String tooLongMessage;
+    private final String upperCaseMessage;
+    private final String lowerCaseMessage;
+    private final String digitMessage;
+    private final String specialMessage;
+
+    /**
+     * Character class requirements of 0 are not checked at all
+     *
+     * @param minLength         minimum length
+     * @param maxLength         maximum length
+     * @param minUpperCase      minimum number of upper case characters
+     * @param minLowerCase      minimum number of lower case characters
+     * @param minDigits         minimum number of digits
+     * @param minSpecial        minimum number of special characters
+     * @param whitespaceAllowed whether whitespace characters are allowed
+     */
+    public PasswordPolicy(int minLength, int maxLength, int minUpperCase, int minLowerCase, int minDigits,
+                          int minSpecial, boolean whitespaceAllowed) {
+        if (minLength < 0 || maxLength < minLength) {
+            throw new IllegalArgumentException("Invalid password length bounds: " + minLength + ".." + maxLength);
+        }
+
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.minUpperCase = minUpperCase;
+        this.minLowerCase = minLowerCase;
+        this.minDigits = minDigits;
+        this.minSpecial = minSpecial;
+        this.whitespaceAllowed = whitespaceAllowed;
+        this.tooShortMessage = "Password must be " + minLength + " or more characters in length.";
+        this.tooLongMessage = "Password must be no more than " + maxLength + " characters in length.";
+        this.upperCaseMessage = "Password must contain " + minUpperCase + " or more uppercase characters.";
+        this.lowerCaseMessage = "Password must contain " + minLowerCase + " or more lowercase characters.";
+        this.digitMessage = "Password must contain " + minDigits + " or more digit characters.";
+        this.specialMessage = "Password must contain " + minSpecial + " or more special characters.";
+    }
+
+    /**
+     * Checks password against the policy
+     *
+     * @param password password to check
+     * @return error messages, empty if password satisfies the policy
+     */
+    public List<String> validate(CharSequence password) {
+        int length = password.length();
+        int upperCase = 0;
+        int lowerCase = 0;
+        int digits = 0;
+        int special = 0;
+        int whitespaceMask = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = password.charAt(i);
+            byte characterClass = c < CHARACTER_CLASSES.length ? CHARACTER_CLASSES[c] : OTHER;
+
+            switch (characterClass) {
+                case UPPER -> upperCase++;
+                case LOWER -> lowerCase++;
+                case DIGIT -> digits++;
+                case SPECIAL_CHARACTER -> special++;
+                case OTHER -> {
+                }
+                default -> whitespaceMask |= 1 << (characterClass - FIRST_WHITESPACE);
+            }
+        }
+
+        boolean tooShort = length < minLength;
+        boolean tooLong = length > maxLength;
+        boolean whitespaceFound = !whitespaceAllowed && whitespaceMask != 0;
+
+        if (!tooShort && !tooLong && upperCase >= minUpperCase && lowerCase >= minLowerCase && digits >= minDigits
+                && special >= minSpecial && !whitespaceFound) {
+            return List.of();
+        }
+
+        List<String> messages = new ArrayList<>(5 + WHITESPACE.length);
+
+        if (tooShort) {
+            messages.add(tooShortMessage);
+        } else if (tooLong) {
+            messages.add(tooLongMessage);
+        }
+
+        addIfInsufficient(messages, upperCase, minUpperCase, upperCaseMessage);
+        addIfInsufficient(messages, lowerCase, minLowerCase, lowerCaseMessage);
+        addIfInsufficient(messages, digits, minDigits, digitMessage);
+        addIfInsufficient(messages, special, minSpecial, specialMessage);
+
+        if (whitespaceFound) {
+            for (int i = 0; i < WHITESPACE.length; i++) {
+                if ((whitespaceMask & 1 << i) != 0) {
+                    messages.add("Password contains a whitespace character.");
+                }
+            }
+        }
+
+        return messages;
+    }
+
+    private static void addIfInsufficient(List<String> messages, int count, int required, String message) {
+        if (required > 0 && count < required) {
+            messages.add(message);
+        }
+    }
+
+    private static byte[] buildCharacterClasses() {
+        byte[] classes = new byte[SPECIAL.charAt(SPECIAL.length() - 1) + 1];
+        UPPER_CASE.chars().forEach(c -> classes[c] = UPPER);
+        LOWER_CASE.chars().forEach(c -> classes[c] = LOWER);
+        DIGITS.chars().forEach(c -> classes[c] = DIGIT);
+        SPECIAL.chars().forEach(c -> classes[c] = SPECIAL_CHARACTER);
+
+        for (int i = 0; i < WHITESPACE.length; i++) {
+            classes[WHITESPACE[i]] = (byte) (FIRST_WHITESPACE + i);
+        }
+
+        return classes;
+    }
+}
@@ -3,9 +3,9 @@ package kz.smarthealth.userservice.validator;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 import org.apache.commons.lang3.StringUtils;
-import org.passay.*;
+import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -15,14 +15,47 @@ import java.util.List;
  */
 public class PasswordValidator implements ConstraintValidator<Password, String> {
 
+    static final String BREACHED_PASSWORD_MESSAGE = "Password has been found in a data breach, choose another password.";
+
+    private PasswordPolicy passwordPolicy = PasswordPolicy.DEFAULT;
+    private BreachedPasswordFilter breachedPasswordFilter;
+    private boolean checkBreached;
+
+    /**
+     * Policy is injected when validator is created by Spring, otherwise {@link PasswordPolicy#DEFAULT} is used
+     *
+     * @param passwordPolicy configured password policy
+     */
+    @Autowired(required = false)
+    public void setPasswordPolicy(PasswordPolicy passwordPolicy) {
+        this.passwordPolicy = passwordPolicy;
+    }
+
+    /**
+     * Filter is present only when breached password check is enabled
+     *
+     * @param breachedPasswordFilter filter of breached passwords
+     */
+    @Autowired(required = false)
+    public void setBreachedPasswordFilter(BreachedPasswordFilter breachedPasswordFilter) {
+        this.breachedPasswordFilter = breachedPasswordFilter;
+    }
+
+    @Override
+    public void initialize(Password password) {
+        this.checkBreached = password.checkBreached();
+    }
+
     /**
-     * Validates user password. Password must have:
+     * Validates user password against {@link PasswordPolicy}. By default password must have:
      * - Min 8 characters
      * - Max 16 characters
      * - At least 1 upper case character
      * - At least 1 lower case character
      * - At least 1 digit
      * - At least 1 special character
+     * - No whitespace
+     * and, if annotation requires so, it must not be a known breached password
      *
      * @param value   password entered by user
      * @param context {@link ConstraintValidatorContext}
@@ -38,14 +71,17 @@ public class PasswordValidator implements ConstraintValidator<Password, String>
             return false;
         }
 
-        org.passay.PasswordValidator validator = getPasswordValidator();
-        RuleResult result = validator.validate(new PasswordData(value));
+        List<String> messages = passwordPolicy.validate(value);
+
+        if (checkBreached && breachedPasswordFilter != null && breachedPasswordFilter.mightContain(value)) {
+            messages = new ArrayList<>(messages);
+            messages.add(BREACHED_PASSWORD_MESSAGE);
+        }
 
-        if (result.isValid()) {
+        if (messages.isEmpty()) {
             return true;
         }
 
-        List<String> messages = validator.getMessages(result);
         String messageTemplate = String.join(",", messages);
         context.buildConstraintViolationWithTemplate(messageTemplate)
                 .addConstraintViolation()
@@ -53,26 +89,4 @@ public class PasswordValidator implements ConstraintValidator<Password, String>
 
         return false;
     }
-
-    /**
-     * Creates password validator with required rules
-     *
-     * @return password validator object
-     */
-    private org.passay.PasswordValidator getPasswordValidator() {
-        return new org.passay.PasswordValidator(Arrays.asList(
-                // at least 8 characters
-                new LengthRule(8, 16),
-                // at least one upper-case character
-                new CharacterRule(EnglishCharacterData.UpperCase, 1),
-                // at least one lower-case character
-                new CharacterRule(EnglishCharacterData.LowerCase, 1),
-                // at least one digit character
-                new CharacterRule(EnglishCharacterData.Digit, 1),
-                // at least one symbol (special character)
-                new CharacterRule(EnglishCharacterData.Special, 1),
-                // no whitespace
-                new WhitespaceRule()
-        ));
-    }
 }
@@ -0,0 +1,12 @@
+create table if not exists refresh_tokens
+(
+    family_id  uuid primary key,
+    user_id    uuid references users (id) not null,
+    token_hash bytea                      not null,
+    expires_at timestamp with time zone   not null
+);
+
+create index if not exists refresh_tokens_expires_at_idx on refresh_tokens (expires_at);
+
+alter table users
+    drop column if exists refresh_token;
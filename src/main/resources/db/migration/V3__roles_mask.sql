@@ -0,0 +1,14 @@
+-- bit of a role is 1 << (roles.id - 1), see UserRole
+alter table users
+    add column if not exists roles_mask smallint not null default 0;
+
+update users u
+set roles_mask = r.mask
+from (select user_id, bit_or(1 << (role_id - 1))::smallint as mask from user_roles group by user_id) r
+where u.id = r.user_id;
+
+-- role filtered queries test bits of the mask, e.g. doctors by type: roles_mask & 4 <> 0 and doctor_type_id = ?
+create index if not exists users_doctor_type_id_idx on users (doctor_type_id) where roles_mask & 4 <> 0;
+
+-- user_roles is kept, so that the release can be rolled back and the previous build, which still maps it, keeps
+-- working while both run side by side. It is dropped by a later migration once nothing reads it.
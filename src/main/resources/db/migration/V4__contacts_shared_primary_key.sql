@@ -0,0 +1,18 @@
+-- contact is keyed by the id of its user, so it is found through the primary key index
+
+-- user_id was not unique, only the latest contact of a user is kept
+delete
+from contacts c
+    using contacts latest
+where c.user_id = latest.user_id
+  and (c.created_at, c.id) < (latest.created_at, latest.id);
+
+update contacts
+set id = user_id
+where id <> user_id;
+
+alter table contacts
+    drop column user_id;
+
+alter table contacts
+    add constraint contacts_id_fkey foreign key (id) references users (id);
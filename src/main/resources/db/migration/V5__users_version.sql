@@ -0,0 +1,6 @@
+-- incremented on every update of a user, used for optimistic locking and as ETag of user responses
+alter table users
+    add column version bigint not null default 0;
+
+-- conditional requests read the version of a user from the index alone
+create index users_id_version_idx on users (id) include (version);
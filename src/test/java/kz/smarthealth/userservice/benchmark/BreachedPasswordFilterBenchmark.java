@@ -0,0 +1,89 @@
+package kz.smarthealth.userservice.benchmark;
+
+import kz.smarthealth.userservice.validator.BreachedPasswordFilter;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of {@link BreachedPasswordFilter} lookups. The filter holds 5 million hashes, 16 MB of bits, so that
+ * most probes miss the CPU caches as they would with the full Pwned Passwords list. A breached password probes all
+ * bits, a not breached one usually stops at the first or second bit.
+ * <p>
+ * Run with: mvn test -Pbenchmark -Dtest=BreachedPasswordFilterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BreachedPasswordFilterBenchmark {
+
+    private static final int ENTRIES = 5_000_000;
+    private static final int PASSWORDS = 4096;
+
+    private final String[] breachedPasswords = new String[PASSWORDS];
+    private final String[] safePasswords = new String[PASSWORDS];
+    private BreachedPasswordFilter filter;
+
+    @Setup
+    public void setUp() throws Exception {
+        Path hashes = Files.createTempFile("breached-passwords", ".txt");
+        Path filterFile = Files.createTempFile("breached-passwords", ".bf");
+        filterFile.toFile().deleteOnExit();
+        MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+        HexFormat hex = HexFormat.of().withUpperCase();
+
+        try (BufferedWriter writer = Files.newBufferedWriter(hashes, StandardCharsets.US_ASCII)) {
+            for (int i = 0; i < ENTRIES; i++) {
+                writer.write(hex.formatHex(sha1.digest(password(i).getBytes(StandardCharsets.UTF_8))));
+                writer.newLine();
+            }
+        }
+
+        BreachedPasswordFilter.build(hashes, filterFile, 0.001);
+        Files.delete(hashes);
+        filter = BreachedPasswordFilter.open(filterFile);
+
+        for (int i = 0; i < PASSWORDS; i++) {
+            breachedPasswords[i] = password(ThreadLocalRandom.current().nextInt(ENTRIES));
+            safePasswords[i] = password(ENTRIES + i);
+        }
+    }
+
+    @Benchmark
+    public boolean breachedPassword() {
+        return filter.mightContain(breachedPasswords[ThreadLocalRandom.current().nextInt(PASSWORDS)]);
+    }
+
+    @Benchmark
+    public boolean notBreachedPassword() {
+        return filter.mightContain(safePasswords[ThreadLocalRandom.current().nextInt(PASSWORDS)]);
+    }
+
+    @Test
+    void run() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BreachedPasswordFilterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+
+    private static String password(int i) {
+        return "Password" + i + "!";
+    }
+}
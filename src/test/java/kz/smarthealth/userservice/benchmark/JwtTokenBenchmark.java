@@ -0,0 +1,76 @@
+package kz.smarthealth.userservice.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import kz.smarthealth.userservice.security.JwtTokenFactory;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of access token generation through {@code Jwts.builder().signWith(HS512, secret)} and through
+ * {@link JwtTokenFactory}. Throughput is reported in tokens per second, allocations per token by the GC profiler
+ * as gc.alloc.rate.norm.
+ * <p>
+ * Run with: mvn test -Pbenchmark -Dtest=JwtTokenBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenBenchmark {
+
+    private static final String SECRET = "jwtSecret";
+    private static final long EXPIRATION_MS = 86400000;
+
+    private final String userId = UUID.randomUUID().toString();
+    private final SimpleGrantedAuthority role = new SimpleGrantedAuthority("ROLE_PATIENT");
+    private final JwtTokenFactory tokenFactory = new JwtTokenFactory(SECRET);
+
+    @Benchmark
+    public String jjwtBuilder() {
+        return Jwts.builder()
+                .setSubject(userId)
+                .claim("email", "test@test.com")
+                .claim("role", role)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date((new Date()).getTime() + EXPIRATION_MS))
+                .signWith(SignatureAlgorithm.HS512, SECRET)
+                .compact();
+    }
+
+    @Benchmark
+    public String tokenFactory() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put(Claims.SUBJECT, userId);
+        claims.put("email", "test@test.com");
+        claims.put("role", role);
+        claims.put(Claims.ISSUED_AT, now / 1000);
+        claims.put(Claims.EXPIRATION, (now + EXPIRATION_MS) / 1000);
+
+        return tokenFactory.createToken(claims);
+    }
+
+    @Test
+    void run() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtTokenBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,60 @@
+package kz.smarthealth.userservice.benchmark;
+
+import kz.smarthealth.userservice.validator.PasswordPolicy;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.passay.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of {@link PasswordPolicy} against the Passay validator built on every call, as password validation was
+ * done before, for a valid password and for a password breaking several rules. GC profiler shows allocation per
+ * validation.
+ * <p>
+ * Run with: mvn test -Pbenchmark -Dtest=PasswordPolicyBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordPolicyBenchmark {
+
+    @Param({"Aa123456!", "aa 123"})
+    private String password;
+
+    @Benchmark
+    public List<String> passwordPolicy() {
+        return PasswordPolicy.DEFAULT.validate(password);
+    }
+
+    @Benchmark
+    public List<String> passayPerCall() {
+        PasswordValidator validator = new PasswordValidator(
+                new LengthRule(8, 16),
+                new CharacterRule(EnglishCharacterData.UpperCase, 1),
+                new CharacterRule(EnglishCharacterData.LowerCase, 1),
+                new CharacterRule(EnglishCharacterData.Digit, 1),
+                new CharacterRule(EnglishCharacterData.Special, 1),
+                new WhitespaceRule());
+        RuleResult result = validator.validate(new PasswordData(password));
+
+        return result.isValid() ? List.of() : validator.getMessages(result);
+    }
+
+    @Test
+    void run() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PasswordPolicyBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,144 @@
+package kz.smarthealth.userservice.benchmark;
+
+import com.amazonaws.services.s3.AmazonS3;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import kz.smarthealth.userservice.model.dto.SignInDTO;
+import kz.smarthealth.userservice.model.dto.UserDTO;
+import kz.smarthealth.userservice.model.entity.UserEntity;
+import kz.smarthealth.userservice.repository.ContactRepository;
+import kz.smarthealth.userservice.repository.UserRepository;
+import kz.smarthealth.userservice.security.JwtUtils;
+import kz.smarthealth.userservice.service.PatientKafkaProducerService;
+import kz.smarthealth.userservice.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+import static kz.smarthealth.userservice.util.TestData.*;
+
+/**
+ * Compares how long a pooled connection is checked out per sign in: the previous flow, which authenticated through
+ * {@link AuthenticationManager} inside a transaction and saved the whole entity, against the current
+ * {@link UserService#signIn(SignInDTO, String)}. Connection hold time is taken from the HikariCP usage timer.
+ * <p>
+ * Run with: mvn test -Pbenchmark -Dtest=SignInConnectionHoldBenchmark
+ */
+// production strength, so that hashing inside the transaction costs what it does in production
+@SpringBootTest(properties = "security.password-hashing.bcrypt.strength=10")
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.yml")
+class SignInConnectionHoldBenchmark {
+
+    private static final int WARM_UP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 30;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private PatientKafkaProducerService patientKafkaProducerService;
+
+    @MockBean
+    private AmazonS3 amazonS3;
+
+    private final SignInDTO signInDTO = SignInDTO.builder()
+            .email(TEST_EMAIL)
+            .password(TEST_PASSWORD)
+            .build();
+
+    @BeforeEach
+    void beforeEach() {
+        UserDTO userDTO = getUserDTO();
+        userDTO.setPassword(TEST_PASSWORD);
+        userService.signUp(userDTO);
+    }
+
+    @AfterEach
+    void afterEach() {
+        userRepository.findByEmail(TEST_EMAIL).ifPresent(entity -> {
+            contactRepository.deleteById(entity.getContact().getId());
+            userRepository.deleteById(entity.getId());
+        });
+    }
+
+    @Test
+    void compareConnectionHoldTime() {
+        Result before = measure("transactional authenticate + save", this::legacySignIn);
+        Result after = measure("narrow query + hash outside transaction", () -> userService.signIn(signInDTO, null));
+
+        System.out.printf("%n%-45s %12s %12s %12s%n", "sign in flow", "conn/op", "hold ms/op", "max ms/op");
+        before.print();
+        after.print();
+    }
+
+    /**
+     * Sign in flow as it was implemented before credentials were loaded by a narrow query
+     */
+    private void legacySignIn() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Authentication authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(signInDTO.getEmail(), signInDTO.getPassword()));
+            UserEntity userEntity = userRepository.findByEmail(signInDTO.getEmail()).orElseThrow();
+            jwtUtils.generateJwtToken(authentication);
+            // refresh token used to be stored in the users row, the column has since been dropped
+            userRepository.save(userEntity);
+        });
+    }
+
+    private Result measure(String name, Runnable signIn) {
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            signIn.run();
+        }
+
+        Timer usage = meterRegistry.get("hikaricp.connections.usage").timer();
+        long countBefore = usage.count();
+        double totalBefore = usage.totalTime(TimeUnit.MILLISECONDS);
+        double maxHold = 0;
+
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            double total = usage.totalTime(TimeUnit.MILLISECONDS);
+            signIn.run();
+            maxHold = Math.max(maxHold, usage.totalTime(TimeUnit.MILLISECONDS) - total);
+        }
+
+        return new Result(name, (double) (usage.count() - countBefore) / MEASURED_ITERATIONS,
+                (usage.totalTime(TimeUnit.MILLISECONDS) - totalBefore) / MEASURED_ITERATIONS, maxHold);
+    }
+
+    private record Result(String name, double connectionsPerOp, double holdMillisPerOp, double maxHoldMillis) {
+
+        void print() {
+            System.out.printf("%-45s %12.2f %12.2f %12.2f%n", name, connectionsPerOp, holdMillisPerOp, maxHoldMillis);
+        }
+    }
+}
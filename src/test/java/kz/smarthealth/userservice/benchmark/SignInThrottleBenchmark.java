@@ -0,0 +1,112 @@
+package kz.smarthealth.userservice.benchmark;
+
+import kz.smarthealth.userservice.security.StripedTokenBuckets;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH contention benchmark of {@link StripedTokenBuckets} driven from 64 threads, compared with the straightforward
+ * alternative of a {@link ConcurrentHashMap} of token buckets updated under the map's bin lock. Keys are drawn from a
+ * pool of client IPs, and separately all threads hit one hot key, as during an attack on a single account.
+ * <p>
+ * Run with: mvn test -Pbenchmark -Dtest=SignInThrottleBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class SignInThrottleBenchmark {
+
+    private static final int KEYS = 100_000;
+    private static final int CAPACITY = 60;
+    private static final Duration REFILL_PERIOD = Duration.ofSeconds(60);
+
+    private final String[] keys = new String[KEYS];
+    private final StripedTokenBuckets stripedTokenBuckets = new StripedTokenBuckets(65536, CAPACITY, REFILL_PERIOD);
+    private final LockingTokenBuckets lockingTokenBuckets = new LockingTokenBuckets();
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "10." + (i >> 16) + "." + (i >> 8 & 0xff) + "." + (i & 0xff);
+        }
+    }
+
+    @Benchmark
+    public long stripedBucketsManyKeys() {
+        return stripedTokenBuckets.tryAcquire(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    @Benchmark
+    public long lockingBucketsManyKeys() {
+        return lockingTokenBuckets.tryAcquire(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    @Benchmark
+    public long stripedBucketsHotKey() {
+        return stripedTokenBuckets.tryAcquire("test@test.com");
+    }
+
+    @Benchmark
+    public long lockingBucketsHotKey() {
+        return lockingTokenBuckets.tryAcquire("test@test.com");
+    }
+
+    @Test
+    void run() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SignInThrottleBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+
+    /**
+     * Token buckets as they are usually written: a map entry per key with token count and refill time, updated
+     * atomically by compute. Unlike {@link StripedTokenBuckets} it needs a separate sweeper to evict idle keys.
+     */
+    private static class LockingTokenBuckets {
+
+        private final ConcurrentHashMap<String, long[]> buckets = new ConcurrentHashMap<>();
+        private final long refillIntervalNanos = REFILL_PERIOD.toNanos() / CAPACITY;
+
+        long tryAcquire(String key) {
+            long now = System.nanoTime();
+            long[] result = new long[1];
+            buckets.compute(key, (k, bucket) -> {
+                if (bucket == null) {
+                    bucket = new long[]{CAPACITY, now};
+                }
+
+                long refilled = (now - bucket[1]) / refillIntervalNanos;
+
+                if (refilled > 0) {
+                    bucket[0] = Math.min(CAPACITY, bucket[0] + refilled);
+                    bucket[1] += refilled * refillIntervalNanos;
+                }
+
+                if (bucket[0] > 0) {
+                    bucket[0]--;
+                } else {
+                    result[0] = TimeUnit.NANOSECONDS.toMillis(bucket[1] + refillIntervalNanos - now);
+                }
+
+                return bucket;
+            });
+
+            return result[0];
+        }
+    }
+}
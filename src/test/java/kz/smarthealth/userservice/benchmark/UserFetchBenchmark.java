@@ -0,0 +1,118 @@
+package kz.smarthealth.userservice.benchmark;
+
+import com.amazonaws.services.s3.AmazonS3;
+import jakarta.persistence.EntityManagerFactory;
+import kz.smarthealth.userservice.model.dto.ContactDTO;
+import kz.smarthealth.userservice.model.dto.UserDTO;
+import kz.smarthealth.userservice.model.entity.UserEntity;
+import kz.smarthealth.userservice.model.projection.UserProfileRow;
+import kz.smarthealth.userservice.repository.UserRepository;
+import kz.smarthealth.userservice.service.PatientKafkaProducerService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Compares loading of a user by id: the previous path, which loaded the entity with its contact and roles and mapped
+ * it with {@link ModelMapper}, against the single projection query {@link UserRepository#findProfileById(UUID)}.
+ * Statements per load are taken from Hibernate statistics. The user cache is bypassed, both paths go to the DB.
+ * <p>
+ * Run with: mvn test -Pbenchmark -Dtest=UserFetchBenchmark
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.yml")
+class UserFetchBenchmark {
+
+    private static final UUID TEST_USER_ID = UUID.fromString("33bb9554-c616-42e6-a9c6-88d3bba4221c");
+    private static final int WARM_UP_ITERATIONS = 5_000;
+    private static final int MEASURED_ITERATIONS = 20_000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private PatientKafkaProducerService patientKafkaProducerService;
+
+    @MockBean
+    private AmazonS3 amazonS3;
+
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    @Test
+    void compareUserFetch() {
+        Result before = measure("entity + ModelMapper", this::legacyLoadUserById);
+        Result after = measure("projection query",
+                () -> userRepository.findProfileById(TEST_USER_ID).orElseThrow().toUserDTO());
+
+        System.out.printf("%n%-25s %12s %12s %12s%n", "user fetch", "stmts/op", "avg us/op", "p99 us/op");
+        before.print();
+        after.print();
+    }
+
+    /**
+     * Load of a user as it was implemented before the projection query
+     */
+    private UserDTO legacyLoadUserById() {
+        return transactionTemplate.execute(status -> {
+            UserEntity userEntity = userRepository.findById(TEST_USER_ID).orElseThrow();
+            UserDTO userDTO = modelMapper.map(userEntity, UserDTO.class);
+            userDTO.setRoles(EnumSet.copyOf(userEntity.getRoles()));
+
+            if (userEntity.getContact() != null) {
+                userDTO.setContact(modelMapper.map(userEntity.getContact(), ContactDTO.class));
+            }
+
+            userDTO.setPassword(null);
+
+            return userDTO;
+        });
+    }
+
+    private Result measure(String name, Supplier<UserDTO> load) {
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            load.get();
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        long[] nanos = new long[MEASURED_ITERATIONS];
+
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            load.get();
+            nanos[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(nanos);
+
+        return new Result(name, (double) statistics.getPrepareStatementCount() / MEASURED_ITERATIONS,
+                Arrays.stream(nanos).average().orElseThrow() / 1000,
+                nanos[(int) (MEASURED_ITERATIONS * 0.99)] / 1000.0);
+    }
+
+    private record Result(String name, double statementsPerOp, double averageMicros, double p99Micros) {
+
+        void print() {
+            System.out.printf("%-25s %12.2f %12.2f %12.2f%n", name, statementsPerOp, averageMicros, p99Micros);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package kz.smarthealth.userservice.benchmark;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import kz.smarthealth.userservice.model.dto.UserField;
+import kz.smarthealth.userservice.repository.UserRepository;
+import kz.smarthealth.userservice.service.PatientKafkaProducerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Measures response of a user by id per requested field set: the full user from
+ * {@link UserRepository#findProfileById(UUID)}, against {@link UserRepository#findFieldsById(UUID, Set)} serialized
+ * with the filter of requested fields. Payload size and latency of query plus serialization are reported. The user
+ * cache is bypassed, every path goes to the DB.
+ * <p>
+ * Run with: mvn test -Pbenchmark -Dtest=UserFieldsBenchmark
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.yml")
+class UserFieldsBenchmark {
+
+    private static final UUID TEST_USER_ID = UUID.fromString("33bb9554-c616-42e6-a9c6-88d3bba4221c");
+    private static final int WARM_UP_ITERATIONS = 10_000;
+    private static final int MEASURED_ITERATIONS = 20_000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private PatientKafkaProducerService patientKafkaProducerService;
+
+    @MockBean
+    private AmazonS3 amazonS3;
+
+    @Test
+    void compareFieldSets() {
+        Map<String, Supplier<byte[]>> responses = new LinkedHashMap<>();
+        responses.put("full user", () -> serialize(objectMapper.writer(),
+                userRepository.findProfileById(TEST_USER_ID).orElseThrow().toUserDTO()));
+
+        for (String fields : List.of("name,lastName", "name,lastName,profilePicturePreSignedUrl",
+                "name,lastName,contact")) {
+            Set<UserField> userFields = UserField.parse(fields);
+            ObjectWriter writer = objectMapper.writer(UserField.filterOf(userFields));
+            responses.put(fields, () -> serialize(writer,
+                    userRepository.findFieldsById(TEST_USER_ID, userFields).orElseThrow().user()));
+        }
+
+        // all paths are warmed up before any is measured, so that none is measured while still being compiled
+        for (Supplier<byte[]> response : responses.values()) {
+            for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+                response.get();
+            }
+        }
+
+        System.out.printf("%n%-45s %10s %12s %12s%n", "fields", "bytes", "avg us/op", "p99 us/op");
+        responses.forEach((name, response) -> measure(name, response).print());
+    }
+
+    private static byte[] serialize(ObjectWriter writer, Object value) {
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Result measure(String name, Supplier<byte[]> response) {
+        long[] nanos = new long[MEASURED_ITERATIONS];
+        int bytes = 0;
+
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            bytes = response.get().length;
+            nanos[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(nanos);
+
+        return new Result(name, bytes, Arrays.stream(nanos).average().orElseThrow() / 1000,
+                nanos[(int) (MEASURED_ITERATIONS * 0.99)] / 1000.0);
+    }
+
+    private record Result(String name, int bytes, double averageMicros, double p99Micros) {
+
+        void print() {
+            System.out.printf("%-45s %10d %12.2f %12.2f%n", name, bytes, averageMicros, p99Micros);
+        }
+    }
+}
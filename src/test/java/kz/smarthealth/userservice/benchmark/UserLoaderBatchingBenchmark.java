@@ -0,0 +1,181 @@
+package kz.smarthealth.userservice.benchmark;
+
+import com.amazonaws.services.s3.AmazonS3;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import kz.smarthealth.userservice.cache.BatchingUserLoader;
+import kz.smarthealth.userservice.config.UserLoaderBatchingConfig;
+import kz.smarthealth.userservice.model.dto.UserDTO;
+import kz.smarthealth.userservice.repository.UserRepository;
+import kz.smarthealth.userservice.service.PatientKafkaProducerService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Throughput of loading users missing from the cache from 64 threads: a primary key query per user, as
+ * {@link UserRepository#findProfileById(UUID)} does, against {@link BatchingUserLoader} with batches of up to 64 ids
+ * collected for up to 1 ms. H2 in memory stands in for Postgres, so round trips are far cheaper than over a network
+ * and the gain measured is a lower bound. Statements per load are taken from Hibernate statistics.
+ * <p>
+ * Run with: mvn test -Pbenchmark -Dtest=UserLoaderBatchingBenchmark
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.yml")
+class UserLoaderBatchingBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int THREADS = 64;
+    private static final long WARM_UP_MILLIS = 5_000;
+    private static final long MEASURED_MILLIS = 10_000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private PatientKafkaProducerService patientKafkaProducerService;
+
+    @MockBean
+    private AmazonS3 amazonS3;
+
+    private final List<UUID> ids = new ArrayList<>(USERS);
+
+    @BeforeEach
+    void beforeEach() {
+        List<Object[]> users = new ArrayList<>(USERS);
+        List<Object[]> contacts = new ArrayList<>(USERS);
+        OffsetDateTime now = OffsetDateTime.now();
+
+        for (int i = 0; i < USERS; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            users.add(new Object[]{id, "user" + i + "@test.com", "password", "User " + i, (short) 8, now});
+            contacts.add(new Object[]{id, (short) 1, "7000" + i, now});
+        }
+
+        jdbcTemplate.batchUpdate("insert into users(id, email, password, name, roles_mask, created_at) " +
+                "values (?, ?, ?, ?, ?, ?)", users);
+        jdbcTemplate.batchUpdate("insert into contacts(id, city_id, phone_number1, created_at) values (?, ?, ?, ?)",
+                contacts);
+    }
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.update("delete from contacts where phone_number1 like '7000%'");
+        jdbcTemplate.update("delete from users where email like 'user%@test.com'");
+    }
+
+    @Test
+    void compareThroughput() throws Exception {
+        UserLoaderBatchingConfig config = new UserLoaderBatchingConfig();
+        config.setMaxBatchSize(64);
+        config.setMaxDelayMicros(1000);
+        config.setConcurrency(4);
+        BatchingUserLoader batchingUserLoader = new BatchingUserLoader(config, userRepository,
+                new SimpleMeterRegistry());
+
+        try {
+            Result perId = measure("query per id",
+                    id -> userRepository.findProfileById(id).orElseThrow().toUserDTO());
+            Result batched = measure("batches of 64 ids / 1 ms", batchingUserLoader::get);
+
+            System.out.printf("%n%-30s %12s %12s %12s %12s%n", "user load", "loads/s", "stmts/load", "avg us/op",
+                    "p99 us/op");
+            perId.print();
+            batched.print();
+        } finally {
+            batchingUserLoader.destroy();
+        }
+    }
+
+    private Result measure(String name, Function<UUID, UserDTO> load) throws Exception {
+        run(load, WARM_UP_MILLIS, null);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<long[]> latencies = run(load, MEASURED_MILLIS, statistics);
+        long loads = latencies.stream().mapToLong(threadLatencies -> threadLatencies.length).sum();
+        long[] nanos = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+
+        return new Result(name, loads * 1000.0 / MEASURED_MILLIS,
+                (double) statistics.getPrepareStatementCount() / loads,
+                Arrays.stream(nanos).average().orElseThrow() / 1000,
+                nanos[(int) (nanos.length * 0.99)] / 1000.0);
+    }
+
+    /**
+     * Loads random users from all threads for the given time
+     *
+     * @return latencies in nanoseconds, per thread
+     */
+    private List<long[]> run(Function<UUID, UserDTO> load, long millis, Statistics statistics) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<long[]>> futures = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                long[] latencies = new long[1024];
+                int count = 0;
+
+                while (running.get()) {
+                    UUID id = ids.get(ThreadLocalRandom.current().nextInt(USERS));
+                    long start = System.nanoTime();
+                    load.apply(id);
+
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+
+                    latencies[count++] = System.nanoTime() - start;
+                }
+
+                return Arrays.copyOf(latencies, count);
+            }));
+        }
+
+        Thread.sleep(millis);
+        running.set(false);
+        List<long[]> latencies = new ArrayList<>();
+
+        for (Future<long[]> future : futures) {
+            latencies.add(future.get());
+        }
+
+        executor.shutdown();
+
+        return latencies;
+    }
+
+    private record Result(String name, double loadsPerSecond, double statementsPerLoad, double averageMicros,
+                          double p99Micros) {
+
+        void print() {
+            System.out.printf("%-30s %12.0f %12.3f %12.2f %12.2f%n", name, loadsPerSecond, statementsPerLoad,
+                    averageMicros, p99Micros);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package kz.smarthealth.userservice.benchmark;
+
+import kz.smarthealth.userservice.mapper.UserMapper;
+import kz.smarthealth.userservice.mapper.UserMapperImpl;
+import kz.smarthealth.userservice.model.dto.ContactDTO;
+import kz.smarthealth.userservice.model.dto.UserDTO;
+import kz.smarthealth.userservice.model.entity.UserEntity;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static kz.smarthealth.userservice.util.TestData.getUserDTO;
+import static kz.smarthealth.userservice.util.TestData.getUserEntity;
+
+/**
+ * JMH benchmark of the generated {@link UserMapper} against {@link ModelMapper}, which mapped users before, in both
+ * directions. Throughput is measured on warm mappers, GC profiler shows allocation per mapping. Cold benchmarks map
+ * once with a new mapper, as the first request after start does, ModelMapper building its type maps by reflection.
+ * <p>
+ * Run with: mvn test -Pbenchmark -Dtest=UserMapperBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserMapperBenchmark {
+
+    private final UserMapper userMapper = new UserMapperImpl();
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final UserDTO userDTO = getUserDTO();
+    private final UserEntity userEntity = getUserEntity();
+
+    @Setup
+    public void setUp() {
+        userEntity.setId(UUID.randomUUID());
+        userEntity.getContact().setId(UUID.randomUUID());
+    }
+
+    @Benchmark
+    public UserEntity userMapperToEntity() {
+        return userMapper.toUserEntity(userDTO);
+    }
+
+    @Benchmark
+    public UserEntity modelMapperToEntity() {
+        return modelMapper.map(userDTO, UserEntity.class);
+    }
+
+    @Benchmark
+    public UserDTO userMapperToDTO() {
+        return userMapper.toUserDTO(userEntity);
+    }
+
+    @Benchmark
+    public UserDTO modelMapperToDTO() {
+        UserDTO result = modelMapper.map(userEntity, UserDTO.class);
+        result.setContact(modelMapper.map(userEntity.getContact(), ContactDTO.class));
+
+        return result;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public UserEntity userMapperToEntityCold() {
+        return new UserMapperImpl().toUserEntity(userDTO);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public UserEntity modelMapperToEntityCold() {
+        return new ModelMapper().map(userDTO, UserEntity.class);
+    }
+
+    @Test
+    void run() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UserMapperBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,250 @@
+package kz.smarthealth.userservice.benchmark;
+
+import com.amazonaws.HttpMethod;
+import com.amazonaws.services.s3.AmazonS3;
+import kz.smarthealth.userservice.controller.ReactiveUserController;
+import kz.smarthealth.userservice.controller.UserController;
+import kz.smarthealth.userservice.model.dto.UserRole;
+import kz.smarthealth.userservice.service.PatientKafkaProducerService;
+import org.apache.tomcat.util.threads.ThreadPoolExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URL;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Latency and threads of reading users from 2 000 concurrent connections, each sending its next request as soon as
+ * the previous one is answered, through the blocking endpoints of {@link UserController} and the non-blocking ones of
+ * {@link ReactiveUserController}. Every user is read from the database, the user cache is made too small to hold one.
+ * AWS S3 is mocked, checking that a profile picture exists takes 20 ms as a round trip to S3 would.
+ * <p>
+ * Request threads are Tomcat threads busy at the same time, sampled every 10 ms. H2 in memory stands in for Postgres
+ * and its R2DBC driver runs queries on the calling thread, so database reads of API v2 hold a request thread just as
+ * JDBC does, and the gain measured for them is a lower bound.
+ * <p>
+ * Run with: mvn test -Pbenchmark -Dtest=UserReadLoadBenchmark -Djacoco.skip=true
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"cache.users.max-size-bytes=1", "server.tomcat.max-connections=4096",
+                "logging.level.kz.smarthealth.userservice=WARN"})
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.yml")
+class UserReadLoadBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int CONNECTIONS = 2_000;
+    private static final long WARM_UP_MILLIS = 5_000;
+    private static final long MEASURED_MILLIS = 10_000;
+    private static final long S3_ROUND_TRIP_MILLIS = 20;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ServletWebServerApplicationContext applicationContext;
+
+    @MockBean
+    private PatientKafkaProducerService patientKafkaProducerService;
+
+    @MockBean
+    private AmazonS3 amazonS3;
+
+    private final List<UUID> ids = new ArrayList<>(USERS);
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        List<Object[]> users = new ArrayList<>(USERS);
+        List<Object[]> contacts = new ArrayList<>(USERS);
+        OffsetDateTime now = OffsetDateTime.now();
+
+        for (int i = 0; i < USERS; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            users.add(new Object[]{id, "user" + i + "@test.com", "password", "User " + i, (short) 8,
+                    id + ".png", now});
+            contacts.add(new Object[]{id, (short) 1, "7000" + i, now});
+        }
+
+        jdbcTemplate.batchUpdate("insert into users(id, email, password, name, roles_mask, " +
+                "profile_picture_file_name, created_at) values (?, ?, ?, ?, ?, ?, ?)", users);
+        jdbcTemplate.batchUpdate("insert into contacts(id, city_id, phone_number1, created_at) values (?, ?, ?, ?)",
+                contacts);
+
+        URL url = new URL("https://s3.eu-central-1.amazonaws.com/test-bucket/picture.png");
+        when(amazonS3.doesObjectExist(anyString(), anyString())).thenAnswer(invocation -> {
+            Thread.sleep(S3_ROUND_TRIP_MILLIS);
+            return true;
+        });
+        when(amazonS3.generatePresignedUrl(anyString(), anyString(), any(), any(HttpMethod.class))).thenReturn(url);
+    }
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.update("delete from contacts where phone_number1 like '7000%'");
+        jdbcTemplate.update("delete from users where email like 'user%@test.com'");
+    }
+
+    @Test
+    void compareBlockingAndNonBlockingReads() {
+        LoopResources loopResources = LoopResources.create("load", 1, true);
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("load")
+                .maxConnections(CONNECTIONS)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofMinutes(1))
+                .build();
+        // every request is sent as a doctor, who may read any user
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .runOn(loopResources)
+                .baseUrl("http://localhost:" + port + "/user-service")
+                .headers(headers -> headers
+                        .add("userId", UUID.randomUUID().toString())
+                        .add("role", UserRole.ROLE_DOCTOR.name()));
+
+        try {
+            // API v2 first, so that Tomcat threads started by API v1 are not counted for it
+            List<Result> results = List.of(
+                    measure(httpClient, "v2 GET /users/{id}", id -> "/api/v2/users/" + id),
+                    measure(httpClient, "v2 GET /{id}/profile-picture",
+                            id -> "/api/v2/users/" + id + "/profile-picture"),
+                    measure(httpClient, "v1 GET /users/{id}", id -> "/api/v1/users/" + id),
+                    measure(httpClient, "v1 GET /{id}/profile-picture",
+                            id -> "/api/v1/users/" + id + "/profile-picture"));
+
+            System.out.printf("%n%-30s %10s %10s %10s %10s %10s %10s %10s%n", CONNECTIONS + " connections", "req/s",
+                    "errors", "p50 ms", "p99 ms", "req thr", "threads", "peak thr");
+            results.forEach(Result::print);
+        } finally {
+            connectionProvider.disposeLater().block();
+            loopResources.disposeLater().block();
+        }
+    }
+
+    private Result measure(HttpClient httpClient, String name, Path path) {
+        run(httpClient, path, WARM_UP_MILLIS);
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        threadMXBean.resetPeakThreadCount();
+        ThreadPoolExecutor requestThreads = (ThreadPoolExecutor) ((TomcatWebServer) applicationContext.getWebServer())
+                .getTomcat().getConnector().getProtocolHandler().getExecutor();
+        AtomicInteger maxBusyRequestThreads = new AtomicInteger();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> maxBusyRequestThreads.accumulateAndGet(requestThreads.getActiveCount(),
+                Math::max), 0, 10, TimeUnit.MILLISECONDS);
+
+        try {
+            VirtualUser[] virtualUsers = run(httpClient, path, MEASURED_MILLIS);
+            long[] nanos = Arrays.stream(virtualUsers)
+                    .flatMapToLong(virtualUser -> Arrays.stream(virtualUser.latencies, 0, virtualUser.count))
+                    .sorted()
+                    .toArray();
+            long errors = Arrays.stream(virtualUsers).mapToLong(virtualUser -> virtualUser.errors).sum();
+
+            return new Result(name, nanos.length * 1000.0 / MEASURED_MILLIS, errors,
+                    nanos[nanos.length / 2] / 1e6, nanos[(int) (nanos.length * 0.99)] / 1e6,
+                    maxBusyRequestThreads.get(), requestThreads.getPoolSize(), threadMXBean.getPeakThreadCount());
+        } finally {
+            sampler.shutdownNow();
+        }
+    }
+
+    /**
+     * Sends requests for random users over all connections for the given time, the next request of a connection as
+     * soon as the previous one is answered
+     */
+    private VirtualUser[] run(HttpClient httpClient, Path path, long millis) {
+        AtomicBoolean running = new AtomicBoolean(true);
+        VirtualUser[] virtualUsers = new VirtualUser[CONNECTIONS];
+        Arrays.setAll(virtualUsers, i -> new VirtualUser());
+        Mono<Void> load = Flux.fromArray(virtualUsers)
+                .flatMap(virtualUser -> Mono.defer(() -> {
+                            UUID id = ids.get(ThreadLocalRandom.current().nextInt(USERS));
+                            long start = System.nanoTime();
+
+                            return httpClient.get()
+                                    .uri(path.of(id))
+                                    .responseSingle((response, body) -> body.asString()
+                                            .then(Mono.just(response.status().code())))
+                                    .doOnNext(status -> virtualUser.record(status, System.nanoTime() - start));
+                        })
+                        .repeat(running::get), CONNECTIONS)
+                .then();
+
+        Mono.delay(Duration.ofMillis(millis)).subscribe(ignored -> running.set(false));
+        load.block();
+
+        return virtualUsers;
+    }
+
+    @FunctionalInterface
+    private interface Path {
+
+        String of(UUID id);
+    }
+
+    /**
+     * Latencies of requests sent over one connection, written by one request at a time
+     */
+    private static class VirtualUser {
+
+        private long[] latencies = new long[256];
+        private int count;
+        private long errors;
+
+        void record(int status, long nanos) {
+            if (status != 200) {
+                errors++;
+                return;
+            }
+
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+
+            latencies[count++] = nanos;
+        }
+    }
+
+    private record Result(String name, double requestsPerSecond, long errors, double p50Millis, double p99Millis,
+                          int busyRequestThreads, int requestThreads, int peakThreads) {
+
+        void print() {
+            System.out.printf("%-30s %10.0f %10d %10.2f %10.2f %10d %10d %10d%n", name, requestsPerSecond, errors,
+                    p50Millis, p99Millis, busyRequestThreads, requestThreads, peakThreads);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package kz.smarthealth.userservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kz.smarthealth.userservice.config.UserLoaderBatchingConfig;
+import kz.smarthealth.userservice.model.dto.UserDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link BatchingUserLoader}
+ */
+class BatchingUserLoaderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Set<UUID>> queriedBatches = new CopyOnWriteArrayList<>();
+    private final UUID missingId = UUID.randomUUID();
+    private BatchingUserLoader underTest;
+
+    @AfterEach
+    void afterEach() {
+        underTest.destroy();
+    }
+
+    @Test
+    void load_resolvesFullBatchWithOneQuery() throws Exception {
+        // given
+        underTest = loader(4, TimeUnit.SECONDS.toMicros(10), this::queryUsers);
+        UUID[] ids = {UUID.randomUUID(), UUID.randomUUID(), missingId, UUID.randomUUID()};
+        // when
+        List<CompletableFuture<UserDTO>> users = new ArrayList<>();
+
+        for (UUID id : ids) {
+            users.add(underTest.load(id));
+        }
+
+        // then
+        assertEquals(ids[0], users.get(0).get(5, TimeUnit.SECONDS).getId());
+        assertNull(users.get(2).get(5, TimeUnit.SECONDS));
+        assertEquals(ids[3], users.get(3).get(5, TimeUnit.SECONDS).getId());
+        assertEquals(List.of(Set.of(ids)), queriedBatches);
+        assertEquals(4, meterRegistry.get("user-loader.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    void load_resolvesPartialBatch_afterMaxDelay() {
+        // given
+        underTest = loader(64, 1000, this::queryUsers);
+        UUID id = UUID.randomUUID();
+        // when
+        UserDTO userDTO = underTest.get(id);
+        // then
+        assertEquals(id, userDTO.getId());
+        assertEquals(List.of(Set.of(id)), queriedBatches);
+    }
+
+    @Test
+    void load_queriesDuplicateIdsOnce() throws Exception {
+        // given
+        underTest = loader(2, TimeUnit.SECONDS.toMicros(10), this::queryUsers);
+        UUID id = UUID.randomUUID();
+        // when
+        CompletableFuture<UserDTO> first = underTest.load(id);
+        CompletableFuture<UserDTO> second = underTest.load(id);
+        // then
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(Set.of(id)), queriedBatches);
+    }
+
+    @Test
+    void get_throwsExceptionOfQuery_atEveryCaller() {
+        // given
+        IllegalStateException exception = new IllegalStateException("query failed");
+        underTest = loader(2, TimeUnit.SECONDS.toMicros(10), ids -> {
+            throw exception;
+        });
+        CompletableFuture<UserDTO> other = underTest.load(UUID.randomUUID());
+        // when
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> underTest.get(UUID.randomUUID()));
+        // then
+        assertSame(exception, thrown);
+        assertTrue(other.isCompletedExceptionally());
+    }
+
+    private Map<UUID, UserDTO> queryUsers(Set<UUID> ids) {
+        queriedBatches.add(Set.copyOf(ids));
+        Map<UUID, UserDTO> users = new HashMap<>();
+        ids.stream()
+                .filter(id -> !id.equals(missingId))
+                .forEach(id -> users.put(id, UserDTO.builder().id(id).build()));
+
+        return users;
+    }
+
+    private BatchingUserLoader loader(int maxBatchSize, long maxDelayMicros,
+                                      Function<Set<UUID>, Map<UUID, UserDTO>> batchLoader) {
+        UserLoaderBatchingConfig config = new UserLoaderBatchingConfig();
+        config.setMaxBatchSize(maxBatchSize);
+        config.setMaxDelayMicros(maxDelayMicros);
+        config.setConcurrency(2);
+
+        return new BatchingUserLoader(config, batchLoader, meterRegistry);
+    }
+}
@@ -0,0 +1,115 @@
+package kz.smarthealth.userservice.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kz.smarthealth.userservice.config.CacheInvalidationConfig;
+import kz.smarthealth.userservice.config.UserCacheConfig;
+import kz.smarthealth.userservice.model.dto.UserDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Integration test of {@link CacheInvalidationBus}: two replicas, each with its own application context and
+ * {@link UserCache}, connected through an embedded Kafka broker
+ */
+@EmbeddedKafka(topics = "user-service-cache-invalidation", partitions = 1)
+class CacheInvalidationBusTest {
+
+    private static final long TIMEOUT_MILLIS = 30_000;
+
+    @Test
+    void invalidate_evictsUsersOnOtherReplica(EmbeddedKafkaBroker broker) throws InterruptedException {
+        // given
+        UUID firstId = UUID.randomUUID();
+        UUID secondId = UUID.randomUUID();
+
+        try (ConfigurableApplicationContext replica1 = startReplica(broker);
+             ConfigurableApplicationContext replica2 = startReplica(broker)) {
+            Map<UUID, AtomicInteger> replica2Loads = new ConcurrentHashMap<>();
+            UserCache replica1Cache = replica1.getBean(UserCache.class);
+            UserCache replica2Cache = replica2.getBean(UserCache.class);
+            replica2Cache.get(firstId, loader(replica2Loads));
+            replica2Cache.get(secondId, loader(replica2Loads));
+            // when
+            replica1Cache.invalidate(firstId);
+            replica1Cache.invalidate(secondId);
+            // then
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+
+            // a user evicted on replica 2 is loaded again
+            while (System.currentTimeMillis() < deadline) {
+                replica2Cache.get(firstId, loader(replica2Loads));
+                replica2Cache.get(secondId, loader(replica2Loads));
+
+                if (replica2Loads.get(firstId).get() > 1 && replica2Loads.get(secondId).get() > 1) {
+                    break;
+                }
+
+                Thread.sleep(50);
+            }
+
+            assertEquals(2, replica2Loads.get(firstId).get());
+            assertEquals(2, replica2Loads.get(secondId).get());
+            assertEquals(2, counter(replica1, "published"));
+            assertEquals(2, counter(replica2, "received"));
+            assertEquals(0, counter(replica1, "received"));
+        }
+    }
+
+    private static ConfigurableApplicationContext startReplica(EmbeddedKafkaBroker broker) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ReplicaConfig.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.kafka.properties.bootstrap.servers=" + broker.getBrokersAsString(),
+                        "--cache.invalidation.enabled=true",
+                        "--cache.invalidation.flush-interval-ms=10");
+        // invalidations are consumed from the latest offset, so replica must be subscribed before anything is sent
+        context.getBean(KafkaListenerEndpointRegistry.class).getListenerContainers()
+                .forEach(container -> ContainerTestUtils.waitForAssignment(container, 1));
+
+        return context;
+    }
+
+    private static Function<UUID, UserDTO> loader(Map<UUID, AtomicInteger> loads) {
+        return id -> {
+            loads.computeIfAbsent(id, key -> new AtomicInteger()).incrementAndGet();
+            return UserDTO.builder().id(id).build();
+        };
+    }
+
+    private static double counter(ConfigurableApplicationContext context, String direction) {
+        return context.getBean(MeterRegistry.class).get("cache.invalidation.ids").tag("direction", direction)
+                .counter().count();
+    }
+
+    @Configuration
+    @EnableScheduling
+    @Import({PropertyPlaceholderAutoConfiguration.class, KafkaAutoConfiguration.class, UserCacheConfig.class,
+            CacheInvalidationConfig.class, UserCache.class, CacheInvalidationBus.class})
+    static class ReplicaConfig {
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
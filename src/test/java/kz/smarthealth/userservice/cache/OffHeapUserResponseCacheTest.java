@@ -0,0 +1,137 @@
+package kz.smarthealth.userservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kz.smarthealth.userservice.config.UserResponseCacheConfig;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link OffHeapUserResponseCache}
+ */
+class OffHeapUserResponseCacheTest {
+
+    private static final int SLOT_SIZE = 512;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong(1_000);
+
+    @Test
+    void get_returnsPlainAndGzippedJson() throws IOException {
+        // given
+        OffHeapUserResponseCache underTest = cache(4);
+        UUID id = UUID.randomUUID();
+        byte[] json = json(id);
+        underTest.put(id, underTest.getVersion(), 3, json);
+        // when
+        OffHeapUserResponseCache.Response plain = underTest.get(id, false);
+        byte[] plainBytes = toArray(plain.json());
+        byte[] gzipped = toArray(underTest.get(id, true).json());
+        // then
+        assertArrayEquals(json, plainBytes);
+        assertEquals(3, plain.userVersion());
+        assertArrayEquals(json, new GZIPInputStream(new ByteArrayInputStream(gzipped)).readAllBytes());
+        assertEquals(2, meterRegistry.get("cache.gets").tag("result", "hit").counter().count());
+        assertEquals(json.length + gzipped.length, meterRegistry.get("cache.off-heap.used").gauge().value());
+        assertEquals(4 * SLOT_SIZE, meterRegistry.get("cache.off-heap.capacity").gauge().value());
+    }
+
+    @Test
+    void put_evictsSlotNotReadSinceLastPass_whenFull() {
+        // given
+        OffHeapUserResponseCache underTest = cache(3);
+        UUID[] ids = {UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()};
+
+        for (int i = 0; i < 3; i++) {
+            underTest.put(ids[i], underTest.getVersion(), 0, json(ids[i]));
+        }
+
+        underTest.get(ids[0], false);
+        underTest.get(ids[2], false);
+        // when
+        underTest.put(ids[3], underTest.getVersion(), 0, json(ids[3]));
+        // then
+        assertNotNull(underTest.get(ids[0], false));
+        assertNull(underTest.get(ids[1], false));
+        assertNotNull(underTest.get(ids[2], false));
+        assertNotNull(underTest.get(ids[3], false));
+        assertEquals(1, meterRegistry.get("cache.evictions").functionCounter().count());
+    }
+
+    @Test
+    void put_dropsResponse_whenInvalidatedAfterVersionTaken() {
+        // given
+        OffHeapUserResponseCache underTest = cache(4);
+        UUID id = UUID.randomUUID();
+        long version = underTest.getVersion();
+        // when
+        underTest.invalidate(id);
+        underTest.put(id, version, 0, json(id));
+        // then
+        assertNull(underTest.get(id, false));
+    }
+
+    @Test
+    void invalidate_removesResponse_andKeepsOtherResponsesReachable() {
+        // given
+        OffHeapUserResponseCache underTest = cache(64);
+        UUID[] ids = new UUID[64];
+
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = UUID.randomUUID();
+            underTest.put(ids[i], underTest.getVersion(), 0, json(ids[i]));
+        }
+        // when
+        for (int i = 0; i < ids.length; i += 2) {
+            underTest.invalidate(ids[i]);
+        }
+        // then
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(i % 2 == 1, underTest.get(ids[i], false) != null);
+        }
+    }
+
+    @Test
+    void get_returnsNull_whenExpiredOrTooLarge() {
+        // given
+        OffHeapUserResponseCache underTest = cache(4);
+        UUID id = UUID.randomUUID();
+        UUID largeId = UUID.randomUUID();
+        underTest.put(id, underTest.getVersion(), 0, json(id));
+        underTest.put(largeId, underTest.getVersion(), 0, new byte[SLOT_SIZE]);
+        // when
+        clock.addAndGet(60_000);
+        // then
+        assertNull(underTest.get(id, false));
+        assertNull(underTest.get(largeId, false));
+    }
+
+    private OffHeapUserResponseCache cache(int slots) {
+        UserResponseCacheConfig userResponseCacheConfig = new UserResponseCacheConfig();
+        userResponseCacheConfig.setMaxSizeBytes((long) slots * SLOT_SIZE);
+        userResponseCacheConfig.setSlotSizeBytes(SLOT_SIZE);
+        userResponseCacheConfig.setTtlSeconds(60);
+
+        return new OffHeapUserResponseCache(userResponseCacheConfig, meterRegistry, clock::get);
+    }
+
+    private static byte[] json(UUID id) {
+        return ("{\"id\":\"" + id + "\",\"email\":\"test@test.com\",\"name\":\"Test\"}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+
+        return bytes;
+    }
+}
@@ -0,0 +1,118 @@
+package kz.smarthealth.userservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link SingleFlight}
+ */
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight underTest = new SingleFlight(meterRegistry);
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final CountDownLatch lookupStarted = new CountDownLatch(1);
+    private final CountDownLatch lookupReleased = new CountDownLatch(1);
+
+    @AfterEach
+    void afterEach() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_sharesLookupInFlight_andPublishesCoalescingRatio() throws Exception {
+        // given
+        List<Future<String>> results = callConcurrently(() -> "result");
+        // when
+        lookupReleased.countDown();
+        // then
+        for (Future<String> result : results) {
+            assertEquals("result", result.get(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, lookups.get());
+        assertEquals(1, meterRegistry.get("single-flight.calls").tags("name", "test", "result", "executed")
+                .counter().count());
+        assertEquals(CALLERS - 1, meterRegistry.get("single-flight.calls").tags("name", "test", "result", "coalesced")
+                .counter().count());
+        assertEquals((CALLERS - 1) / (double) CALLERS,
+                meterRegistry.get("single-flight.coalescing.ratio").tag("name", "test").gauge().value());
+    }
+
+    @Test
+    void execute_throwsExceptionOfLookup_atEveryWaiter() throws Exception {
+        // given
+        IllegalStateException exception = new IllegalStateException("lookup failed");
+        List<Future<String>> results = callConcurrently(() -> {
+            throw exception;
+        });
+        // when
+        lookupReleased.countDown();
+        // then
+        for (Future<String> result : results) {
+            ExecutionException thrown = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertSame(exception, thrown.getCause());
+        }
+
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void execute_runsLookupAgain_onceCompleted() {
+        // when
+        underTest.execute("test", "key", lookups::incrementAndGet);
+        underTest.execute("test", "key", lookups::incrementAndGet);
+        underTest.execute("other", "key", lookups::incrementAndGet);
+        // then
+        assertEquals(3, lookups.get());
+    }
+
+    /**
+     * Starts callers of the same key, the first of which blocks in the lookup until released, and waits until the
+     * others wait for it
+     */
+    private List<Future<String>> callConcurrently(Callable<String> lookup) throws Exception {
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> execute(lookup)));
+        assertTrue(lookupStarted.await(5, TimeUnit.SECONDS));
+
+        for (int i = 1; i < CALLERS; i++) {
+            results.add(executor.submit(() -> execute(lookup)));
+        }
+
+        while (meterRegistry.find("single-flight.calls").tag("result", "coalesced").counter() == null
+                || meterRegistry.get("single-flight.calls").tag("result", "coalesced").counter().count()
+                < CALLERS - 1) {
+            Thread.onSpinWait();
+        }
+
+        return results;
+    }
+
+    private String execute(Callable<String> lookup) {
+        return underTest.execute("test", "key", () -> {
+            lookups.incrementAndGet();
+            lookupStarted.countDown();
+
+            try {
+                lookupReleased.await();
+                return lookup.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
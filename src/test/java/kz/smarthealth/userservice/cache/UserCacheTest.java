@@ -0,0 +1,176 @@
+package kz.smarthealth.userservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kz.smarthealth.userservice.config.UserCacheConfig;
+import kz.smarthealth.userservice.model.dto.UserDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link UserCache}
+ */
+class UserCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserCache underTest = new UserCache(userCacheConfig(), meterRegistry);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<UUID, UserDTO> loader = id -> {
+        loads.incrementAndGet();
+        return UserDTO.builder().id(id).name("name").build();
+    };
+
+    @Test
+    void get_loadsUserOnce_andPublishesMetrics() {
+        // given
+        UUID id = UUID.randomUUID();
+        // when
+        UserDTO first = underTest.get(id, loader);
+        UserDTO second = underTest.get(id, loader);
+        // then
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, meterRegistry.get("cache.gets").tags("cache", "users", "result", "hit")
+                .functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tags("cache", "users", "result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void get_doesNotCacheUser_whenLoaderThrowsException() {
+        // given
+        UUID id = UUID.randomUUID();
+        // when
+        assertThrows(IllegalStateException.class, () -> underTest.get(id, key -> {
+            throw new IllegalStateException();
+        }));
+        underTest.get(id, loader);
+        // then
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidate_removesUser_whenNoTransaction() {
+        // given
+        UUID id = UUID.randomUUID();
+        underTest.get(id, loader);
+        // when
+        underTest.invalidate(id);
+        underTest.get(id, loader);
+        // then
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidate_removesUser_afterTransactionCompletes() {
+        // given
+        UUID id = UUID.randomUUID();
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            // when
+            underTest.get(id, loader);
+            underTest.invalidate(id);
+            // then
+            underTest.get(id, loader);
+            assertEquals(1, loads.get());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(
+                            TransactionSynchronization.STATUS_COMMITTED));
+            underTest.get(id, loader);
+            assertEquals(2, loads.get());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void putIfNotInvalidated_cachesUser_unlessInvalidationHappenedAfterVersion() {
+        // given
+        UUID id = UUID.randomUUID();
+        UUID otherId = UUID.randomUUID();
+        UserDTO user = UserDTO.builder().id(id).build();
+        long version = underTest.getVersion();
+        // when
+        underTest.putIfNotInvalidated(id, user, version);
+        underTest.invalidate(UUID.randomUUID());
+        underTest.putIfNotInvalidated(otherId, UserDTO.builder().id(otherId).build(), version);
+        // then
+        assertSame(user, underTest.getIfPresent(id));
+        assertNull(underTest.getIfPresent(otherId));
+    }
+
+    @Test
+    void getAll_loadsOnlyMissingUsers_inOneCall() {
+        // given
+        UUID cachedId = UUID.randomUUID();
+        UUID missingId = UUID.randomUUID();
+        UUID unknownId = UUID.randomUUID();
+        UserDTO cachedUser = underTest.get(cachedId, loader);
+        List<Set<? extends UUID>> loadedIds = new ArrayList<>();
+        // when
+        Map<UUID, UserDTO> users = underTest.getAll(List.of(unknownId, missingId, cachedId), ids -> {
+            loadedIds.add(Set.copyOf(ids));
+            return Map.of(missingId, UserDTO.builder().id(missingId).build());
+        });
+        // then
+        assertEquals(List.of(missingId, cachedId), List.copyOf(users.keySet()));
+        assertSame(cachedUser, users.get(cachedId));
+        assertEquals(List.of(Set.of(unknownId, missingId)), loadedIds);
+        assertSame(users.get(missingId), underTest.getIfPresent(missingId));
+        assertNull(underTest.getIfPresent(unknownId));
+    }
+
+    @Test
+    void getAll_doesNotCacheStaleUser_whenInvalidatedDuringLoad() throws Exception {
+        // given
+        UUID id = UUID.randomUUID();
+        UserDTO staleUser = UserDTO.builder().id(id).name("stale").build();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        CompletableFuture<Map<UUID, UserDTO>> bulkLoad = CompletableFuture.supplyAsync(() ->
+                underTest.getAll(List.of(id), ids -> {
+                    loading.countDown();
+                    await(invalidated);
+                    return Map.of(id, staleUser);
+                }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        // when
+        underTest.invalidate(id);
+        invalidated.countDown();
+        // then
+        assertSame(staleUser, bulkLoad.get(5, TimeUnit.SECONDS).get(id));
+        assertNull(underTest.getIfPresent(id));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static UserCacheConfig userCacheConfig() {
+        UserCacheConfig userCacheConfig = new UserCacheConfig();
+        userCacheConfig.setMaxSizeBytes(1 << 20);
+        userCacheConfig.setTtlSeconds(300);
+
+        return userCacheConfig;
+    }
+}
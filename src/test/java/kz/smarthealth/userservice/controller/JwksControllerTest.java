@@ -0,0 +1,58 @@
+package kz.smarthealth.userservice.controller;
+
+import kz.smarthealth.userservice.config.JwtConfig;
+import kz.smarthealth.userservice.security.JwtAlgorithm;
+import kz.smarthealth.userservice.security.JwtKeyRing;
+import kz.smarthealth.userservice.security.JwtSigningKey;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link JwksController}
+ */
+class JwksControllerTest {
+
+    @Test
+    void getJwks_returnsCurrentAndNextKeys_withCacheControl() {
+        // given
+        List<JwtSigningKey> keySet = List.of(JwtSigningKey.generate(JwtAlgorithm.RS256),
+                JwtSigningKey.generate(JwtAlgorithm.RS256));
+        JwtKeyRing keyRing = new JwtKeyRing(JwtAlgorithm.RS256, () -> keySet);
+        JwksController underTest = new JwksController(
+                new StaticListableBeanFactory(Map.of("jwtKeyRing", keyRing)).getBeanProvider(JwtKeyRing.class),
+                jwtConfig());
+        // when
+        ResponseEntity<Map<String, Object>> response = underTest.getJwks();
+        // then
+        List<?> keys = (List<?>) response.getBody().get("keys");
+
+        assertEquals("max-age=300, public", response.getHeaders().getFirst(HttpHeaders.CACHE_CONTROL));
+        assertEquals(2, keys.size());
+        assertEquals(keyRing.getCurrentKey().getJwk(), keys.get(0));
+    }
+
+    @Test
+    void getJwks_returnsNoKeys_whenTokensSignedWithSharedSecret() {
+        // given
+        JwksController underTest = new JwksController(
+                new StaticListableBeanFactory().getBeanProvider(JwtKeyRing.class), jwtConfig());
+        // when
+        ResponseEntity<Map<String, Object>> response = underTest.getJwks();
+        // then
+        assertEquals(List.of(), response.getBody().get("keys"));
+    }
+
+    private JwtConfig jwtConfig() {
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setJwksMaxAgeSeconds(300);
+
+        return jwtConfig;
+    }
+}
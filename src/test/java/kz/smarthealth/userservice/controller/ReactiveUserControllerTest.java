@@ -0,0 +1,203 @@
+package kz.smarthealth.userservice.controller;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import kz.smarthealth.userservice.model.dto.*;
+import kz.smarthealth.userservice.model.entity.UserEntity;
+import kz.smarthealth.userservice.repository.ContactRepository;
+import kz.smarthealth.userservice.repository.UserRepository;
+import kz.smarthealth.userservice.service.PatientKafkaProducerService;
+import kz.smarthealth.userservice.util.MessageSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static kz.smarthealth.userservice.util.TestData.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doNothing;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for {@link ReactiveUserController}
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.yml")
+class ReactiveUserControllerTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @MockBean
+    private PatientKafkaProducerService patientKafkaProducerService;
+
+    @MockBean
+    private AmazonS3 amazonS3;
+
+    @BeforeEach
+    void beforeEach() throws JsonProcessingException {
+        doNothing().when(patientKafkaProducerService).sendMessage(any());
+    }
+
+    @AfterEach
+    void afterEach() {
+        userRepository.findByEmail(TEST_EMAIL).ifPresent(entity -> {
+            contactRepository.deleteById(entity.getContact().getId());
+            userRepository.deleteById(entity.getId());
+        });
+    }
+
+    @Test
+    void getUserById_returnsUser() throws Exception {
+        // given
+        createUser(UserRole.ROLE_PATIENT);
+        UserEntity userEntity = userRepository.findByEmail(TEST_EMAIL).get();
+        // when
+        MvcResult mvcResult = perform(get("/api/v2/users/" + userEntity.getId(), userEntity, UserRole.ROLE_PATIENT))
+                .andExpect(status().isOk()).andReturn();
+        // then
+        UserDTO userDTO = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), UserDTO.class);
+
+        assertEquals(TEST_EMAIL, userDTO.getEmail());
+        assertEquals(TEST_NAME, userDTO.getName());
+        assertEquals(Set.of(UserRole.ROLE_PATIENT), userDTO.getRoles());
+        assertEquals(TEST_CITY, userDTO.getContact().getCityId());
+        assertEquals(TEST_PHONE_NUMBER_1, userDTO.getContact().getPhoneNumber1());
+    }
+
+    @Test
+    void getUserById_forbidden_whenAccessRestricted() throws Exception {
+        // given
+        createUser(UserRole.ROLE_PATIENT);
+        UserEntity userEntity = userRepository.findByEmail(TEST_EMAIL).get();
+        // when
+        this.mockMvc.perform(get("/api/v2/users/" + UUID.randomUUID(), userEntity, UserRole.ROLE_PATIENT))
+                // then
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void getUserById_notFound_whenInvalidUserIdProvided() throws Exception {
+        // given
+        UUID invalidUserId = UUID.randomUUID();
+        createUser(UserRole.ROLE_DOCTOR);
+        UserEntity userEntity = userRepository.findByEmail(TEST_EMAIL).get();
+        // when
+        MvcResult mvcResult = perform(get("/api/v2/users/" + invalidUserId, userEntity, UserRole.ROLE_DOCTOR))
+                .andExpect(status().isNotFound()).andReturn();
+        // then
+        ErrorResponseDTO errorResponseDTO = objectMapper.readValue(mvcResult.getResponse().getContentAsString(),
+                ErrorResponseDTO.class);
+
+        assertEquals(HttpStatus.NOT_FOUND.value(), errorResponseDTO.getCode());
+        assertEquals(MessageSource.USER_BY_ID_NOT_FOUND.getText(invalidUserId.toString()),
+                errorResponseDTO.getMessage());
+    }
+
+    @Test
+    void getUsersByIds_reportsNotFoundAndForbiddenIds() throws Exception {
+        // given
+        createUser(UserRole.ROLE_DOCTOR);
+        UserEntity userEntity = userRepository.findByEmail(TEST_EMAIL).get();
+        UUID notFoundId = UUID.randomUUID();
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post("/api/v2/users/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new UserBatchRequestDTO(List.of(notFoundId, userEntity.getId()))))
+                .header("userId", userEntity.getId().toString())
+                .header("role", UserRole.ROLE_DOCTOR)
+                .characterEncoding("utf-8");
+        // when
+        MvcResult mvcResult = perform(request).andExpect(status().isOk()).andReturn();
+        // then
+        UserBatchResponseDTO response = objectMapper.readValue(mvcResult.getResponse().getContentAsString(),
+                UserBatchResponseDTO.class);
+
+        assertEquals(1, response.getUsers().size());
+        assertEquals(TEST_EMAIL, response.getUsers().get(0).getEmail());
+        assertEquals(List.of(notFoundId), response.getNotFound());
+        assertTrue(response.getForbidden().isEmpty());
+    }
+
+    @Test
+    void getProfilePicturePreSignedUrl_returnsEmpty_whenNoPictureUploaded() throws Exception {
+        // given
+        createUser(UserRole.ROLE_PATIENT);
+        UserEntity userEntity = userRepository.findByEmail(TEST_EMAIL).get();
+        // when
+        MvcResult mvcResult = perform(get("/api/v2/users/" + userEntity.getId() + "/profile-picture", userEntity,
+                UserRole.ROLE_PATIENT))
+                .andExpect(status().isOk()).andReturn();
+        // then
+        assertEquals("", mvcResult.getResponse().getContentAsString());
+    }
+
+    /**
+     * Performs request, which starts async processing, and dispatches its result
+     */
+    private ResultActions perform(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult mvcResult = this.mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return this.mockMvc.perform(asyncDispatch(mvcResult));
+    }
+
+    private MockHttpServletRequestBuilder get(String url, UserEntity userEntity, UserRole role) {
+        return MockMvcRequestBuilders.get(url)
+                .header("userId", userEntity.getId().toString())
+                .header("role", role);
+    }
+
+    private void createUser(UserRole role) throws Exception {
+        UserDTO userDTO = UserDTO.builder()
+                .email(TEST_EMAIL)
+                .name(TEST_NAME)
+                .birthDate(TEST_BIRTH_DATE)
+                .contact(ContactDTO.builder()
+                        .cityId(TEST_CITY)
+                        .phoneNumber1(TEST_PHONE_NUMBER_1)
+                        .build())
+                .roles(Set.of(role))
+                .doctorTypeId(TEST_DOCTOR_TYPE)
+                .build();
+        String requestBody = objectMapper.writeValueAsString(userDTO);
+        requestBody = requestBody.substring(0, requestBody.length() - 1) +
+                ",\"password\":" + "\"" + TEST_PASSWORD + "\"" + "}";
+        this.mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/users/sign-up")
+                        .contentType(MediaType.APPLICATION_JSON).content(requestBody)
+                        .characterEncoding("utf-8"))
+                .andExpect(status().isCreated());
+    }
+}
@@ -19,13 +19,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.util.*;
@@ -252,6 +256,51 @@ class UserControllerTest {
         assertNotNull(signInResponseDTO.getUser());
     }
 
+    @Test
+    void authenticateUser_keepsPassword_whenStoredWithHigherStrength() throws Exception {
+        // given
+        createUser(TEST_EMAIL, TEST_PASSWORD, UserRole.ROLE_PATIENT);
+        UserEntity userEntity = userRepository.findByEmail(TEST_EMAIL).get();
+        String storedPassword = new BCryptPasswordEncoder(5).encode(TEST_PASSWORD);
+        userEntity.setPassword(storedPassword);
+        userRepository.save(userEntity);
+        // when
+        signIn(TEST_EMAIL, TEST_PASSWORD);
+        // then
+        assertEquals(storedPassword, userRepository.findByEmail(TEST_EMAIL).get().getPassword());
+    }
+
+    @Test
+    void refreshToken_rotatesRefreshToken() throws Exception {
+        // given
+        createUser(TEST_EMAIL, TEST_PASSWORD, UserRole.ROLE_PATIENT);
+        String refreshToken = signIn(TEST_EMAIL, TEST_PASSWORD).getRefreshToken();
+        // when
+        MvcResult mvcResult = refreshToken(refreshToken).andExpect(status().isOk()).andReturn();
+        // then
+        TokenResponseDTO tokenResponseDTO = objectMapper.readValue(mvcResult.getResponse().getContentAsString(),
+                TokenResponseDTO.class);
+
+        assertFalse(StringUtils.isBlank(tokenResponseDTO.getAccessToken()));
+        assertFalse(StringUtils.isBlank(tokenResponseDTO.getRefreshToken()));
+        assertNotEquals(refreshToken, tokenResponseDTO.getRefreshToken());
+        refreshToken(tokenResponseDTO.getRefreshToken()).andExpect(status().isOk());
+    }
+
+    @Test
+    void refreshToken_revokesTokenFamily_whenRefreshTokenReused() throws Exception {
+        // given
+        createUser(TEST_EMAIL, TEST_PASSWORD, UserRole.ROLE_PATIENT);
+        String refreshToken = signIn(TEST_EMAIL, TEST_PASSWORD).getRefreshToken();
+        MvcResult mvcResult = refreshToken(refreshToken).andExpect(status().isOk()).andReturn();
+        String rotatedRefreshToken = objectMapper.readValue(mvcResult.getResponse().getContentAsString(),
+                TokenResponseDTO.class).getRefreshToken();
+        // when
+        refreshToken(refreshToken).andExpect(status().isUnauthorized());
+        // then
+        refreshToken(rotatedRefreshToken).andExpect(status().isUnauthorized());
+    }
+
     @Test
     void getUserById_forbidden_whenAccessRestricted() throws Exception {
         // given
@@ -317,10 +366,161 @@ class UserControllerTest {
         assertEquals(userEntity.getId().toString(), map.get("id").toString());
         assertEquals(userEntity.getEmail(), userDTO.getEmail());
         assertNull(map.get("password"));
-        assertTrue(userDTO.getRoles().contains(UserRole.valueOf(userEntity.getRoles().iterator().next().getName())));
+        assertTrue(userDTO.getRoles().contains(userEntity.getRoles().iterator().next()));
         assertNotNull(userEntity.getContact());
     }
 
+    @Test
+    void getUsersByIds_returnsReadableUsers_andReportsForbiddenIds() throws Exception {
+        // given
+        UUID otherUserId = UUID.fromString("33bb9554-c616-42e6-a9c6-88d3bba4221c");
+        UUID missingUserId = UUID.randomUUID();
+        createUser(TEST_EMAIL, TEST_PASSWORD, UserRole.ROLE_PATIENT);
+        UserEntity userEntity = userRepository.findByEmail(TEST_EMAIL).get();
+        // when
+        UserBatchResponseDTO response = getUsersByIds(userEntity, UserRole.ROLE_PATIENT,
+                List.of(otherUserId, userEntity.getId(), missingUserId, userEntity.getId()));
+        // then
+        assertEquals(1, response.getUsers().size());
+        assertEquals(userEntity.getEmail(), response.getUsers().get(0).getEmail());
+        assertEquals(List.of(), response.getNotFound());
+        assertEquals(List.of(otherUserId, missingUserId), response.getForbidden());
+    }
+
+    @Test
+    void getUsersByIds_returnsUsersInRequestedOrder_andReportsMissingIds() throws Exception {
+        // given
+        UUID otherUserId = UUID.fromString("33bb9554-c616-42e6-a9c6-88d3bba4221c");
+        UUID missingUserId = UUID.randomUUID();
+        createUser(TEST_EMAIL, TEST_PASSWORD, UserRole.ROLE_DOCTOR);
+        UserEntity userEntity = userRepository.findByEmail(TEST_EMAIL).get();
+        // when
+        UserBatchResponseDTO response = getUsersByIds(userEntity, UserRole.ROLE_DOCTOR,
+                List.of(otherUserId, missingUserId, userEntity.getId()));
+        // then
+        assertEquals(List.of("test@test.com", userEntity.getEmail()),
+                response.getUsers().stream().map(UserDTO::getEmail).toList());
+        assertEquals("12345678", response.getUsers().get(0).getContact().getPhoneNumber1());
+        assertEquals(Set.of(UserRole.ROLE_PATIENT), response.getUsers().get(0).getRoles());
+        assertEquals(List.of(missingUserId), response.getNotFound());
+        assertEquals(List.of(), response.getForbidden());
+    }
+
+    @Test
+    void getUsersByIds_returnsBadRequest_whenTooManyIdsRequested() throws Exception {
+        // given
+        List<UUID> ids = new ArrayList<>();
+
+        for (int i = 0; i < 101; i++) {
+            ids.add(UUID.randomUUID());
+        }
+
+        // when
+        this.mockMvc
+                .perform(MockMvcRequestBuilders.post("/api/v1/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserBatchRequestDTO(ids)))
+                        .header("userId", UUID.randomUUID().toString())
+                        .header("role", UserRole.ROLE_ADMIN)
+                        .characterEncoding("utf-8"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getUserById_returnsRequestedFieldsOnly_whenFieldsProvided() throws Exception {
+        // given
+        createUser(TEST_EMAIL, TEST_PASSWORD, UserRole.ROLE_PATIENT);
+        UserEntity userEntity = userRepository.findByEmail(TEST_EMAIL).get();
+        // when
+        MvcResult mvcResult = this.mockMvc
+                .perform(MockMvcRequestBuilders.get("/api/v1/users/" + userEntity.getId())
+                        .param("fields", "name, lastName")
+                        .header("userId", userEntity.getId().toString())
+                        .header("role", UserRole.ROLE_PATIENT)
+                        .characterEncoding("utf-8"))
+                .andExpect(status().isOk()).andReturn();
+        // then
+        Map<String, Object> map = objectMapper.readValue(mvcResult.getResponse().getContentAsString(),
+                new TypeReference<HashMap<String, Object>>() {
+                });
+
+        assertEquals(Set.of("name", "lastName"), map.keySet());
+        assertEquals(TEST_NAME, map.get("name"));
+    }
+
+    @Test
+    void getUserById_returnsBadRequest_whenUnknownFieldsProvided() throws Exception {
+        // given
+        createUser(TEST_EMAIL, TEST_PASSWORD, UserRole.ROLE_PATIENT);
+        UserEntity userEntity = userRepository.findByEmail(TEST_EMAIL).get();
+        // when
+        MvcResult mvcResult = this.mockMvc
+                .perform(MockMvcRequestBuilders.get("/api/v1/users/" + userEntity.getId())
+                        .param("fields", "name,password")
+                        .header("userId", userEntity.getId().toString())
+                        .header("role", UserRole.ROLE_PATIENT)
+                        .characterEncoding("utf-8"))
+                .andExpect(status().isBadRequest()).andReturn();
+        // then
+        ErrorResponseDTO errorResponseDTO = objectMapper.readValue(mvcResult.getResponse().getContentAsString(),
+                ErrorResponseDTO.class);
+
+        assertEquals(MessageSource.INVALID_FIELDS.getText("password"), errorResponseDTO.getMessage());
+    }
+
+    @Test
+    void getUserById_returnsNotModified_untilUserChanges() throws Exception {
+        // given
+        createUser(TEST_EMAIL, TEST_PASSWORD, UserRole.ROLE_PATIENT);
+        UserEntity userEntity = userRepository.findByEmail(TEST_EMAIL).get();
+        String eTag = getUser(userEntity, null).andExpect(status().isOk()).andReturn()
+                .getResponse().getHeader(HttpHeaders.ETAG);
+        // when
+        MvcResult notModified = getUser(userEntity, "W/" + eTag).andExpect(status().isNotModified()).andReturn();
+        this.mockMvc.perform(MockMvcRequestBuilders.multipart("/api/v1/users/" + userEntity.getId() + "/profile-picture")
+                        .file(new MockMultipartFile("file", "picture.png", MediaType.IMAGE_PNG_VALUE, "data".getBytes()))
+                        .header("userId", userEntity.getId().toString())
+                        .header("role", UserRole.ROLE_PATIENT))
+                .andExpect(status().isOk());
+        MvcResult modified = getUser(userEntity, eTag).andExpect(status().isOk()).andReturn();
+        // then
+        assertEquals("\"" + userEntity.getId() + "-0\"", eTag);
+        assertEquals(eTag, notModified.getResponse().getHeader(HttpHeaders.ETAG));
+        assertEquals(0, notModified.getResponse().getContentLength());
+        assertEquals("\"" + userEntity.getId() + "-1\"", modified.getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void getUserById_returnsUserData_whenBearerTokenProvided() throws Exception {
+        // given
+        createUser(TEST_EMAIL, TEST_PASSWORD, UserRole.ROLE_PATIENT);
+        UserEntity userEntity = userRepository.findByEmail(TEST_EMAIL).get();
+        SignInResponseDTO signInResponseDTO = signIn(TEST_EMAIL, TEST_PASSWORD);
+        // when
+        MvcResult mvcResult = this.mockMvc
+                .perform(MockMvcRequestBuilders.get("/api/v1/users/" + userEntity.getId())
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + signInResponseDTO.getAccessToken()))
+                .andExpect(status().isOk()).andReturn();
+        // then
+        UserDTO userDTO = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), UserDTO.class);
+
+        assertEquals(userEntity.getEmail(), userDTO.getEmail());
+    }
+
+    @Test
+    void getUserById_returnsUnauthorized_whenBearerTokenIsInvalid() throws Exception {
+        // given
+        createUser(TEST_EMAIL, TEST_PASSWORD, UserRole.ROLE_PATIENT);
+        UserEntity userEntity = userRepository.findByEmail(TEST_EMAIL).get();
+        String accessToken = signIn(TEST_EMAIL, TEST_PASSWORD).getAccessToken();
+        // when
+        this.mockMvc
+                .perform(MockMvcRequestBuilders.get("/api/v1/users/" + userEntity.getId())
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken.substring(0,
+                                accessToken.lastIndexOf('.') + 1)))
+                .andExpect(status().isUnauthorized());
+    }
+
     @Test
     void uploadProfilePicture_returnsForbidden() throws Exception {
         // given
@@ -385,10 +585,65 @@ class UserControllerTest {
                         .header("role", UserRole.ROLE_PATIENT))
                 .andExpect(status().isOk()).andReturn();
 
+        String eTag = mvcResult.getResponse().getHeader(HttpHeaders.ETAG);
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/users/" + userEntity.getId() + "/profile-picture")
+                        .header("userId", userEntity.getId().toString())
+                        .header("role", UserRole.ROLE_PATIENT)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
         // then
         String preSignedUrl = mvcResult.getResponse().getContentAsString();
 
         assertTrue(StringUtils.isEmpty(preSignedUrl));
+        assertTrue(eTag.startsWith("\"" + userEntity.getId() + "-1-p"));
+    }
+
+    private ResultActions refreshToken(String refreshToken) throws Exception {
+        return this.mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/users/token/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RefreshTokenDTO(refreshToken)))
+                .characterEncoding("utf-8"));
+    }
+
+    private UserBatchResponseDTO getUsersByIds(UserEntity userEntity, UserRole role, List<UUID> ids)
+            throws Exception {
+        MvcResult mvcResult = this.mockMvc
+                .perform(MockMvcRequestBuilders.post("/api/v1/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserBatchRequestDTO(ids)))
+                        .header("userId", userEntity.getId().toString())
+                        .header("role", role)
+                        .characterEncoding("utf-8"))
+                .andExpect(status().isOk()).andReturn();
+
+        return objectMapper.readValue(mvcResult.getResponse().getContentAsString(), UserBatchResponseDTO.class);
+    }
+
+    private ResultActions getUser(UserEntity userEntity, String ifNoneMatch) throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get("/api/v1/users/" + userEntity.getId())
+                .header("userId", userEntity.getId().toString())
+                .header("role", UserRole.ROLE_PATIENT);
+
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+
+        return this.mockMvc.perform(request);
+    }
+
+    private SignInResponseDTO signIn(String email, String password) throws Exception {
+        String requestBody = objectMapper.writeValueAsString(SignInDTO.builder()
+                .email(email)
+                .password(password)
+                .build());
+        MvcResult mvcResult = this.mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/users/sign-in")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestBody)
+                        .characterEncoding("utf-8"))
+                .andExpect(status().isOk()).andReturn();
+
+        return objectMapper.readValue(mvcResult.getResponse().getContentAsString(), SignInResponseDTO.class);
     }
 
     private void createUser(String email, String password, UserRole role) throws Exception {
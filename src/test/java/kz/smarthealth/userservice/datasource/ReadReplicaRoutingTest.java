@@ -0,0 +1,121 @@
+package kz.smarthealth.userservice.datasource;
+
+import com.amazonaws.services.s3.AmazonS3;
+import kz.smarthealth.userservice.cache.UserCache;
+import kz.smarthealth.userservice.model.dto.SignInDTO;
+import kz.smarthealth.userservice.model.dto.SignInResponseDTO;
+import kz.smarthealth.userservice.model.dto.UserField;
+import kz.smarthealth.userservice.repository.UserRepository;
+import kz.smarthealth.userservice.service.PatientKafkaProducerService;
+import kz.smarthealth.userservice.service.UserService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.EnumSet;
+import java.util.UUID;
+
+import static kz.smarthealth.userservice.util.TestData.TEST_EMAIL;
+import static kz.smarthealth.userservice.util.TestData.TEST_PASSWORD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for routing of read-only transactions with replicas enabled, run against two H2 databases: the primary and a
+ * replica, both initialized from schema.sql and data.sql, the replica naming the test user "Replica"
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary",
+        "database.replicas.enabled=true",
+        "database.replicas.urls=" + ReadReplicaRoutingTest.REPLICA_URL,
+        "database.replicas.lag-query=select 0"})
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.yml")
+class ReadReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    private static final UUID TEST_USER_ID = UUID.fromString("33bb9554-c616-42e6-a9c6-88d3bba4221c");
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @MockBean
+    private PatientKafkaProducerService patientKafkaProducerService;
+
+    @MockBean
+    private AmazonS3 amazonS3;
+
+    @BeforeAll
+    static void beforeAll() {
+        DriverManagerDataSource replica = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"))
+                .execute(replica);
+        new JdbcTemplate(replica).update("update users set name = 'Replica'");
+    }
+
+    @Test
+    void readOnlyQueries_readFromReplica_otherQueriesFromPrimary() {
+        // when
+        String profileName = userRepository.findProfileById(TEST_USER_ID).orElseThrow().toUserDTO().getName();
+        String fieldsName = userRepository.findFieldsById(TEST_USER_ID, EnumSet.of(UserField.NAME)).orElseThrow()
+                .user().getName();
+        String entityName = userRepository.findById(TEST_USER_ID).orElseThrow().getName();
+        String primaryName = jdbcTemplate.queryForObject("select name from users where id = ?", String.class,
+                TEST_USER_ID);
+        // then
+        assertEquals("Replica", profileName);
+        assertEquals("Replica", fieldsName);
+        assertEquals("Replica", entityName);
+        assertEquals("Test", primaryName);
+    }
+
+    @Test
+    void getUserById_readsFromPrimary_afterUserIsWritten() {
+        // given
+        userCache.invalidate(TEST_USER_ID);
+        // when
+        String name = userService.getUserById(TEST_USER_ID).getName();
+        // then
+        assertEquals("Test", name);
+    }
+
+    @Test
+    void signIn_readsCredentialsFromPrimary() {
+        // given
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("insert into users(id, email, password, name, roles_mask, created_at) " +
+                "values (?, ?, ?, 'New', 8, current_timestamp())", id, TEST_EMAIL,
+                passwordEncoder.encode(TEST_PASSWORD));
+        jdbcTemplate.update("insert into contacts(id, city_id, phone_number1, created_at) " +
+                "values (?, 1, '87654321', current_timestamp())", id);
+        SignInDTO signInDTO = SignInDTO.builder()
+                .email(TEST_EMAIL)
+                .password(TEST_PASSWORD)
+                .build();
+        // when
+        SignInResponseDTO signInResponseDTO = userService.signIn(signInDTO, "127.0.0.1");
+        // then
+        assertEquals(TEST_EMAIL, signInResponseDTO.getUser().getEmail());
+    }
+}
@@ -0,0 +1,181 @@
+package kz.smarthealth.userservice.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kz.smarthealth.userservice.config.ReadReplicaConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for {@link ReplicaRoutingDataSource}, run against three H2 databases, a primary and two replicas, each of
+ * them holding its own name and a replication lag the lag query returns
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final String SELECT_NAME = "select name from server";
+
+    private HikariDataSource primary;
+    private HikariDataSource replica1;
+    private HikariDataSource replica2;
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private boolean primaryRequired;
+
+    @BeforeEach
+    void beforeEach() {
+        primary = createDatabase("primary");
+        replica1 = createDatabase("replica-1");
+        replica2 = createDatabase("replica-2");
+    }
+
+    @AfterEach
+    void afterEach() {
+        replicaRoutingDataSource.destroy();
+        primary.close();
+    }
+
+    @Test
+    void readOnlyTransaction_readsFromReplica_otherConnectionsFromPrimary() {
+        // given
+        createRouting(ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+        // when
+        String readOnly = readName(true);
+        String readWrite = readName(false);
+        String noTransaction = jdbcTemplate.queryForObject(SELECT_NAME, String.class);
+        // then
+        assertEquals("replica-1", readOnly);
+        assertEquals("primary", readWrite);
+        assertEquals("primary", noTransaction);
+    }
+
+    @Test
+    void roundRobin_alternatesReplicas() {
+        // given
+        createRouting(ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+        // when
+        List<String> names = readNames(4);
+        // then
+        assertEquals(List.of("replica-1", "replica-2", "replica-1", "replica-2"), names);
+    }
+
+    @Test
+    void leastConnections_readsFromReplicaWithFewestActiveConnections() throws Exception {
+        // given
+        createRouting(ReplicaRoutingDataSource.Selection.LEAST_CONNECTIONS);
+        // when
+        List<String> names;
+
+        try (Connection ignored = replica1.getConnection()) {
+            names = readNames(3);
+        }
+        // then
+        assertEquals(List.of("replica-2", "replica-2", "replica-2"), names);
+    }
+
+    @Test
+    void laggingReplica_isNotReadFrom_untilItCatchesUp() {
+        // given
+        createRouting(ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+        setLag(replica1, 5000);
+        replicaRoutingDataSource.checkReplicaLag();
+        // when
+        List<String> oneLagging = readNames(2);
+        setLag(replica2, 5000);
+        replicaRoutingDataSource.checkReplicaLag();
+        List<String> allLagging = readNames(2);
+        setLag(replica1, 0);
+        setLag(replica2, 0);
+        replicaRoutingDataSource.checkReplicaLag();
+        List<String> caughtUp = readNames(2);
+        // then
+        assertEquals(List.of("replica-2", "replica-2"), oneLagging);
+        assertEquals(List.of("primary", "primary"), allLagging);
+        assertEquals(List.of("replica-1", "replica-2"), caughtUp);
+    }
+
+    @Test
+    void unreachableReplica_isNotReadFrom() {
+        // given
+        createRouting(ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+        replica1.close();
+        replicaRoutingDataSource.checkReplicaLag();
+        // when
+        List<String> names = readNames(2);
+        // then
+        assertEquals(List.of("replica-2", "replica-2"), names);
+    }
+
+    @Test
+    void readOnlyTransaction_readsFromPrimary_whenPrimaryRequired() {
+        // given
+        createRouting(ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+        primaryRequired = true;
+        // when
+        String name = readName(true);
+        // then
+        assertEquals("primary", name);
+    }
+
+    private void createRouting(ReplicaRoutingDataSource.Selection selection) {
+        ReadReplicaConfig config = new ReadReplicaConfig();
+        config.setSelection(selection);
+        config.setLagQuery("select millis from replica_lag");
+        config.setMaxLagMillis(1000);
+        // checked by the tests only
+        config.setLagCheckIntervalMillis(Long.MAX_VALUE / 2);
+        replicaRoutingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica1, replica2), config,
+                () -> primaryRequired, new SimpleMeterRegistry());
+        replicaRoutingDataSource.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    private List<String> readNames(int count) {
+        List<String> names = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            names.add(readName(true));
+        }
+
+        return names;
+    }
+
+    private String readName(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+
+        return transactionTemplate.execute(status -> jdbcTemplate.queryForObject(SELECT_NAME, String.class));
+    }
+
+    private static void setLag(HikariDataSource replica, long millis) {
+        new JdbcTemplate(replica).update("update replica_lag set millis = ?", millis);
+    }
+
+    private static HikariDataSource createDatabase(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + "-" + UUID.randomUUID());
+        dataSource.setPoolName(name);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table server (name varchar(20))");
+        jdbcTemplate.update("insert into server values (?)", name);
+        jdbcTemplate.execute("create table replica_lag (millis bigint)");
+        jdbcTemplate.update("insert into replica_lag values (0)");
+
+        return dataSource;
+    }
+}
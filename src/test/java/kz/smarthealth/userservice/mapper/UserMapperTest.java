@@ -0,0 +1,66 @@
+package kz.smarthealth.userservice.mapper;
+
+import kz.smarthealth.userservice.model.dto.ContactDTO;
+import kz.smarthealth.userservice.model.dto.UserDTO;
+import kz.smarthealth.userservice.model.dto.UserRole;
+import kz.smarthealth.userservice.model.entity.UserEntity;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import java.time.OffsetDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static kz.smarthealth.userservice.util.TestData.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link UserMapper}, checked against the ModelMapper mapping it replaced
+ */
+class UserMapperTest {
+
+    private final UserMapper underTest = new UserMapperImpl();
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    @Test
+    void toUserEntity_mapsLikeModelMapper_exceptPassword() {
+        // given
+        UserDTO userDTO = getUserDTO();
+        userDTO.setPassword(TEST_PASSWORD);
+        userDTO.setCreatedAt(OffsetDateTime.now());
+        // ModelMapper can not create the EnumSet of roles, which UserMapper copies as is
+        modelMapper.typeMap(UserDTO.class, UserEntity.class).addMappings(mapping -> mapping.skip(UserEntity::setRoles));
+        UserEntity expected = modelMapper.map(userDTO, UserEntity.class);
+        expected.setPassword(null);
+        expected.setRoles(EnumSet.of(UserRole.ROLE_ORGANIZATION));
+        // ModelMapper filled contact.user from matching properties of the user, sign up links them explicitly anyway
+        expected.getContact().setUser(null);
+        // when
+        UserEntity userEntity = underTest.toUserEntity(userDTO);
+        // then
+        assertEquals(expected, userEntity);
+        assertEquals(userDTO.getCreatedAt(), userEntity.getCreatedAt());
+        assertEquals(TEST_PHONE_NUMBER_1, userEntity.getContact().getPhoneNumber1());
+        assertNull(userEntity.getContact().getUser());
+    }
+
+    @Test
+    void toUserDTO_mapsLikeModelMapper_withRolesAndWithoutPassword() {
+        // given
+        UserEntity userEntity = getUserEntity();
+        userEntity.setId(UUID.randomUUID());
+        userEntity.getContact().setId(UUID.randomUUID());
+        UserDTO expected = modelMapper.map(userEntity, UserDTO.class);
+        expected.setContact(modelMapper.map(userEntity.getContact(), ContactDTO.class));
+        expected.setRoles(Set.of(UserRole.ROLE_PATIENT));
+        expected.setPassword(null);
+        // when
+        UserDTO userDTO = underTest.toUserDTO(userEntity);
+        // then
+        assertEquals(expected, userDTO);
+        assertEquals(userEntity.getCreatedAt(), userDTO.getCreatedAt());
+        assertEquals(userEntity.getContact().getCreatedAt(), userDTO.getContact().getCreatedAt());
+        assertEquals(Set.of(UserRole.ROLE_PATIENT), userDTO.getRoles());
+    }
+}
@@ -0,0 +1,212 @@
+package kz.smarthealth.userservice.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import kz.smarthealth.userservice.model.dto.UserDTO;
+import kz.smarthealth.userservice.model.dto.UserField;
+import kz.smarthealth.userservice.model.dto.UserRole;
+import kz.smarthealth.userservice.model.entity.ContactEntity;
+import kz.smarthealth.userservice.model.entity.UserEntity;
+import kz.smarthealth.userservice.model.projection.UserCredentials;
+import kz.smarthealth.userservice.model.projection.UserFieldsRow;
+import kz.smarthealth.userservice.model.projection.UserProfileRow;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static kz.smarthealth.userservice.util.TestData.TEST_PHONE_NUMBER_1;
+import static kz.smarthealth.userservice.util.TestData.getUserEntity;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for queries of {@link UserRepository}, run against H2 with the user of data.sql
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.yml")
+class UserRepositoryTest {
+
+    private static final UUID TEST_USER_ID = UUID.fromString("33bb9554-c616-42e6-a9c6-88d3bba4221c");
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void beforeEach() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findProfileById_selectsUserWithContactAndRoles_inOneStatement() {
+        // when
+        Optional<UserProfileRow> row = userRepository.findProfileById(TEST_USER_ID);
+        // then
+        UserDTO userDTO = row.orElseThrow().toUserDTO();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(TEST_USER_ID, userDTO.getId());
+        assertEquals("test@test.com", userDTO.getEmail());
+        assertNotNull(userDTO.getCreatedAt());
+        assertEquals("12345678", userDTO.getContact().getPhoneNumber1());
+        assertEquals(Set.of(UserRole.ROLE_PATIENT), userDTO.getRoles());
+    }
+
+    @Test
+    void findProfilesByIds_selectsExistingUsers_inOneStatement() {
+        // when
+        List<UserProfileRow> rows = userRepository.findProfilesByIds(List.of(TEST_USER_ID, UUID.randomUUID()));
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, rows.size());
+        assertEquals("12345678", rows.get(0).toUserDTO().getContact().getPhoneNumber1());
+    }
+
+    @Test
+    void findFieldsById_selectsRequestedFieldsOnly() {
+        // when
+        UserFieldsRow row = userRepository.findFieldsById(TEST_USER_ID,
+                EnumSet.of(UserField.NAME, UserField.ROLES)).orElseThrow();
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertNotNull(row.user().getName());
+        assertEquals(EnumSet.of(UserRole.ROLE_PATIENT), row.user().getRoles());
+        assertNull(row.user().getEmail());
+        assertNull(row.user().getContact());
+        assertNull(row.profilePictureFileName());
+    }
+
+    @Test
+    void findFieldsById_joinsContact_whenContactRequested() {
+        // when
+        UserFieldsRow row = userRepository.findFieldsById(TEST_USER_ID,
+                EnumSet.of(UserField.ID, UserField.CONTACT)).orElseThrow();
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(TEST_USER_ID, row.user().getId());
+        assertEquals("12345678", row.user().getContact().getPhoneNumber1());
+        assertNotNull(row.user().getContact().getCreatedAt());
+        assertNull(row.user().getName());
+    }
+
+    @Test
+    void findById_loadsUserInOneStatement_andContactLazily() {
+        // when
+        UserEntity userEntity = userRepository.findById(TEST_USER_ID).orElseThrow();
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertFalse(Hibernate.isInitialized(userEntity.getContact()));
+        assertEquals(TEST_USER_ID, userEntity.getContact().getId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals("12345678", userEntity.getContact().getPhoneNumber1());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findByEmail_loadsUserInOneStatement() {
+        // when
+        UserEntity userEntity = userRepository.findByEmail("test@test.com").orElseThrow();
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(EnumSet.of(UserRole.ROLE_PATIENT), userEntity.getRoles());
+        assertFalse(Hibernate.isInitialized(userEntity.getContact()));
+    }
+
+    @Test
+    void save_storesContactUnderUserId() {
+        // given
+        UserEntity userEntity = getUserEntity();
+        userRepository.save(userEntity);
+        contactRepository.save(userEntity.getContact());
+        entityManager.flush();
+        entityManager.clear();
+        // when
+        ContactEntity contactEntity = contactRepository.findById(userEntity.getId()).orElseThrow();
+        // then
+        assertEquals(userEntity.getId(), contactEntity.getId());
+        assertEquals(TEST_PHONE_NUMBER_1, contactEntity.getPhoneNumber1());
+    }
+
+    @Test
+    void findProfileById_returnsEmpty_whenUserNotFound() {
+        assertEquals(Optional.empty(), userRepository.findProfileById(UUID.randomUUID()));
+    }
+
+    @Test
+    void findCredentialsByEmail_readsRolesFromUserRow() {
+        // when
+        Optional<UserCredentials> credentials = userRepository.findCredentialsByEmail("test@test.com");
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(TEST_USER_ID, credentials.orElseThrow().id());
+        assertEquals(EnumSet.of(UserRole.ROLE_PATIENT), credentials.orElseThrow().roles());
+    }
+
+    @Test
+    void save_storesRolesAsMask() {
+        // given
+        UserEntity userEntity = getUserEntity();
+        userEntity.setRoles(EnumSet.of(UserRole.ROLE_ADMIN, UserRole.ROLE_DOCTOR));
+        userRepository.save(userEntity);
+        contactRepository.save(userEntity.getContact());
+        entityManager.flush();
+        // when
+        Object mask = entityManager.createNativeQuery("select roles_mask from users where id = :id")
+                .setParameter("id", userEntity.getId())
+                .getSingleResult();
+        // then
+        assertEquals(5, ((Number) mask).intValue());
+    }
+
+    @Test
+    void updatePassword_incrementsVersion() {
+        // given
+        UserEntity userEntity = userRepository.findById(TEST_USER_ID).orElseThrow();
+        long version = userRepository.findVersionById(TEST_USER_ID).orElseThrow();
+        // when
+        userRepository.updatePassword(TEST_USER_ID, userEntity.getPassword(), "newPassword");
+        // then
+        assertEquals(version + 1, userRepository.findVersionById(TEST_USER_ID).orElseThrow());
+    }
+
+    @Test
+    void save_throwsOptimisticLockingFailure_whenUserModifiedConcurrently() {
+        // given
+        UserEntity staleUserEntity = userRepository.findById(TEST_USER_ID).orElseThrow();
+        entityManager.detach(staleUserEntity);
+        userRepository.updatePassword(TEST_USER_ID, staleUserEntity.getPassword(), "newPassword");
+        entityManager.clear();
+        staleUserEntity.setAbout("stale");
+        // when
+        // then
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> userRepository.saveAndFlush(staleUserEntity));
+    }
+}
@@ -0,0 +1,41 @@
+package kz.smarthealth.userservice.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link BCryptCalibration} and {@link StrengthAwareBCryptPasswordEncoder}
+ */
+class BCryptCalibrationTest {
+
+    @Test
+    void calibrate_staysWithinStrengthBounds() {
+        // when
+        BCryptCalibration calibration = BCryptCalibration.calibrate(10_000, 4, 6);
+        // then
+        assertTrue(calibration.calibrated());
+        assertEquals(6, calibration.strength());
+        assertTrue(calibration.measuredMillis() <= calibration.targetMillis());
+    }
+
+    @Test
+    void calibrate_neverGoesBelowMinStrength() {
+        // when
+        BCryptCalibration calibration = BCryptCalibration.calibrate(0, 5, 10);
+        // then
+        assertEquals(5, calibration.strength());
+    }
+
+    @Test
+    void upgradeEncoding_returnsTrue_onlyWhenStoredStrengthIsLower() {
+        // given
+        StrengthAwareBCryptPasswordEncoder underTest = new StrengthAwareBCryptPasswordEncoder(5);
+        // when, then
+        assertTrue(underTest.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+        assertFalse(underTest.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password")));
+        assertFalse(underTest.upgradeEncoding(underTest.encode("password")));
+        assertFalse(underTest.upgradeEncoding("not a bcrypt hash"));
+    }
+}
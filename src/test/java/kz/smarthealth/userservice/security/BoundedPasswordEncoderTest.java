@@ -0,0 +1,134 @@
+package kz.smarthealth.userservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kz.smarthealth.userservice.exception.CustomException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static kz.smarthealth.userservice.util.MessageSource.PASSWORD_HASHING_OVERLOADED;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link BoundedPasswordEncoder}
+ */
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private BoundedPasswordEncoder underTest;
+
+    @AfterEach
+    void afterEach() {
+        underTest.destroy();
+    }
+
+    @Test
+    void encodeAndMatches_delegateToUnderlyingEncoder() {
+        // given
+        underTest = new BoundedPasswordEncoder(plainEncoder(), 1, 1, 2, meterRegistry);
+        // when
+        String encoded = underTest.encode("password");
+        // then
+        assertEquals("password", encoded);
+        assertTrue(underTest.matches("password", encoded));
+        assertFalse(underTest.matches("other", encoded));
+        assertEquals(1, meterRegistry.get("password.hashing.duration").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("password.hashing.duration").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void encode_throwsServiceUnavailable_whenQueueIsFull() throws Exception {
+        // given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        underTest = new BoundedPasswordEncoder(blockingEncoder(started, release), 1, 1, 5, meterRegistry);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> underTest.encode("running"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> underTest.encode("queued"));
+        waitForQueueSize(1);
+        // when
+        CustomException exception = assertThrows(CustomException.class, () -> underTest.encode("rejected"));
+        // then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getHttpStatus());
+        assertEquals(PASSWORD_HASHING_OVERLOADED.getText(), exception.getErrorMessage());
+        assertEquals(5L, exception.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("password.hashing.rejected").counter().count());
+
+        release.countDown();
+        assertEquals("running", running.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void matches_rethrowsDelegateException() {
+        // given
+        PasswordEncoder failingEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                throw new IllegalArgumentException("encode failed");
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                throw new IllegalArgumentException("matches failed");
+            }
+        };
+        underTest = new BoundedPasswordEncoder(failingEncoder, 1, 1, 2, meterRegistry);
+        // when
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> underTest.matches("password", "hash"));
+        // then
+        assertEquals("matches failed", exception.getMessage());
+    }
+
+    private void waitForQueueSize(int expectedSize) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (meterRegistry.get("password.hashing.queue.size").gauge().value() < expectedSize) {
+            assertTrue(System.currentTimeMillis() < deadline, "Task was not queued in time");
+            Thread.sleep(10);
+        }
+    }
+
+    private PasswordEncoder plainEncoder() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+    }
+
+    private PasswordEncoder blockingEncoder(CountDownLatch started, CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+    }
+}
@@ -0,0 +1,98 @@
+package kz.smarthealth.userservice.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link JwtTokenFactory}
+ */
+class JwtTokenFactoryTest {
+
+    private static final String SECRET = "jwtSecret";
+
+    private final JwtTokenFactory underTest = new JwtTokenFactory(SECRET);
+
+    @Test
+    void createToken_producesSameTokenAsJjwt_forAccessTokenClaims() {
+        // given
+        String userId = UUID.randomUUID().toString();
+        SimpleGrantedAuthority role = new SimpleGrantedAuthority("ROLE_PATIENT");
+        Date issuedAt = new Date(1687420800123L);
+        Date expiration = new Date(issuedAt.getTime() + 86400000);
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put(Claims.SUBJECT, userId);
+        claims.put("email", "test@test.com");
+        claims.put("role", role);
+        claims.put(Claims.ISSUED_AT, issuedAt.getTime() / 1000);
+        claims.put(Claims.EXPIRATION, expiration.getTime() / 1000);
+        String expected = Jwts.builder()
+                .setSubject(userId)
+                .claim("email", "test@test.com")
+                .claim("role", role)
+                .setIssuedAt(issuedAt)
+                .setExpiration(expiration)
+                .signWith(SignatureAlgorithm.HS512, SECRET)
+                .compact();
+        // when
+        String token = underTest.createToken(claims);
+        // then
+        assertEquals(expected, token);
+    }
+
+    @Test
+    void createToken_producesSameTokenAsJjwt_forRefreshTokenClaims() {
+        // given
+        Date issuedAt = new Date(1687420800999L);
+        Date expiration = new Date(issuedAt.getTime() + 3 * 86400000L);
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put(Claims.SUBJECT, "test@test.com");
+        claims.put(Claims.ISSUED_AT, issuedAt.getTime() / 1000);
+        claims.put(Claims.EXPIRATION, expiration.getTime() / 1000);
+        String expected = Jwts.builder()
+                .setSubject("test@test.com")
+                .setIssuedAt(issuedAt)
+                .setExpiration(expiration)
+                .signWith(SignatureAlgorithm.HS512, SECRET)
+                .compact();
+        // when
+        String token = underTest.createToken(claims);
+        // then
+        assertEquals(expected, token);
+    }
+
+    @Test
+    void createToken_isVerifiableByJjwt_whenCalledFromManyThreads() throws InterruptedException {
+        // given
+        Thread[] threads = new Thread[4];
+        String[] tokens = new String[threads.length];
+
+        for (int i = 0; i < threads.length; i++) {
+            int index = i;
+            threads[i] = new Thread(() -> tokens[index] = underTest.createToken(
+                    Map.of(Claims.SUBJECT, "user-" + index)));
+            threads[i].start();
+        }
+        // when
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // then
+        for (int i = 0; i < tokens.length; i++) {
+            assertEquals("user-" + i, Jwts.parser()
+                    .setSigningKey(SECRET)
+                    .parseClaimsJws(tokens[i])
+                    .getBody()
+                    .getSubject());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package kz.smarthealth.userservice.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link JwtTokenVerifier}
+ */
+class JwtTokenVerifierTest {
+
+    private static final String SECRET = "jwtSecret";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtUtils jwtUtils = new JwtUtils(new JwtTokenFactory(SECRET));
+
+    private JwtTokenVerifier underTest;
+
+    @BeforeEach
+    void beforeEach() {
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60000);
+        underTest = new JwtTokenVerifier(jwtUtils, meterRegistry);
+        ReflectionTestUtils.setField(underTest, "cacheMaxSize", 100L);
+        underTest.init();
+    }
+
+    @Test
+    void verify_returnsSubjectAndRole_andCachesVerifiedToken() {
+        // given
+        UUID userId = UUID.randomUUID();
+        String token = jwtUtils.generateJwtToken(authentication(userId));
+        // when
+        Optional<JwtTokenVerifier.VerifiedToken> first = underTest.verify(token);
+        Optional<JwtTokenVerifier.VerifiedToken> second = underTest.verify(token);
+        // then
+        assertTrue(first.isPresent());
+        assertEquals(userId.toString(), first.get().subject());
+        assertEquals("ROLE_PATIENT", first.get().authorities().get(0).getAuthority());
+        assertEquals(first, second);
+        assertEquals(1, meterRegistry.get("security.jwt.verification").tag("cache", "miss").timer().count());
+        assertEquals(1, meterRegistry.get("security.jwt.verification").tag("cache", "hit").timer().count());
+    }
+
+    @Test
+    void verify_returnsEmpty_whenSignatureIsInvalid() {
+        // given
+        String token = jwtUtils.generateJwtToken(authentication(UUID.randomUUID()));
+        String tamperedToken = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        // when
+        Optional<JwtTokenVerifier.VerifiedToken> verifiedToken = underTest.verify(tamperedToken);
+        // then
+        assertTrue(verifiedToken.isEmpty());
+    }
+
+    @Test
+    void verify_returnsEmpty_whenTokenIsNotSignedWithHs512() {
+        // given
+        String token = jwtUtils.generateJwtToken(authentication(UUID.randomUUID()));
+        String unsignedToken = "eyJhbGciOiJub25lIn0" + token.substring(token.indexOf('.'), token.lastIndexOf('.') + 1);
+        // when
+        Optional<JwtTokenVerifier.VerifiedToken> verifiedToken = underTest.verify(unsignedToken);
+        // then
+        assertTrue(verifiedToken.isEmpty());
+    }
+
+    @Test
+    void verify_returnsEmpty_whenTokenExpired() {
+        // given
+        long expiredAt = System.currentTimeMillis() / 1000 - 1;
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put(Claims.SUBJECT, UUID.randomUUID().toString());
+        claims.put("role", new SimpleGrantedAuthority("ROLE_PATIENT"));
+        claims.put(Claims.EXPIRATION, expiredAt);
+        String token = new JwtTokenFactory(SECRET).createToken(claims);
+        // when
+        Optional<JwtTokenVerifier.VerifiedToken> verifiedToken = underTest.verify(token);
+        // then
+        assertTrue(verifiedToken.isEmpty());
+    }
+
+    @Test
+    void verify_returnsEmpty_whenRefreshTokenProvided() {
+        // given
+        String token = jwtUtils.generateRefreshToken(authentication(UUID.randomUUID()), UUID.randomUUID(),
+                Instant.now().plus(jwtUtils.getRefreshTokenTtl()));
+        // when
+        Optional<JwtTokenVerifier.VerifiedToken> verifiedToken = underTest.verify(token);
+        // then
+        assertTrue(verifiedToken.isEmpty());
+    }
+
+    @Test
+    void verify_returnsEmpty_whenCachedTokenWasSignedByDroppedKey() {
+        // given
+        JwtSigningKey dropped = JwtSigningKey.generate(JwtAlgorithm.ED_DSA);
+        JwtSigningKey next = JwtSigningKey.generate(JwtAlgorithm.ED_DSA);
+        AtomicReference<List<JwtSigningKey>> keySet = new AtomicReference<>(List.of(dropped, next));
+        JwtKeyRing keyRing = new JwtKeyRing(JwtAlgorithm.ED_DSA, keySet::get);
+        JwtUtils keyRingJwtUtils = new JwtUtils(new KeyRingJwtSigner(keyRing));
+        ReflectionTestUtils.setField(keyRingJwtUtils, "jwtExpirationMs", 60000);
+        underTest = new JwtTokenVerifier(keyRingJwtUtils, meterRegistry);
+        ReflectionTestUtils.setField(underTest, "cacheMaxSize", 100L);
+        underTest.init();
+        underTest.setJwtKeyRing(keyRing);
+        String token = keyRingJwtUtils.generateJwtToken(authentication(UUID.randomUUID()));
+        assertTrue(underTest.verify(token).isPresent());
+        keySet.set(List.of(next));
+        // when
+        keyRing.reload();
+        // then
+        assertTrue(underTest.verify(token).isEmpty());
+        assertTrue(underTest.verify(keyRingJwtUtils.generateJwtToken(authentication(UUID.randomUUID()))).isPresent());
+    }
+
+    private UsernamePasswordAuthenticationToken authentication(UUID userId) {
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_PATIENT"));
+        UserDetailsImpl userDetails = new UserDetailsImpl(userId, "test@test.com", null, authorities);
+
+        return new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
+    }
+}
@@ -0,0 +1,224 @@
+package kz.smarthealth.userservice.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.interfaces.EdECPrivateKey;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link KeyRingJwtSigner}
+ */
+class KeyRingJwtSignerTest {
+
+    @Test
+    void createToken_isVerifiableByJjwt_withPublishedRsaKey() throws Exception {
+        // given
+        JwtKeyRing keyRing = keyRing(JwtAlgorithm.RS256);
+        KeyRingJwtSigner underTest = new KeyRingJwtSigner(keyRing);
+        Map<String, Object> jwk = keyRing.getCurrentKey().getJwk();
+        // when
+        String token = underTest.createToken(Map.of(Claims.SUBJECT, "user"));
+        // then
+        Jws<Claims> jws = Jwts.parser()
+                .setSigningKey(toRsaPublicKey(jwk))
+                .parseClaimsJws(token);
+
+        assertEquals("user", jws.getBody().getSubject());
+        assertEquals(jwk.get("kid"), jws.getHeader().getKeyId());
+        assertEquals("RS256", jws.getHeader().getAlgorithm());
+    }
+
+    @Test
+    void parseClaims_returnsClaims_whenTokenSignedWithEdDsa() {
+        // given
+        KeyRingJwtSigner underTest = new KeyRingJwtSigner(keyRing(JwtAlgorithm.ED_DSA));
+        String token = underTest.createToken(Map.of(Claims.SUBJECT, "user"));
+        // when
+        Map<String, Object> claims = underTest.parseClaims(token);
+        // then
+        assertEquals("user", claims.get(Claims.SUBJECT));
+    }
+
+    @Test
+    void parseClaims_throwsException_whenPayloadTampered() {
+        // given
+        KeyRingJwtSigner underTest = new KeyRingJwtSigner(keyRing(JwtAlgorithm.ED_DSA));
+        String[] parts = underTest.createToken(Map.of(Claims.SUBJECT, "user")).split("\\.");
+        String tamperedToken = parts[0] + '.' + encode("{\"sub\":\"admin\"}") + '.' + parts[2];
+        // when, then
+        assertThrows(SignatureException.class, () -> underTest.parseClaims(tamperedToken));
+    }
+
+    @Test
+    void parseClaims_throwsException_whenAlgorithmDoesNotMatchKey() {
+        // given
+        JwtKeyRing keyRing = keyRing(JwtAlgorithm.RS256);
+        KeyRingJwtSigner underTest = new KeyRingJwtSigner(keyRing);
+        String[] parts = underTest.createToken(Map.of(Claims.SUBJECT, "user")).split("\\.");
+        String header = "{\"alg\":\"HS512\",\"kid\":\"" + keyRing.getCurrentKey().getKid() + "\"}";
+        String token = encode(header) + '.' + parts[1] + '.' + parts[2];
+        // when, then
+        assertThrows(UnsupportedJwtException.class, () -> underTest.parseClaims(token));
+    }
+
+    @Test
+    void parseClaims_acceptsTokenSignedBeforeRotation_andPublishesNextKeyInAdvance() {
+        // given
+        JwtSigningKey current = JwtSigningKey.generate(JwtAlgorithm.ED_DSA);
+        JwtSigningKey next = JwtSigningKey.generate(JwtAlgorithm.ED_DSA);
+        AtomicReference<List<JwtSigningKey>> keySet = new AtomicReference<>(List.of(current, next));
+        JwtKeyRing keyRing = new JwtKeyRing(JwtAlgorithm.ED_DSA, keySet::get);
+        KeyRingJwtSigner underTest = new KeyRingJwtSigner(keyRing);
+        String token = underTest.createToken(Map.of(Claims.SUBJECT, "user"));
+        keySet.set(List.of(next, JwtSigningKey.generate(JwtAlgorithm.ED_DSA), current));
+        // when
+        keyRing.reload();
+        // then
+        assertEquals("user", underTest.parseClaims(token).get(Claims.SUBJECT));
+        assertEquals(next.getKid(), keyRing.getCurrentKey().getKid());
+        assertEquals(3, keyRing.getPublishedKeys().size());
+    }
+
+    @Test
+    void parseClaims_throwsException_whenSigningKeyDropped() {
+        // given
+        JwtSigningKey next = JwtSigningKey.generate(JwtAlgorithm.ED_DSA);
+        AtomicReference<List<JwtSigningKey>> keySet = new AtomicReference<>(
+                List.of(JwtSigningKey.generate(JwtAlgorithm.ED_DSA), next));
+        JwtKeyRing keyRing = new JwtKeyRing(JwtAlgorithm.ED_DSA, keySet::get);
+        KeyRingJwtSigner underTest = new KeyRingJwtSigner(keyRing);
+        String token = underTest.createToken(Map.of(Claims.SUBJECT, "user"));
+        keySet.set(List.of(next));
+        // when
+        keyRing.reload();
+        // then
+        assertThrows(SignatureException.class, () -> underTest.parseClaims(token));
+    }
+
+    @Test
+    void reload_keepsKeys_whenKeySetCanNotBeLoaded() {
+        // given
+        JwtSigningKey current = JwtSigningKey.generate(JwtAlgorithm.ED_DSA);
+        AtomicReference<List<JwtSigningKey>> keySet = new AtomicReference<>(List.of(current));
+        JwtKeyRing keyRing = new JwtKeyRing(JwtAlgorithm.ED_DSA, keySet::get);
+        keySet.set(List.of(JwtSigningKey.generate(JwtAlgorithm.RS256)));
+        // when
+        keyRing.reload();
+        // then
+        assertEquals(List.of(current), keyRing.getPublishedKeys());
+    }
+
+    @Test
+    void parseClaims_acceptsTokenSignedByAnotherReplica_whenBothLoadSameRsaKeySet() throws Exception {
+        assertTokenSignedByOneReplicaIsAcceptedByAnother(JwtAlgorithm.RS256);
+    }
+
+    @Test
+    void parseClaims_acceptsTokenSignedByAnotherReplica_whenBothLoadSameEd25519KeySet() throws Exception {
+        assertTokenSignedByOneReplicaIsAcceptedByAnother(JwtAlgorithm.ED_DSA);
+    }
+
+    @Test
+    void fromJwk_throwsException_whenPublicKeyDoesNotMatchPrivateKey() throws Exception {
+        // given
+        Map<String, Object> jwk = privateJwk(JwtAlgorithm.ED_DSA);
+        jwk.put("x", privateJwk(JwtAlgorithm.ED_DSA).get("x"));
+        // when, then
+        assertThrows(IllegalArgumentException.class, () -> JwtSigningKey.fromJwk(jwk));
+    }
+
+    private static void assertTokenSignedByOneReplicaIsAcceptedByAnother(JwtAlgorithm algorithm) throws Exception {
+        // given
+        String jwkSet = privateJwkSet(algorithm, 2);
+        KeyRingJwtSigner replica1 = new KeyRingJwtSigner(
+                new JwtKeyRing(algorithm, () -> JwtSigningKey.parseJwkSet(jwkSet)));
+        JwtKeyRing keyRing2 = new JwtKeyRing(algorithm, () -> JwtSigningKey.parseJwkSet(jwkSet));
+        KeyRingJwtSigner replica2 = new KeyRingJwtSigner(keyRing2);
+        // when
+        String token = replica1.createToken(Map.of(Claims.SUBJECT, "user"));
+        // then
+        assertEquals("user", replica2.parseClaims(token).get(Claims.SUBJECT));
+        assertEquals(2, keyRing2.getPublishedKeys().size());
+    }
+
+    private static JwtKeyRing keyRing(JwtAlgorithm algorithm) {
+        List<JwtSigningKey> keys = List.of(JwtSigningKey.generate(algorithm), JwtSigningKey.generate(algorithm));
+
+        return new JwtKeyRing(algorithm, () -> keys);
+    }
+
+    private static String privateJwkSet(JwtAlgorithm algorithm, int size) throws Exception {
+        List<Map<String, Object>> keys = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+            keys.add(privateJwk(algorithm));
+        }
+
+        return new ObjectMapper().writeValueAsString(Map.of("keys", keys));
+    }
+
+    private static Map<String, Object> privateJwk(JwtAlgorithm algorithm) throws Exception {
+        KeyPair keyPair = KeyPairGenerator.getInstance(algorithm.getKeyAlgorithm()).generateKeyPair();
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        Map<String, Object> jwk = new LinkedHashMap<>();
+
+        if (keyPair.getPrivate() instanceof RSAPrivateCrtKey privateKey) {
+            jwk.put("kty", "RSA");
+            jwk.put("n", encodeUnsigned(privateKey.getModulus()));
+            jwk.put("e", encodeUnsigned(privateKey.getPublicExponent()));
+            jwk.put("d", encodeUnsigned(privateKey.getPrivateExponent()));
+            jwk.put("p", encodeUnsigned(privateKey.getPrimeP()));
+            jwk.put("q", encodeUnsigned(privateKey.getPrimeQ()));
+            jwk.put("dp", encodeUnsigned(privateKey.getPrimeExponentP()));
+            jwk.put("dq", encodeUnsigned(privateKey.getPrimeExponentQ()));
+            jwk.put("qi", encodeUnsigned(privateKey.getCrtCoefficient()));
+        } else {
+            byte[] publicKey = keyPair.getPublic().getEncoded();
+            jwk.put("kty", "OKP");
+            jwk.put("crv", "Ed25519");
+            jwk.put("x", encoder.encodeToString(Arrays.copyOfRange(publicKey, publicKey.length - 32,
+                    publicKey.length)));
+            jwk.put("d", encoder.encodeToString(((EdECPrivateKey) keyPair.getPrivate()).getBytes().orElseThrow()));
+        }
+
+        return jwk;
+    }
+
+    private static String encodeUnsigned(BigInteger value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.toByteArray());
+    }
+
+    private static PublicKey toRsaPublicKey(Map<String, Object> jwk) throws Exception {
+        Base64.Decoder decoder = Base64.getUrlDecoder();
+        BigInteger modulus = new BigInteger(1, decoder.decode((String) jwk.get("n")));
+        BigInteger exponent = new BigInteger(1, decoder.decode((String) jwk.get("e")));
+
+        return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(modulus, exponent));
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
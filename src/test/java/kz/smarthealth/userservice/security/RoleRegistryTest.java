@@ -0,0 +1,84 @@
+package kz.smarthealth.userservice.security;
+
+import kz.smarthealth.userservice.model.dto.UserRole;
+import kz.smarthealth.userservice.model.entity.RoleEntity;
+import kz.smarthealth.userservice.repository.RoleRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static kz.smarthealth.userservice.util.TestData.getRoleEntities;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link RoleRegistry}
+ */
+class RoleRegistryTest {
+
+    @Test
+    void constructor_throwsException_whenRoleIdDoesNotMatchMaskBit() {
+        // given
+        List<RoleEntity> roleEntities = new ArrayList<>(getRoleEntities().subList(0, 3));
+        roleEntities.add(new RoleEntity((short) 5, UserRole.ROLE_PATIENT.name()));
+        RoleRepository roleRepository = roleRepository(roleEntities);
+        // when
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> new RoleRegistry(roleRepository));
+        // then
+        assertEquals("Role ROLE_PATIENT has id 5 in roles table, 4 expected", exception.getMessage());
+    }
+
+    @Test
+    void constructor_throwsException_whenRoleIsMissingInTable() {
+        // given
+        RoleRepository roleRepository = roleRepository(getRoleEntities().subList(0, 3));
+        // when
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> new RoleRegistry(roleRepository));
+        // then
+        assertEquals("Roles missing in roles table: [ROLE_PATIENT]", exception.getMessage());
+    }
+
+    @Test
+    void constructor_throwsException_whenTableHasUnknownRole() {
+        // given
+        List<RoleEntity> roleEntities = new ArrayList<>(getRoleEntities());
+        roleEntities.add(new RoleEntity((short) 5, "ROLE_NURSE"));
+        RoleRepository roleRepository = roleRepository(roleEntities);
+        // when
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> new RoleRegistry(roleRepository));
+        // then
+        assertEquals("Unknown role in roles table: ROLE_NURSE", exception.getMessage());
+    }
+
+    @Test
+    void getAuthority_returnsSharedInstance_forKnownRole() {
+        assertSame(RoleRegistry.getAuthority("ROLE_PATIENT"), RoleRegistry.getAuthority("ROLE_PATIENT"));
+        assertEquals("ROLE_PATIENT", RoleRegistry.getAuthority("ROLE_PATIENT").getAuthority());
+        assertEquals("ROLE_NURSE", RoleRegistry.getAuthority("ROLE_NURSE").getAuthority());
+    }
+
+    @Test
+    void getAuthorities_returnsSharedList_forRoles() {
+        // when
+        List<GrantedAuthority> authorities =
+                RoleRegistry.getAuthorities(EnumSet.of(UserRole.ROLE_DOCTOR, UserRole.ROLE_PATIENT));
+        // then
+        assertSame(authorities, RoleRegistry.getAuthorities(EnumSet.of(UserRole.ROLE_DOCTOR, UserRole.ROLE_PATIENT)));
+        assertEquals(List.of(RoleRegistry.getAuthority("ROLE_DOCTOR"), RoleRegistry.getAuthority("ROLE_PATIENT")),
+                authorities);
+        assertEquals(List.of(), RoleRegistry.getAuthorities(EnumSet.noneOf(UserRole.class)));
+    }
+
+    private RoleRepository roleRepository(List<RoleEntity> roleEntities) {
+        RoleRepository roleRepository = mock(RoleRepository.class);
+        when(roleRepository.findAll()).thenReturn(roleEntities);
+
+        return roleRepository;
+    }
+}
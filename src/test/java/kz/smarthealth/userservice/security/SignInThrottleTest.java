@@ -0,0 +1,74 @@
+package kz.smarthealth.userservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kz.smarthealth.userservice.config.SignInThrottleConfig;
+import kz.smarthealth.userservice.exception.CustomException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import static kz.smarthealth.userservice.util.MessageSource.SIGN_IN_THROTTLED;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link SignInThrottle}
+ */
+class SignInThrottleTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SignInThrottle underTest = new SignInThrottle(config(), meterRegistry);
+
+    @Test
+    void checkAttempt_throwsTooManyRequests_whenEmailAttemptsExhausted() {
+        // given
+        underTest.checkAttempt("test@test.com", "10.0.0.1");
+        underTest.checkAttempt("test@test.com", "10.0.0.2");
+        // when
+        CustomException exception = assertThrows(CustomException.class,
+                () -> underTest.checkAttempt(" Test@Test.com", "10.0.0.3"));
+        // then
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getHttpStatus());
+        assertEquals(SIGN_IN_THROTTLED.getText(), exception.getErrorMessage());
+        assertEquals(30, exception.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.get("security.sign-in.throttled").tag("key", "email").counter().count());
+    }
+
+    @Test
+    void checkAttempt_throwsTooManyRequests_whenIpAttemptsExhausted() {
+        // given
+        for (int i = 0; i < 3; i++) {
+            underTest.checkAttempt("user" + i + "@test.com", "10.0.0.1");
+        }
+        // when
+        CustomException exception = assertThrows(CustomException.class,
+                () -> underTest.checkAttempt("user@test.com", "10.0.0.1"));
+        // then
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getHttpStatus());
+        assertEquals(20, exception.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.get("security.sign-in.throttled").tag("key", "ip").counter().count());
+    }
+
+    @Test
+    void checkAttempt_doesNotChargeIp_whenEmailAttemptsExhausted() {
+        // given
+        underTest.checkAttempt("test@test.com", "10.0.0.2");
+        underTest.checkAttempt("test@test.com", "10.0.0.2");
+        // when
+        assertThrows(CustomException.class, () -> underTest.checkAttempt("test@test.com", "10.0.0.1"));
+        assertThrows(CustomException.class, () -> underTest.checkAttempt("test@test.com", "10.0.0.1"));
+        // then
+        for (int i = 0; i < 3; i++) {
+            underTest.checkAttempt("user" + i + "@test.com", "10.0.0.1");
+        }
+    }
+
+    private static SignInThrottleConfig config() {
+        SignInThrottleConfig config = new SignInThrottleConfig();
+        config.setSlots(64);
+        config.setEmailCapacity(2);
+        config.setEmailRefillPeriodSeconds(60);
+        config.setIpCapacity(3);
+        config.setIpRefillPeriodSeconds(60);
+
+        return config;
+    }
+}
@@ -0,0 +1,132 @@
+package kz.smarthealth.userservice.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link StripedTokenBuckets}
+ */
+class StripedTokenBucketsTest {
+
+    private final AtomicLong nanoTime = new AtomicLong(TimeUnit.DAYS.toNanos(1));
+
+    @Test
+    void tryAcquire_grantsCapacityPermits_thenReturnsWaitTime() {
+        // given
+        StripedTokenBuckets underTest = new StripedTokenBuckets(16, 3, Duration.ofSeconds(3), nanoTime::get);
+        // when
+        long[] results = {underTest.tryAcquire("key"), underTest.tryAcquire("key"), underTest.tryAcquire("key"),
+                underTest.tryAcquire("key")};
+        // then
+        assertArrayEquals(new long[]{0, 0, 0, 1000}, results);
+        assertEquals(0, underTest.tryAcquire("other-key"));
+    }
+
+    @Test
+    void tryAcquire_refillsPermitsOverTime() {
+        // given
+        StripedTokenBuckets underTest = new StripedTokenBuckets(16, 2, Duration.ofSeconds(2), nanoTime::get);
+        underTest.tryAcquire("key");
+        underTest.tryAcquire("key");
+        // when
+        advance(400);
+        long beforeRefill = underTest.tryAcquire("key");
+        advance(600);
+        long afterRefill = underTest.tryAcquire("key");
+        // then
+        assertEquals(600, beforeRefill);
+        assertEquals(0, afterRefill);
+        assertEquals(1000, underTest.tryAcquire("key"));
+    }
+
+    @Test
+    void tryAcquire_takesOverIdleSlots_whenTableIsFull() {
+        // given
+        StripedTokenBuckets underTest = new StripedTokenBuckets(4, 1, Duration.ofSeconds(1), nanoTime::get);
+
+        for (int i = 0; i < 100; i++) {
+            underTest.tryAcquire("key-" + i);
+        }
+        // when
+        advance(1000);
+        // then
+        for (int i = 100; i < 200; i++) {
+            assertEquals(0, underTest.tryAcquire("key-" + i));
+            advance(1000);
+        }
+    }
+
+    @Test
+    void tryAcquire_keepsThrottledKeyThrottled_whenOtherKeysOfItsSetAreCycledThrough() {
+        // given
+        StripedTokenBuckets underTest = new StripedTokenBuckets(4, 1, Duration.ofSeconds(1), nanoTime::get);
+        underTest.tryAcquire("victim");
+        int granted = 0;
+        // when
+        for (int i = 0; i < 100; i++) {
+            if (underTest.tryAcquire("key-" + i) == 0) {
+                granted++;
+            }
+        }
+        // then
+        assertTrue(underTest.tryAcquire("victim") > 0);
+        assertEquals(StripedTokenBuckets.WAYS - 1, granted);
+    }
+
+    @Test
+    void getWaitMillis_doesNotTakePermit() {
+        // given
+        StripedTokenBuckets underTest = new StripedTokenBuckets(16, 1, Duration.ofSeconds(1), nanoTime::get);
+        // when
+        long waitMillis = underTest.getWaitMillis("key");
+        // then
+        assertEquals(0, waitMillis);
+        assertEquals(0, underTest.tryAcquire("key"));
+        assertEquals(1000, underTest.getWaitMillis("key"));
+    }
+
+    @Test
+    void tryAcquire_grantsExactlyCapacityPermits_whenCalledConcurrently() throws InterruptedException {
+        // given
+        StripedTokenBuckets underTest = new StripedTokenBuckets(1024, 500, Duration.ofDays(1));
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[16];
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                for (int j = 0; j < 100; j++) {
+                    if (underTest.tryAcquire("key") == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        // when
+        start.countDown();
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // then
+        assertEquals(500, granted.get());
+    }
+
+    private void advance(long millis) {
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
@@ -0,0 +1,145 @@
+package kz.smarthealth.userservice.service;
+
+import kz.smarthealth.userservice.exception.CustomException;
+import kz.smarthealth.userservice.model.dto.TokenResponseDTO;
+import kz.smarthealth.userservice.model.entity.RefreshTokenEntity;
+import kz.smarthealth.userservice.repository.RefreshTokenRepository;
+import kz.smarthealth.userservice.security.JwtTokenFactory;
+import kz.smarthealth.userservice.security.JwtUtils;
+import kz.smarthealth.userservice.security.UserDetailsImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static kz.smarthealth.userservice.util.MessageSource.INVALID_REFRESH_TOKEN;
+import static kz.smarthealth.userservice.util.TestData.TEST_EMAIL;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link RefreshTokenService}
+ */
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private final JwtUtils jwtUtils = new JwtUtils(new JwtTokenFactory("jwtSecret"));
+
+    private RefreshTokenService underTest;
+
+    @BeforeEach
+    void beforeEach() {
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60000);
+        underTest = new RefreshTokenService(refreshTokenRepository, jwtUtils);
+        ReflectionTestUtils.setField(underTest, "purgeBatchSize", 2);
+    }
+
+    @Test
+    void createRefreshToken_savesTokenFamily() {
+        // when
+        String refreshToken = underTest.createRefreshToken(authentication());
+        // then
+        ArgumentCaptor<RefreshTokenEntity> captor = ArgumentCaptor.forClass(RefreshTokenEntity.class);
+        verify(refreshTokenRepository).save(captor.capture());
+        RefreshTokenEntity entity = captor.getValue();
+        Map<String, Object> claims = jwtUtils.parseClaims(refreshToken);
+
+        assertEquals(USER_ID, entity.getUserId());
+        assertEquals(entity.getFamilyId().toString(), claims.get(JwtUtils.FAMILY_ID_CLAIM));
+        assertEquals(32, entity.getTokenHash().length);
+        assertEquals(entity.getExpiresAt().toEpochSecond(), ((Number) claims.get("exp")).longValue());
+    }
+
+    @Test
+    void refresh_rotatesRefreshToken() {
+        // given
+        String refreshToken = underTest.createRefreshToken(authentication());
+        when(refreshTokenRepository.rotate(any(), any(), any(), any(), any())).thenReturn(1);
+        // when
+        TokenResponseDTO tokenResponseDTO = underTest.refresh(refreshToken);
+        // then
+        Map<String, Object> accessTokenClaims = jwtUtils.parseClaims(tokenResponseDTO.getAccessToken());
+        Map<String, Object> refreshTokenClaims = jwtUtils.parseClaims(tokenResponseDTO.getRefreshToken());
+
+        assertEquals(USER_ID.toString(), accessTokenClaims.get("sub"));
+        assertEquals(TEST_EMAIL, accessTokenClaims.get(JwtUtils.EMAIL_CLAIM));
+        assertEquals("ROLE_PATIENT", JwtUtils.getRole(accessTokenClaims));
+        assertEquals(jwtUtils.parseClaims(refreshToken).get(JwtUtils.FAMILY_ID_CLAIM),
+                refreshTokenClaims.get(JwtUtils.FAMILY_ID_CLAIM));
+        assertNotEquals(refreshToken, tokenResponseDTO.getRefreshToken());
+        verify(refreshTokenRepository, never()).revoke(any());
+    }
+
+    @Test
+    void refresh_revokesTokenFamily_whenTokenAlreadyRotated() {
+        // given
+        String refreshToken = underTest.createRefreshToken(authentication());
+        UUID familyId = UUID.fromString((String) jwtUtils.parseClaims(refreshToken).get(JwtUtils.FAMILY_ID_CLAIM));
+        when(refreshTokenRepository.rotate(eq(familyId), any(), any(), any(), any())).thenReturn(0);
+        // when
+        CustomException exception = assertThrows(CustomException.class, () -> underTest.refresh(refreshToken));
+        // then
+        assertEquals(HttpStatus.UNAUTHORIZED, exception.getHttpStatus());
+        assertEquals(INVALID_REFRESH_TOKEN.getText(), exception.getErrorMessage());
+        verify(refreshTokenRepository).revoke(familyId);
+    }
+
+    @Test
+    void refresh_throwsException_whenAccessTokenProvided() {
+        // given
+        String accessToken = jwtUtils.generateJwtToken(authentication());
+        // when
+        CustomException exception = assertThrows(CustomException.class, () -> underTest.refresh(accessToken));
+        // then
+        assertEquals(HttpStatus.UNAUTHORIZED, exception.getHttpStatus());
+        verifyNoInteractions(refreshTokenRepository);
+    }
+
+    @Test
+    void refresh_throwsException_whenSignatureIsInvalid() {
+        // given
+        String refreshToken = underTest.createRefreshToken(authentication());
+        String tamperedToken = refreshToken.substring(0, refreshToken.lastIndexOf('.') + 1) + "AAAA";
+        // when
+        CustomException exception = assertThrows(CustomException.class, () -> underTest.refresh(tamperedToken));
+        // then
+        assertEquals(HttpStatus.UNAUTHORIZED, exception.getHttpStatus());
+        verify(refreshTokenRepository, never()).rotate(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void purgeExpiredTokens_deletesInBatches_untilNothingLeft() {
+        // given
+        when(refreshTokenRepository.deleteExpired(any(), anyInt())).thenReturn(2, 2, 1);
+        // when
+        underTest.purgeExpiredTokens();
+        // then
+        verify(refreshTokenRepository, times(3)).deleteExpired(any(), eq(2));
+    }
+
+    private Authentication authentication() {
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_PATIENT"));
+        UserDetailsImpl userDetails = new UserDetailsImpl(USER_ID, TEST_EMAIL, null, authorities);
+
+        return new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
+    }
+}
@@ -1,41 +1,50 @@
 package kz.smarthealth.userservice.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kz.smarthealth.userservice.cache.SingleFlight;
+import kz.smarthealth.userservice.cache.UserCache;
+import kz.smarthealth.userservice.config.UserCacheConfig;
+import kz.smarthealth.userservice.datasource.ReadYourWrites;
 import kz.smarthealth.userservice.exception.CustomException;
+import kz.smarthealth.userservice.mapper.UserMapper;
+import kz.smarthealth.userservice.mapper.UserMapperImpl;
 import kz.smarthealth.userservice.model.dto.*;
 import kz.smarthealth.userservice.model.entity.ContactEntity;
-import kz.smarthealth.userservice.model.entity.RoleEntity;
 import kz.smarthealth.userservice.model.entity.UserEntity;
+import kz.smarthealth.userservice.model.projection.UserCredentials;
+import kz.smarthealth.userservice.model.projection.UserFieldsRow;
 import kz.smarthealth.userservice.repository.ContactRepository;
-import kz.smarthealth.userservice.repository.RoleRepository;
 import kz.smarthealth.userservice.repository.UserRepository;
 import kz.smarthealth.userservice.security.JwtUtils;
+import kz.smarthealth.userservice.security.SignInThrottle;
+import kz.smarthealth.userservice.security.UserDetailsImpl;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.junit.platform.commons.util.StringUtils;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.mock.web.MockMultipartFile;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 import static kz.smarthealth.userservice.util.MessageSource.*;
 import static kz.smarthealth.userservice.util.TestData.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 /**
@@ -46,24 +55,30 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
 
+    private static final String TEST_CLIENT_IP = "127.0.0.1";
+
     @Mock
     private UserRepository userRepository;
     @Mock
     private ContactRepository contactRepository;
-    @Mock
-    private RoleRepository roleRepository;
     @Spy
-    private ModelMapper modelMapper = new ModelMapper();
-    @Mock
-    private AuthenticationManager authenticationManager;
+    private UserMapper userMapper = new UserMapperImpl();
     @Mock
     private PasswordEncoder passwordEncoder;
     @Mock
     private JwtUtils jwtUtils;
     @Mock
+    private RefreshTokenService refreshTokenService;
+    @Mock
+    private SignInThrottle signInThrottle;
+    @Mock
     private AmazonS3Service amazonS3Service;
     @Mock
     private PatientKafkaProducerService patientKafkaProducerService;
+    @Spy
+    private UserCache userCache = new UserCache(userCacheConfig(), new SimpleMeterRegistry());
+    @Spy
+    private SingleFlight singleFlight = new SingleFlight(new SimpleMeterRegistry());
     @InjectMocks
     private UserService underTest;
 
@@ -108,28 +123,6 @@ class UserServiceTest {
                 exception.getErrorMessage());
     }
 
-    @Test
-    void signUp_throwsException_whenInvalidRoleProvided() {
-        // given
-        UserDTO userDTO = UserDTO.builder()
-                .email(TEST_EMAIL)
-                .password(TEST_PASSWORD)
-                .name(TEST_NAME)
-                .lastName(TEST_NAME)
-                .contact(ContactDTO.builder()
-                        .cityId(TEST_CITY)
-                        .phoneNumber1(TEST_PHONE_NUMBER_1)
-                        .build())
-                .roles(Set.of(UserRole.ROLE_PATIENT))
-                .build();
-        when(userRepository.findByEmail(userDTO.getEmail())).thenReturn(Optional.empty());
-        when(roleRepository.findByName(UserRole.ROLE_PATIENT.name())).thenReturn(Optional.empty());
-        // when
-        CustomException exception = assertThrows(CustomException.class, () -> underTest.signUp(userDTO));
-        // then
-        assertEquals(ROLE_BY_NAME_NOT_FOUND.getText(UserRole.ROLE_PATIENT.name()), exception.getErrorMessage());
-    }
-
     @Test
     void signUp_createsUser() throws JsonProcessingException {
         // given
@@ -148,14 +141,9 @@ class UserServiceTest {
                         .build())
                 .roles(Set.of(UserRole.ROLE_PATIENT))
                 .build();
-        UserEntity userEntity = modelMapper.map(userDTO, UserEntity.class);
+        UserEntity userEntity = userMapper.toUserEntity(userDTO);
         userEntity.setId(UUID.randomUUID());
         when(passwordEncoder.encode(TEST_PASSWORD)).thenReturn("encrypted_password");
-        when(roleRepository.findByName(userDTO.getRoles().iterator().next().name()))
-                .thenReturn(Optional.of(RoleEntity.builder()
-                        .id((short) 1)
-                        .name(userDTO.getRoles().iterator().next().name())
-                        .build()));
         when(userRepository.save(any())).thenReturn(userEntity);
         // when
         underTest.signUp(userDTO);
@@ -173,8 +161,7 @@ class UserServiceTest {
         assertEquals(TEST_NAME, actualUserEntity.getName());
         assertEquals(TEST_LAST_NAME, actualUserEntity.getLastName());
         assertEquals(TEST_BIRTH_DATE, actualUserEntity.getBirthDate());
-        assertEquals(Set.of(UserRole.ROLE_PATIENT), actualUserEntity.getRoles().stream()
-                .map(role -> UserRole.valueOf(role.getName())).collect(Collectors.toSet()));
+        assertEquals(EnumSet.of(UserRole.ROLE_PATIENT), actualUserEntity.getRoles());
         assertNotNull(actualUserEntity.getContact());
 
         assertNotNull(actualContactEntity);
@@ -189,19 +176,43 @@ class UserServiceTest {
         assertEquals(TEST_PHONE_NUMBER_1, actualPatientDTO.getPhoneNumber());
     }
 
+    @Test
+    void signIn_throwsError_whenThrottled() {
+        // given
+        SignInDTO signInDTO = SignInDTO.builder()
+                .email(TEST_EMAIL)
+                .password(TEST_PASSWORD)
+                .build();
+        doThrow(CustomException.builder()
+                .httpStatus(HttpStatus.TOO_MANY_REQUESTS)
+                .errorMessage(SIGN_IN_THROTTLED.getText())
+                .build())
+                .when(signInThrottle).checkAttempt(TEST_EMAIL, TEST_CLIENT_IP);
+        // when
+        CustomException exception = assertThrows(CustomException.class,
+                () -> underTest.signIn(signInDTO, TEST_CLIENT_IP));
+        // then
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getHttpStatus());
+        verifyNoInteractions(userRepository, passwordEncoder);
+    }
+
     @Test
     void signIn_throwsError_whenInvalidCredentialsProvided() {
         // given
+        UUID userId = UUID.randomUUID();
         SignInDTO signInDTO = SignInDTO.builder()
                 .email(TEST_EMAIL)
                 .password(TEST_PASSWORD)
                 .build();
-        when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("Unauthorized"));
+        when(userRepository.findCredentialsByEmail(TEST_EMAIL)).thenReturn(Optional.of(
+                new UserCredentials(userId, "encrypted_password", EnumSet.of(UserRole.ROLE_PATIENT))));
+        when(passwordEncoder.matches(TEST_PASSWORD, "encrypted_password")).thenReturn(false);
         // when
         AuthenticationException exception = assertThrows(AuthenticationException.class,
-                () -> underTest.signIn(signInDTO));
+                () -> underTest.signIn(signInDTO, TEST_CLIENT_IP));
         // then
-        assertEquals("Unauthorized", exception.getMessage());
+        assertEquals(BAD_CREDENTIALS.getText(), exception.getMessage());
+        verify(refreshTokenService, never()).createRefreshToken(any());
     }
 
     @Test
@@ -211,14 +222,34 @@ class UserServiceTest {
                 .email(TEST_EMAIL)
                 .password(TEST_PASSWORD)
                 .build();
-        when(authenticationManager.authenticate(any())).thenReturn(new TestingAuthenticationToken(null,
-                null));
-        when(userRepository.findByEmail(TEST_EMAIL)).thenReturn(Optional.empty());
+        when(userRepository.findCredentialsByEmail(TEST_EMAIL)).thenReturn(Optional.empty());
+        when(passwordEncoder.encode(any())).thenReturn("encrypted_password");
         // when
-        CustomException exception = assertThrows(CustomException.class,
-                () -> underTest.signIn(signInDTO));
+        AuthenticationException exception = assertThrows(AuthenticationException.class,
+                () -> underTest.signIn(signInDTO, TEST_CLIENT_IP));
         // then
-        assertEquals(USER_BY_EMAIL_NOT_FOUND.getText(TEST_EMAIL), exception.getErrorMessage());
+        assertEquals(BAD_CREDENTIALS.getText(), exception.getMessage());
+        verify(passwordEncoder).matches(TEST_PASSWORD, "encrypted_password");
+    }
+
+    @Test
+    void signIn_rehashesPassword_whenStoredWithAnotherStrength() {
+        // given
+        UUID userId = UUID.randomUUID();
+        SignInDTO signInDTO = SignInDTO.builder()
+                .email(TEST_EMAIL)
+                .password(TEST_PASSWORD)
+                .build();
+        when(userRepository.findCredentialsByEmail(TEST_EMAIL)).thenReturn(Optional.of(
+                new UserCredentials(userId, "old_hash", EnumSet.of(UserRole.ROLE_PATIENT))));
+        when(passwordEncoder.matches(TEST_PASSWORD, "old_hash")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("old_hash")).thenReturn(true);
+        when(passwordEncoder.encode(TEST_PASSWORD)).thenReturn("new_hash");
+        when(userRepository.findProfileById(userId)).thenReturn(Optional.of(getUserProfileRow(getUserEntity())));
+        // when
+        underTest.signIn(signInDTO, TEST_CLIENT_IP);
+        // then
+        verify(userRepository).updatePassword(userId, "old_hash", "new_hash");
     }
 
     @Test
@@ -231,30 +262,36 @@ class UserServiceTest {
                 .password(TEST_PASSWORD)
                 .build();
         UserEntity userEntity = getUserEntity();
-        when(authenticationManager.authenticate(any())).thenReturn(new TestingAuthenticationToken(null,
-                null));
-        when(userRepository.findByEmail(TEST_EMAIL)).thenReturn(Optional.of(userEntity));
+        userEntity.setId(UUID.randomUUID());
+        when(userRepository.findCredentialsByEmail(TEST_EMAIL)).thenReturn(Optional.of(
+                new UserCredentials(userEntity.getId(), userEntity.getPassword(), EnumSet.of(UserRole.ROLE_PATIENT))));
+        when(passwordEncoder.matches(TEST_PASSWORD, userEntity.getPassword())).thenReturn(true);
+        when(userRepository.findProfileById(userEntity.getId())).thenReturn(Optional.of(getUserProfileRow(userEntity)));
         when(jwtUtils.generateJwtToken(any())).thenReturn(token);
-        when(jwtUtils.generateRefreshToken(any())).thenReturn(refreshToken);
+        when(refreshTokenService.createRefreshToken(any())).thenReturn(refreshToken);
         // when
-        SignInResponseDTO signInResponseDTO = underTest.signIn(signInDTO);
+        SignInResponseDTO signInResponseDTO = underTest.signIn(signInDTO, TEST_CLIENT_IP);
         // then
-        ArgumentCaptor<UserEntity> argumentCaptor = ArgumentCaptor.forClass(UserEntity.class);
-        verify(userRepository).save(argumentCaptor.capture());
-        UserEntity updatedUserEntity = argumentCaptor.getValue();
+        ArgumentCaptor<Authentication> argumentCaptor = ArgumentCaptor.forClass(Authentication.class);
+        verify(jwtUtils).generateJwtToken(argumentCaptor.capture());
+        verify(userRepository, never()).save(any());
+        verify(userRepository, never()).updatePassword(any(), any(), any());
+        UserDetailsImpl userDetails = (UserDetailsImpl) argumentCaptor.getValue().getPrincipal();
 
         assertNotNull(signInResponseDTO);
         assertEquals(token, signInResponseDTO.getAccessToken());
         assertEquals(refreshToken, signInResponseDTO.getRefreshToken());
         assertNotNull(signInResponseDTO.getUser());
-        assertFalse(StringUtils.isBlank(updatedUserEntity.getRefreshToken()));
+        assertEquals(userEntity.getId(), userDetails.getId());
+        assertEquals(TEST_EMAIL, userDetails.getUsername());
+        assertEquals(UserRole.ROLE_PATIENT.name(), userDetails.getAuthorities().iterator().next().getAuthority());
     }
 
     @Test
     void getUserById_throwsError_whenUserNotFound() {
         // given
         UUID invalidId = UUID.randomUUID();
-        when(userRepository.findById(invalidId)).thenReturn(Optional.empty());
+        when(userRepository.findProfileById(invalidId)).thenReturn(Optional.empty());
         // when
         CustomException exception = assertThrows(CustomException.class,
                 () -> underTest.getUserById(invalidId));
@@ -267,7 +304,9 @@ class UserServiceTest {
         // given
         UserEntity userEntity = getUserEntity();
         UUID userId = UUID.randomUUID();
-        when(userRepository.findById(userId)).thenReturn(Optional.of(userEntity));
+        userEntity.setId(userId);
+        userEntity.getContact().setId(UUID.randomUUID());
+        when(userRepository.findProfileById(userId)).thenReturn(Optional.of(getUserProfileRow(userEntity)));
         // when
         UserDTO userDTO = underTest.getUserById(userId);
         // then
@@ -288,13 +327,115 @@ class UserServiceTest {
         assertEquals(userEntity.getContact().getFlatNumber(), userDTO.getContact().getFlatNumber());
         assertEquals(userEntity.getContact().getPhoneNumber1(), userDTO.getContact().getPhoneNumber1());
         assertEquals(userEntity.getContact().getPhoneNumber2(), userDTO.getContact().getPhoneNumber2());
+        assertEquals(Set.of(UserRole.ROLE_PATIENT), userDTO.getRoles());
+    }
+
+    @Test
+    void getUsersByIds_loadsUncachedUsersInOneQuery_andOmitsMissingUsers() {
+        // given
+        UserEntity cachedUser = getUserEntity();
+        cachedUser.setId(UUID.randomUUID());
+        UserEntity uncachedUser = getUserEntity();
+        uncachedUser.setId(UUID.randomUUID());
+        UUID missingId = UUID.randomUUID();
+        when(userRepository.findProfileById(cachedUser.getId()))
+                .thenReturn(Optional.of(getUserProfileRow(cachedUser)));
+        when(userRepository.findProfilesByIds(any())).thenReturn(List.of(getUserProfileRow(uncachedUser)));
+        UserDTO cachedUserDTO = underTest.getUserById(cachedUser.getId());
+        // when
+        Map<UUID, UserDTO> users = underTest.getUsersByIds(List.of(cachedUser.getId(), uncachedUser.getId(),
+                missingId));
+        // then
+        assertEquals(2, users.size());
+        assertSame(cachedUserDTO, users.get(cachedUser.getId()));
+        assertEquals(uncachedUser.getEmail(), users.get(uncachedUser.getId()).getEmail());
+        assertFalse(users.containsKey(missingId));
+        verify(userRepository).findProfilesByIds(argThat(ids -> ids.size() == 2
+                && ids.containsAll(List.of(uncachedUser.getId(), missingId))));
+    }
+
+    @Test
+    void getUserByIdWithFields_queriesRequestedFields_unlessUserCached() {
+        // given
+        UserEntity userEntity = getUserEntity();
+        UUID id = UUID.randomUUID();
+        Set<UserField> fields = EnumSet.of(UserField.NAME, UserField.LAST_NAME);
+        UserDTO sparseUserDTO = UserDTO.builder().name(userEntity.getName()).build();
+        when(userRepository.findFieldsById(id, fields)).thenReturn(Optional.of(new UserFieldsRow(sparseUserDTO, null)));
+        when(userRepository.findProfileById(id)).thenReturn(Optional.of(getUserProfileRow(userEntity)));
+        // when
+        UserDTO userDTO = underTest.getUserById(id, fields);
+        // then
+        assertSame(sparseUserDTO, userDTO);
+        verify(userRepository, never()).findProfileById(id);
+
+        UserDTO cachedUserDTO = underTest.getUserById(id);
+        assertSame(cachedUserDTO, underTest.getUserById(id, fields));
+        verify(userRepository).findFieldsById(id, fields);
+    }
+
+    @Test
+    void getUserByIdWithFields_generatesProfilePictureUrl_whenRequested() {
+        // given
+        UUID id = UUID.randomUUID();
+        Set<UserField> fields = EnumSet.of(UserField.PROFILE_PICTURE_PRE_SIGNED_URL);
+        when(userRepository.findFieldsById(id, fields))
+                .thenReturn(Optional.of(new UserFieldsRow(UserDTO.builder().build(), id + ".png")));
+        when(amazonS3Service.generateProfilePicturePreSignedUrl(id + ".png")).thenReturn("https://test/" + id);
+        // when
+        UserDTO userDTO = underTest.getUserById(id, fields);
+        // then
+        assertEquals("https://test/" + id, userDTO.getProfilePicturePreSignedUrl());
+    }
+
+    @Test
+    void getUserByIdWithFields_readsFromPrimaryWithoutCoalescing_whenUserWrittenRecently() {
+        // given
+        UUID id = UUID.randomUUID();
+        Set<UserField> fields = EnumSet.of(UserField.NAME);
+        UserDTO sparseUserDTO = UserDTO.builder().name(TEST_NAME).build();
+        ReadYourWrites readYourWrites = mock(ReadYourWrites.class);
+        when(readYourWrites.isPrimaryRequired(id)).thenReturn(true);
+        when(readYourWrites.readFromPrimary(any())).thenAnswer(invocation ->
+                invocation.<Supplier<?>>getArgument(0).get());
+        when(userRepository.findFieldsById(id, fields)).thenReturn(Optional.of(new UserFieldsRow(sparseUserDTO, null)));
+        when(userRepository.findById(id)).thenReturn(Optional.of(getUserEntity()));
+        underTest.setReadYourWrites(readYourWrites);
+        // when
+        UserDTO userDTO = underTest.getUserById(id, fields);
+        underTest.getProfilePicturePreSignedUrl(id);
+        // then
+        assertSame(sparseUserDTO, userDTO);
+        verify(readYourWrites, times(2)).readFromPrimary(any());
+        verify(singleFlight, never()).execute(anyString(), any(), any());
+    }
+
+    @Test
+    void getUserById_returnsCachedUser_untilProfilePictureUploaded() {
+        // given
+        UserEntity userEntity = getUserEntity();
+        UUID id = UUID.randomUUID();
+        MockMultipartFile file = new MockMultipartFile("file", "file.jpeg",
+                "image/jpeg", "some xml".getBytes());
+        when(userRepository.findProfileById(id)).thenReturn(Optional.of(getUserProfileRow(userEntity)));
+        when(userRepository.findById(id)).thenReturn(Optional.of(userEntity));
+        // when
+        UserDTO cachedUserDTO = underTest.getUserById(id);
+        // then
+        assertSame(cachedUserDTO, underTest.getUserById(id));
+        assertNull(cachedUserDTO.getPassword());
+        verify(userRepository).findProfileById(id);
+
+        underTest.uploadProfilePicture(id, file);
+        underTest.getUserById(id);
+        verify(userRepository, times(2)).findProfileById(id);
     }
 
     @Test
     void uploadProfilePicture_throwsException_whenUserNotFound() {
         // given
         UUID invalidId = UUID.randomUUID();
-        when(userRepository.findById(invalidId)).thenReturn(Optional.empty());
+        when(userRepository.findProfileById(invalidId)).thenReturn(Optional.empty());
         // when
         CustomException exception = assertThrows(CustomException.class,
                 () -> underTest.getUserById(invalidId));
@@ -388,4 +529,12 @@ class UserServiceTest {
         // then
         assertEquals(expectedPreSignedUrl, actualPreSignedUrl);
     }
-}
\ No newline at end of file
+
+    private static UserCacheConfig userCacheConfig() {
+        UserCacheConfig userCacheConfig = new UserCacheConfig();
+        userCacheConfig.setMaxSizeBytes(1 << 20);
+        userCacheConfig.setTtlSeconds(300);
+
+        return userCacheConfig;
+    }
+}
@@ -6,9 +6,12 @@ import kz.smarthealth.userservice.model.dto.UserDTO;
 import kz.smarthealth.userservice.model.entity.ContactEntity;
 import kz.smarthealth.userservice.model.entity.RoleEntity;
 import kz.smarthealth.userservice.model.entity.UserEntity;
+import kz.smarthealth.userservice.model.projection.UserProfileRow;
 
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -73,10 +76,7 @@ public final class TestData {
                 .birthDate(TEST_BIRTH_DATE)
                 .about(TEST_ABOUT)
                 .contact(getContactEntity())
-                .roles(Set.of(RoleEntity.builder()
-                        .id((short) 1)
-                        .name(UserRole.ROLE_PATIENT.name())
-                        .build()))
+                .roles(EnumSet.of(UserRole.ROLE_PATIENT))
                 .build();
         userEntity.getContact().setUser(userEntity);
 
@@ -94,4 +94,28 @@ public final class TestData {
                 .phoneNumber2(TEST_PHONE_NUMBER_2)
                 .build();
     }
+
+    /**
+     * Rows of the roles table, as seeded by migrations
+     */
+    public static List<RoleEntity> getRoleEntities() {
+        return List.of(new RoleEntity((short) 1, UserRole.ROLE_ADMIN.name()),
+                new RoleEntity((short) 2, UserRole.ROLE_ORGANIZATION.name()),
+                new RoleEntity((short) 3, UserRole.ROLE_DOCTOR.name()),
+                new RoleEntity((short) 4, UserRole.ROLE_PATIENT.name()));
+    }
+
+    /**
+     * Row {@link kz.smarthealth.userservice.repository.UserRepository#findProfileById} returns for the user
+     */
+    public static UserProfileRow getUserProfileRow(UserEntity userEntity) {
+        ContactEntity contact = userEntity.getContact();
+
+        return new UserProfileRow(userEntity.getId(), userEntity.getEmail(), userEntity.getName(),
+                userEntity.getLastName(), userEntity.getBirthDate(), userEntity.getDoctorTypeId(),
+                userEntity.getAbout(), userEntity.getCreatedAt(), contact.getId(), contact.getCityId(),
+                contact.getStreet(), contact.getBuildingNumber(), contact.getFlatNumber(), contact.getPhoneNumber1(),
+                contact.getPhoneNumber2(), contact.getCreatedAt(), userEntity.getRoles(),
+                userEntity.getVersion());
+    }
 }
@@ -0,0 +1,85 @@
+package kz.smarthealth.userservice.validator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link BreachedPasswordFilter}
+ */
+class BreachedPasswordFilterTest {
+
+    private static final int BREACHED_PASSWORDS = 10_000;
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void mightContain_returnsTrue_forEveryBreachedPassword() throws Exception {
+        // given
+        BreachedPasswordFilter underTest = buildFilter(0.001);
+        // when, then
+        for (int i = 0; i < BREACHED_PASSWORDS; i++) {
+            assertTrue(underTest.mightContain("Breached" + i + "!"));
+        }
+    }
+
+    @Test
+    void mightContain_returnsFalse_forNotBreachedPasswordsExceptFalsePositives() throws Exception {
+        // given
+        BreachedPasswordFilter underTest = buildFilter(0.001);
+        // when
+        long falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> underTest.mightContain("Safe" + i + "?"))
+                .count();
+        // then
+        assertTrue(falsePositives < 300, "False positives: " + falsePositives);
+    }
+
+    @Test
+    void open_throwsException_whenFileIsNotFilter() throws Exception {
+        // given
+        Path file = Files.writeString(tempDir.resolve("hashes.txt"), sha1Hex("password") + '\n');
+        // when, then
+        assertThrows(IOException.class, () -> BreachedPasswordFilter.open(file));
+    }
+
+    @Test
+    void build_throwsException_whenLineIsNotSha1Hash() throws IOException {
+        // given
+        Path hashes = Files.writeString(tempDir.resolve("hashes.txt"), "not a hash\n");
+        Path filter = tempDir.resolve("filter.bf");
+        // when, then
+        assertThrows(IllegalArgumentException.class, () -> BreachedPasswordFilter.build(hashes, filter, 0.001));
+    }
+
+    private BreachedPasswordFilter buildFilter(double falsePositiveProbability) throws Exception {
+        StringBuilder hashes = new StringBuilder();
+
+        // as in Pwned Passwords list: upper case hex with occurrence count
+        for (int i = 0; i < BREACHED_PASSWORDS; i++) {
+            hashes.append(sha1Hex("Breached" + i + "!").toUpperCase()).append(':').append(i + 1).append('\n');
+        }
+
+        Path hashFile = Files.writeString(tempDir.resolve("hashes.txt"), hashes);
+        Path filterFile = tempDir.resolve("filter.bf");
+
+        assertEquals(BREACHED_PASSWORDS, BreachedPasswordFilter.build(hashFile, filterFile, falsePositiveProbability));
+
+        return BreachedPasswordFilter.open(filterFile);
+    }
+
+    static String sha1Hex(String password) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1")
+                .digest(password.getBytes(StandardCharsets.UTF_8)));
+    }
+}
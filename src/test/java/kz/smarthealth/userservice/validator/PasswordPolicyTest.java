@@ -0,0 +1,86 @@
+package kz.smarthealth.userservice.validator;
+
+import org.junit.jupiter.api.Test;
+import org.passay.*;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link PasswordPolicy}
+ */
+class PasswordPolicyTest {
+
+    // ASCII classes, whitespace, special and non-special non-ASCII characters, including non-breaking space
+    private static final String ALPHABET = "ABCZabcz0189!@#~ \t\n\r\f\u000B\u00A3\u00D7\u20AC\u2014\u00A0\u2028\u00E9\u0416";
+
+    @Test
+    void validate_returnsSameMessagesAsPassay_forRandomPasswords() {
+        // given
+        org.passay.PasswordValidator passay = passayValidator(8, 16, 1);
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder password = new StringBuilder();
+            int length = random.nextInt(21);
+
+            for (int j = 0; j < length; j++) {
+                password.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            // when
+            List<String> messages = PasswordPolicy.DEFAULT.validate(password);
+            // then
+            RuleResult result = passay.validate(new PasswordData(password.toString()));
+            assertEquals(passay.getMessages(result), messages, password.toString());
+        }
+    }
+
+    @Test
+    void validate_returnsSameMessagesAsPassay_whenRequirementsConfigured() {
+        // given
+        PasswordPolicy underTest = new PasswordPolicy(12, 64, 2, 2, 2, 2, false);
+        org.passay.PasswordValidator passay = passayValidator(12, 64, 2);
+        String password = "A1!a b";
+        // when
+        List<String> messages = underTest.validate(password);
+        // then
+        assertEquals(passay.getMessages(passay.validate(new PasswordData(password))), messages);
+        assertEquals(List.of(
+                "Password must be 12 or more characters in length.",
+                "Password must contain 2 or more uppercase characters.",
+                "Password must contain 2 or more digit characters.",
+                "Password must contain 2 or more special characters.",
+                "Password contains a whitespace character."), messages);
+    }
+
+    @Test
+    void validate_returnsEmptyList_whenWhitespaceAllowedAndCharacterClassesNotRequired() {
+        // given
+        PasswordPolicy underTest = new PasswordPolicy(4, 8, 0, 0, 0, 0, true);
+        // when
+        List<String> messages = underTest.validate("a b c");
+        // then
+        assertEquals(List.of(), messages);
+    }
+
+    @Test
+    void constructor_throwsException_whenLengthBoundsInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> new PasswordPolicy(10, 8, 1, 1, 1, 1, false));
+    }
+
+    /**
+     * The Passay rules validation was done with before {@link PasswordPolicy}
+     */
+    private static org.passay.PasswordValidator passayValidator(int minLength, int maxLength, int minPerClass) {
+        return new org.passay.PasswordValidator(
+                new LengthRule(minLength, maxLength),
+                new CharacterRule(EnglishCharacterData.UpperCase, minPerClass),
+                new CharacterRule(EnglishCharacterData.LowerCase, minPerClass),
+                new CharacterRule(EnglishCharacterData.Digit, minPerClass),
+                new CharacterRule(EnglishCharacterData.Special, minPerClass),
+                new WhitespaceRule());
+    }
+}
@@ -3,13 +3,19 @@ package kz.smarthealth.userservice.validator;
 import jakarta.validation.ConstraintValidatorContext;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -67,6 +73,28 @@ class PasswordValidatorTest {
         runTestWithNonNullInvalidCase("AA123456");
     }
 
+    @Test
+    void isValid_returnsFalse_whenPasswordBreachedAndBreachedCheckRequired(@TempDir Path tempDir) throws Exception {
+        // given
+        Path hashes = Files.writeString(tempDir.resolve("hashes.txt"),
+                BreachedPasswordFilterTest.sha1Hex("Aa123456!") + '\n');
+        Path filter = tempDir.resolve("filter.bf");
+        BreachedPasswordFilter.build(hashes, filter, 0.001);
+        Password password = mock(Password.class);
+        when(password.checkBreached()).thenReturn(true);
+        underTest.setBreachedPasswordFilter(BreachedPasswordFilter.open(filter));
+        underTest.initialize(password);
+        when(constraintValidatorContext.buildConstraintViolationWithTemplate(any())).thenReturn(constraintViolationBuilder);
+        when(constraintViolationBuilder.addConstraintViolation()).thenReturn(constraintValidatorContext);
+        // when
+        boolean isValid = underTest.isValid("Aa123456!", constraintValidatorContext);
+        // then
+        assertFalse(isValid);
+        verify(constraintValidatorContext)
+                .buildConstraintViolationWithTemplate(PasswordValidator.BREACHED_PASSWORD_MESSAGE);
+        assertTrue(underTest.isValid("Bb123456!", constraintValidatorContext));
+    }
+
     private void runTestWithNonNullInvalidCase(String invalidPassword) {
         // given
         when(constraintValidatorContext.buildConstraintViolationWithTemplate(any())).thenReturn(constraintViolationBuilder);
@@ -16,16 +16,16 @@ create table if not exists users
     birth_date                date,
     doctor_type_id            smallint,
     about                     varchar(255),
-    refresh_token             varchar,
     profile_picture_file_name varchar(55),
+    roles_mask                smallint                 not null default 0,
+    version                   bigint                   not null default 0,
     created_at                timestamp with time zone not null
 );
 
 drop table if exists contacts;
 create table if not exists contacts
 (
-    id              uuid primary key,
-    user_id         uuid references users (id) not null,
+    id              uuid primary key references users (id),
     city_id         smallint                   not null,
     street          varchar(155),
     building_number varchar(155),
@@ -35,9 +35,11 @@ create table if not exists contacts
     created_at      timestamp with time zone   not null
 );
 
-drop table if exists user_roles;
-create table if not exists user_roles
+drop table if exists refresh_tokens;
+create table if not exists refresh_tokens
 (
-    user_id uuid     not null,
-    role_id smallint not null
+    family_id  uuid primary key,
+    user_id    uuid                     not null,
+    token_hash varbinary(32)            not null,
+    expires_at timestamp with time zone not null
 );
\ No newline at end of file